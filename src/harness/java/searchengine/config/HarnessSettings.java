@@ -0,0 +1,30 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки стенда измерения производительности обходчика (профиль harness): параметры
+ * генерируемого сайта, задержки и ошибки его ответов, а также количество прогонов индексации.
+ * Сайт строится детерминированно по seed, поэтому прогоны с одинаковыми настройками сопоставимы.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-harness")
+public class HarnessSettings {
+    private int port = 8090;
+    private int pages = 1_000;
+    private int fanOut = 10;
+    private int maxDepth = 6;
+    private int crossLinks = 5;
+    private int textWords = 300;
+    private long latencyMillis = 0;
+    private long latencyJitterMillis = 0;
+    private double errorRate = 0.0;
+    private long seed = 42;
+    private int runs = 1;
+    private String reportPath = "target/harness-report.json";
+}
@@ -0,0 +1,41 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки нагрузочного стенда поиска (профиль search-load): размеры синтетического корпуса,
+ * параметры распределения Ципфа, состав смеси запросов и параметры нагрузки. Корпус и журнал
+ * запросов строятся детерминированно по seed, поэтому прогоны с одинаковыми настройками сопоставимы.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-search-load")
+public class SearchLoadSettings {
+    private List<Integer> corpusSizes = new ArrayList<>(List.of(10_000, 100_000, 1_000_000));
+    private int vocabulary = 50_000;
+    private double zipfExponent = 1.0;
+    private int wordsPerPage = 250;
+    private int titleWords = 6;
+    private int batchSize = 1_000;
+    private long seed = 42;
+    private int queries = 10_000;
+    private String queryLogPath;
+    private int singleTermWeight = 40;
+    private int multiTermWeight = 30;
+    private int siteFilteredWeight = 20;
+    private int deepOffsetWeight = 10;
+    private int maxDeepOffset = 500;
+    private int limit = 20;
+    private int concurrency = 16;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private long requestTimeoutMillis = 10_000;
+    private String reportPath = "target/search-load-report.json";
+}
@@ -0,0 +1,168 @@
+package searchengine.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.jobs.IndexingJob;
+import searchengine.concurrency.jobs.SiteIndexingJob;
+import searchengine.config.HarnessSettings;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.IndexingService;
+import searchengine.services.utils.bean.IndexingJobManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стенд измерения производительности обходчика (профиль harness). После запуска приложения выполняет
+ * runs прогонов полной индексации синтетического сайта через IndexingService.startIndexing и для каждого
+ * прогона измеряет скорость обхода в страницах в секунду, скорость записи строк page, lemma и index,
+ * пиковое использование кучи и время сборки мусора. Отчёт записывается в JSON по пути reportPath.
+ * Стенд запускается через {@link HarnessLauncher} и в приложение не входит.
+ */
+@Component
+@Profile("harness")
+public class CrawlHarnessRunner implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrawlHarnessRunner.class);
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final long GENERATION_TIMEOUT_MILLIS = 30_000;
+    private final HarnessSettings settings;
+    private final SyntheticSiteServer server;
+    private final IndexingService indexingService;
+    private final IndexingJobManager indexingJobManager;
+    private final RepositoryManager repositoryManager;
+    private final ObjectMapper objectMapper;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public CrawlHarnessRunner(HarnessSettings settings, SyntheticSiteServer server, IndexingService indexingService,
+                              IndexingJobManager indexingJobManager, RepositoryManager repositoryManager,
+                              ObjectMapper objectMapper) {
+        this.settings = settings;
+        this.server = server;
+        this.indexingService = indexingService;
+        this.indexingJobManager = indexingJobManager;
+        this.repositoryManager = repositoryManager;
+        this.objectMapper = objectMapper;
+    }
+
+    // METHODS //
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<HarnessRun> runs = new ArrayList<>();
+
+        for (int run = 1; run <= settings.getRuns(); run++) {
+            runs.add(runOnce(run));
+        }
+
+        writeReport(runs);
+    }
+
+    // UTILS METHODS //
+
+    private HarnessRun runOnce(int run) throws InterruptedException {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long start = System.nanoTime();
+
+        indexingService.startIndexing();
+        IndexingJob job = indexingJobManager.getCurrentJob()
+                .orElseThrow(() -> new IllegalStateException("Задача индексации не запущена"));
+
+        while (!job.isFinished()) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+
+        double seconds = (double) (System.nanoTime() - start) / TimeUnit.SECONDS.toNanos(1);
+        long fetched = job.getSiteJobs().stream().mapToLong(SiteIndexingJob::getFetched).sum();
+        long failed = job.getSiteJobs().stream().mapToLong(SiteIndexingJob::getFailed).sum();
+        Site generation = awaitLatestGeneration();
+        long pageRows = repositoryManager.getPageRepository().countBySiteId(generation);
+        long lemmaRows = repositoryManager.getLemmaRepository().countBySiteId(generation);
+        long indexRows = repositoryManager.getIndexRepository().countBySiteId(generation);
+
+        HarnessRun result = new HarnessRun(run, job.getState().name(), seconds, fetched, failed, fetched / seconds,
+                pageRows, lemmaRows, indexRows, (pageRows + lemmaRows + indexRows) / seconds,
+                heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum(),
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+
+        LOGGER.info("Прогон {}: {} страниц за {} с, {} стр/с, {} строк/с, пик кучи {} МБ, GC {} мс",
+                run, fetched, String.format("%.1f", seconds), String.format("%.1f", result.getPagesPerSecond()),
+                String.format("%.1f", result.getRowsPerSecond()), result.getPeakHeapBytes() / (1024 * 1024),
+                result.getGcMillis());
+        return result;
+    }
+
+
+    /**
+     * Метод ожидает, пока задача сайта завершит своё поколение индекса, и возвращает это поколение.
+     * Строки считаются только в нём, поскольку поколение предыдущего прогона удаляется уже после
+     * завершения задачи.
+     * @return Последнее поколение синтетического сайта
+     */
+    private Site awaitLatestGeneration() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GENERATION_TIMEOUT_MILLIS);
+        Site generation = repositoryManager.getSiteRepository().findFirstByUrlOrderByGenerationDesc(server.getUrl());
+
+        while (!Boolean.TRUE.equals(generation.getActive()) && System.nanoTime() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+            generation = repositoryManager.getSiteRepository().findFirstByUrlOrderByGenerationDesc(server.getUrl());
+        }
+
+        return generation;
+    }
+
+
+    private void writeReport(List<HarnessRun> runs) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("site", server.getUrl());
+        report.put("sitePages", server.getPageCount());
+        report.put("settings", settings);
+        report.put("runs", runs);
+        report.put("meanPagesPerSecond", runs.stream().mapToDouble(HarnessRun::getPagesPerSecond).average().orElse(0));
+        report.put("meanRowsPerSecond", runs.stream().mapToDouble(HarnessRun::getRowsPerSecond).average().orElse(0));
+
+        File reportFile = new File(settings.getReportPath());
+
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        LOGGER.info("Отчёт стенда записан в {}", reportFile.getAbsolutePath());
+    }
+
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
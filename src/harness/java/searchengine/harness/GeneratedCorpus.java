@@ -0,0 +1,18 @@
+package searchengine.harness;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Итог генерации синтетического корпуса: количество записанных строк и время генерации.
+ */
+@Getter
+@AllArgsConstructor
+public class GeneratedCorpus {
+    private final int sites;
+    private final long pages;
+    private final long lemmas;
+    private final long indexRows;
+    private final long terms;
+    private final double seconds;
+}
@@ -0,0 +1,59 @@
+package searchengine.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import searchengine.Application;
+
+/**
+ * Точка входа стендов производительности: mvn -P harness verify -Dharness.profile=harness
+ * (или search-load). Стенды собираются только в профиле Maven harness и в приложение не входят.
+ * Лаунчер запускает MySQL в контейнере Testcontainers, поднимает на нём приложение с профилем
+ * стенда - Liquibase создаёт схему в пустой базе, - а после того как стенд запишет отчёт,
+ * закрывает контекст и останавливает контейнер.
+ */
+public final class HarnessLauncher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HarnessLauncher.class);
+    private static final DockerImageName MYSQL_IMAGE = DockerImageName.parse("mysql:8.0");
+
+    // CONSTRUCTORS //
+
+    private HarnessLauncher() {
+    }
+
+    // METHODS //
+
+    /**
+     * @param args Первый аргумент - профиль стенда (harness или search-load), остальные передаются
+     *             приложению как аргументы командной строки
+     */
+    public static void main(String[] args) {
+        String profile = (args.length > 0) ? args[0] : "harness";
+
+        try (MySQLContainer<?> mysql = new MySQLContainer<>(MYSQL_IMAGE)
+                .withUrlParam("rewriteBatchedStatements", "true")) {
+            mysql.start();
+            LOGGER.info("Стенд {} использует базу {}", profile, mysql.getJdbcUrl());
+
+            int extraArgs = Math.max(0, args.length - 1);
+            String[] applicationArgs = new String[3 + extraArgs];
+            applicationArgs[0] = "--spring.datasource.url=" + mysql.getJdbcUrl();
+            applicationArgs[1] = "--spring.datasource.username=" + mysql.getUsername();
+            applicationArgs[2] = "--spring.datasource.password=" + mysql.getPassword();
+
+            if (extraArgs > 0) {
+                System.arraycopy(args, 1, applicationArgs, 3, extraArgs);
+            }
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                    .profiles(profile)
+                    .run(applicationArgs)) {
+                LOGGER.info("Стенд {} завершён", profile);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package searchengine.harness;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Результат одного прогона полной индексации синтетического сайта.
+ */
+@Getter
+@AllArgsConstructor
+public class HarnessRun {
+    private final int run;
+    private final String state;
+    private final double seconds;
+    private final long pagesFetched;
+    private final long pagesFailed;
+    private final double pagesPerSecond;
+    private final long pageRows;
+    private final long lemmaRows;
+    private final long indexRows;
+    private final double rowsPerSecond;
+    private final long peakHeapBytes;
+    private final long gcCount;
+    private final long gcMillis;
+}
@@ -0,0 +1,60 @@
+package searchengine.harness;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Сводка времени ответа группы запросов: количество, ошибки, пропускная способность и процентили
+ * в миллисекундах. Процентили вычисляются точно по всем измерениям, без гистограммы.
+ */
+@Getter
+public class LatencySummary {
+    private final long requests;
+    private final long errors;
+    private final double throughput;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+    // CONSTRUCTORS //
+
+    /**
+     * @param latencies Время ответа успешных и неуспешных запросов в наносекундах
+     * @param errors Количество неуспешных запросов
+     * @param seconds Длительность измерения
+     */
+    public LatencySummary(long[] latencies, long errors, double seconds) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+
+        this.requests = sorted.length;
+        this.errors = errors;
+        this.throughput = (seconds > 0) ? sorted.length / seconds : 0;
+        this.meanMillis = (sorted.length == 0) ? 0 : toMillis(Arrays.stream(sorted).sum()) / sorted.length;
+        this.p50Millis = percentile(sorted, 0.5);
+        this.p90Millis = percentile(sorted, 0.9);
+        this.p99Millis = percentile(sorted, 0.99);
+        this.p999Millis = percentile(sorted, 0.999);
+        this.maxMillis = (sorted.length == 0) ? 0 : toMillis(sorted[sorted.length - 1]);
+    }
+
+    // UTILS METHODS //
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
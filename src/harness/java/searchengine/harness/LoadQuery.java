@@ -0,0 +1,41 @@
+package searchengine.harness;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Запрос из журнала нагрузочного стенда. В файле журнала запрос хранится одной строкой из полей
+ * тип, текст, сайт и смещение, разделённых табуляцией; пустой сайт означает поиск по всем сайтам.
+ */
+@Getter
+@AllArgsConstructor
+public class LoadQuery {
+
+    public static final String SINGLE_TERM = "singleTerm";
+    public static final String MULTI_TERM = "multiTerm";
+    public static final String SITE_FILTERED = "siteFiltered";
+    public static final String DEEP_OFFSET = "deepOffset";
+
+    private final String type;
+    private final String query;
+    private final String site;
+    private final int offset;
+
+    // METHODS //
+
+    public String format() {
+        return type + '\t' + query + '\t' + ((site == null) ? "" : site) + '\t' + offset;
+    }
+
+
+    public static LoadQuery parse(String line) {
+        String[] fields = line.split("\t", -1);
+
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Некорректная строка журнала запросов: " + line);
+        }
+
+        return new LoadQuery(fields[0], fields[1], fields[2].isEmpty() ? null : fields[2],
+                Integer.parseInt(fields[3]));
+    }
+}
@@ -0,0 +1,287 @@
+package searchengine.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchLoadSettings;
+import searchengine.config.SiteProps;
+import searchengine.config.SitesList;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный драйвер поиска (профиль search-load). Воспроизводит журнал запросов к /api/search
+ * с фиксированным числом одновременных клиентов: каждый клиент отправляет следующий запрос журнала
+ * сразу после ответа на предыдущий. Первые warmupSeconds секунд не измеряются, затем в течение
+ * durationSeconds секунд записывается время ответа каждого запроса.
+ * <p>
+ * Журнал состоит из запросов четырёх типов в заданных пропорциях: из одной леммы, из нескольких лемм,
+ * с фильтром по сайту и с большим смещением. Леммы выбираются из таблицы lemma по распределению Ципфа
+ * по их частоте. Если задан queryLogPath, журнал читается из этого файла, а при его отсутствии
+ * генерируется и записывается туда, поэтому один и тот же журнал можно воспроизводить повторно.
+ */
+@Component
+@Profile("search-load")
+public class SearchLoadDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchLoadDriver.class);
+    private final SearchLoadSettings settings;
+    private final SitesList sitesList;
+    private final JdbcTemplate jdbcTemplate;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SearchLoadDriver(SearchLoadSettings settings, SitesList sitesList, JdbcTemplate jdbcTemplate) {
+        this.settings = settings;
+        this.sitesList = sitesList;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод выполняет нагрузочный прогон против приложения на localhost.
+     * @param corpusPages Количество страниц корпуса
+     * @param corpus Сведения о сгенерированном корпусе
+     * @param port Порт приложения
+     * @return SearchLoadRun
+     */
+    public SearchLoadRun run(int corpusPages, GeneratedCorpus corpus, int port)
+            throws IOException, InterruptedException {
+        List<LoadQuery> queryLog = loadQueryLog();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.getRequestTimeoutMillis()))
+                .build();
+        ExecutorService clients = Executors.newFixedThreadPool(settings.getConcurrency());
+        AtomicLong cursor = new AtomicLong();
+        long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+        long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+
+        LOGGER.info("Нагрузка на корпус {} страниц: {} клиентов, прогрев {} с, измерение {} с, {} запросов в журнале",
+                corpusPages, settings.getConcurrency(), settings.getWarmupSeconds(), settings.getDurationSeconds(),
+                queryLog.size());
+
+        List<Callable<Map<String, Latencies>>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            tasks.add(() -> replay(httpClient, port, queryLog, cursor, measureStart, measureEnd));
+        }
+
+        Map<String, Latencies> byType = new TreeMap<>();
+
+        try {
+            for (Future<Map<String, Latencies>> future : clients.invokeAll(tasks)) {
+                future.get().forEach((type, latencies) ->
+                        byType.computeIfAbsent(type, key -> new Latencies()).addAll(latencies));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Клиент нагрузочного драйвера завершился ошибкой", e.getCause());
+        } finally {
+            clients.shutdownNow();
+        }
+
+        double seconds = settings.getDurationSeconds();
+        Latencies all = new Latencies();
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+
+        byType.forEach((type, latencies) -> {
+            all.addAll(latencies);
+            summaries.put(type, latencies.summarize(seconds));
+        });
+
+        SearchLoadRun run = new SearchLoadRun(corpusPages, corpus, settings.getConcurrency(), seconds,
+                all.summarize(seconds), summaries);
+        LOGGER.info("Корпус {} страниц: {} запр/с, ошибок {}, p50 {} мс, p99 {} мс, p999 {} мс",
+                corpusPages, String.format("%.1f", run.getTotal().getThroughput()), run.getTotal().getErrors(),
+                String.format("%.2f", run.getTotal().getP50Millis()), String.format("%.2f", run.getTotal().getP99Millis()),
+                String.format("%.2f", run.getTotal().getP999Millis()));
+        return run;
+    }
+
+    // UTILS METHODS //
+
+    private Map<String, Latencies> replay(HttpClient httpClient, int port, List<LoadQuery> queryLog, AtomicLong cursor,
+                                          long measureStart, long measureEnd) throws InterruptedException {
+        Map<String, Latencies> byType = new HashMap<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+
+            if (start >= measureEnd) {
+                break;
+            }
+
+            LoadQuery query = queryLog.get((int) (cursor.getAndIncrement() % queryLog.size()));
+            boolean succeeded = send(httpClient, toUri(port, query));
+
+            if (start >= measureStart) {
+                byType.computeIfAbsent(query.getType(), type -> new Latencies())
+                        .add(System.nanoTime() - start, succeeded);
+            }
+        }
+
+        return byType;
+    }
+
+
+    private boolean send(HttpClient httpClient, URI uri) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(settings.getRequestTimeoutMillis()))
+                .GET()
+                .build();
+
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            LOGGER.debug("Ошибка запроса {}: {}", uri, e.getMessage());
+            return false;
+        }
+    }
+
+
+    private URI toUri(int port, LoadQuery query) {
+        StringBuilder uri = new StringBuilder("http://localhost:").append(port)
+                .append("/api/search?query=").append(URLEncoder.encode(query.getQuery(), StandardCharsets.UTF_8))
+                .append("&offset=").append(query.getOffset())
+                .append("&limit=").append(settings.getLimit());
+
+        if (query.getSite() != null) {
+            uri.append("&site=").append(URLEncoder.encode(query.getSite(), StandardCharsets.UTF_8));
+        }
+
+        return URI.create(uri.toString());
+    }
+
+
+    private List<LoadQuery> loadQueryLog() throws IOException {
+        Path path = (settings.getQueryLogPath() == null) ? null : Path.of(settings.getQueryLogPath());
+
+        if (path != null && Files.exists(path)) {
+            List<LoadQuery> queryLog = Files.readAllLines(path, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(LoadQuery::parse)
+                    .toList();
+            LOGGER.info("Журнал запросов прочитан из {}", path.toAbsolutePath());
+            return queryLog;
+        }
+
+        List<LoadQuery> queryLog = generateQueryLog();
+
+        if (path != null) {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+
+            Files.write(path, queryLog.stream().map(LoadQuery::format).toList(), StandardCharsets.UTF_8);
+            LOGGER.info("Журнал запросов записан в {}", path.toAbsolutePath());
+        }
+
+        return queryLog;
+    }
+
+
+    /**
+     * Метод генерирует журнал запросов. Леммы упорядочиваются по суммарной частоте по всем сайтам,
+     * и ранг леммы для запроса выбирается по распределению Ципфа, поэтому частые леммы запрашиваются
+     * чаще, как в реальном журнале поиска.
+     * @return List<LoadQuery>
+     */
+    private List<LoadQuery> generateQueryLog() {
+        List<String> terms = jdbcTemplate.queryForList(
+                "SELECT lemma FROM lemma GROUP BY lemma ORDER BY SUM(frequency) DESC, lemma LIMIT ?",
+                String.class, settings.getVocabulary());
+
+        if (terms.isEmpty()) {
+            throw new IllegalStateException("Таблица lemma пуста, журнал запросов построить не из чего");
+        }
+
+        List<String> sites = sitesList.getSites().stream().map(SiteProps::getUrl).toList();
+        ZipfDistribution zipf = new ZipfDistribution(terms.size(), settings.getZipfExponent());
+        Random random = new Random(settings.getSeed());
+        int totalWeight = settings.getSingleTermWeight() + settings.getMultiTermWeight()
+                + settings.getSiteFilteredWeight() + settings.getDeepOffsetWeight();
+        int deepPages = Math.max(1, settings.getMaxDeepOffset() / Math.max(1, settings.getLimit()));
+        List<LoadQuery> queryLog = new ArrayList<>(settings.getQueries());
+
+        for (int i = 0; i < settings.getQueries(); i++) {
+            int choice = random.nextInt(Math.max(1, totalWeight));
+
+            if ((choice -= settings.getSingleTermWeight()) < 0) {
+                queryLog.add(new LoadQuery(LoadQuery.SINGLE_TERM, randomTerms(terms, zipf, random, 1), null, 0));
+            } else if ((choice -= settings.getMultiTermWeight()) < 0) {
+                queryLog.add(new LoadQuery(LoadQuery.MULTI_TERM, randomTerms(terms, zipf, random, 2 + random.nextInt(2)),
+                        null, 0));
+            } else if ((choice -= settings.getSiteFilteredWeight()) < 0 && !sites.isEmpty()) {
+                queryLog.add(new LoadQuery(LoadQuery.SITE_FILTERED, randomTerms(terms, zipf, random, 1 + random.nextInt(2)),
+                        sites.get(random.nextInt(sites.size())), 0));
+            } else {
+                queryLog.add(new LoadQuery(LoadQuery.DEEP_OFFSET, randomTerms(terms, zipf, random, 1), null,
+                        (1 + random.nextInt(deepPages)) * settings.getLimit()));
+            }
+        }
+
+        return queryLog;
+    }
+
+
+    private static String randomTerms(List<String> terms, ZipfDistribution zipf, Random random, int count) {
+        Set<String> query = new LinkedHashSet<>();
+
+        while (query.size() < Math.min(count, terms.size())) {
+            query.add(terms.get(zipf.sample(random)));
+        }
+
+        return String.join(" ", query);
+    }
+
+
+    /**
+     * Время ответа запросов одного типа, измеренное одним клиентом.
+     */
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+
+        void add(long nanos, boolean succeeded) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = nanos;
+            errors += succeeded ? 0 : 1;
+        }
+
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i], true);
+            }
+
+            errors += other.errors;
+        }
+
+
+        LatencySummary summarize(double seconds) {
+            return new LatencySummary(Arrays.copyOf(values, size), errors, seconds);
+        }
+    }
+}
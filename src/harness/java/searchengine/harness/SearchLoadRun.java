@@ -0,0 +1,21 @@
+package searchengine.harness;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Результат нагрузочного прогона поиска на корпусе одного размера: сведения о корпусе, общая
+ * сводка времени ответа и сводки по типам запросов смеси.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchLoadRun {
+    private final int corpusPages;
+    private final GeneratedCorpus corpus;
+    private final int concurrency;
+    private final double seconds;
+    private final LatencySummary total;
+    private final Map<String, LatencySummary> byType;
+}
@@ -0,0 +1,81 @@
+package searchengine.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchLoadSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Нагрузочный стенд поиска (профиль search-load). После запуска приложения для каждого размера
+ * из corpusSizes генерирует синтетический корпус и нагружает /api/search журналом запросов. Отчёт со
+ * сводками по всем размерам записывается в JSON по пути reportPath. Стенд запускается через
+ * {@link HarnessLauncher} и в приложение не входит.
+ */
+@Component
+@Profile("search-load")
+public class SearchLoadRunner implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchLoadRunner.class);
+    private final SearchLoadSettings settings;
+    private final ZipfCorpusGenerator generator;
+    private final SearchLoadDriver driver;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SearchLoadRunner(SearchLoadSettings settings, ZipfCorpusGenerator generator, SearchLoadDriver driver,
+                            ObjectMapper objectMapper, Environment environment) {
+        this.settings = settings;
+        this.generator = generator;
+        this.driver = driver;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+    }
+
+    // METHODS //
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int port = environment.getRequiredProperty("local.server.port", Integer.class);
+        List<SearchLoadRun> runs = new ArrayList<>();
+
+        for (int corpusPages : settings.getCorpusSizes()) {
+            GeneratedCorpus corpus = generator.generate(corpusPages);
+            runs.add(driver.run(corpusPages, corpus, port));
+        }
+
+        writeReport(runs);
+    }
+
+    // UTILS METHODS //
+
+    private void writeReport(List<SearchLoadRun> runs) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("runs", runs);
+
+        File reportFile = new File(settings.getReportPath());
+
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        LOGGER.info("Отчёт нагрузочного стенда записан в {}", reportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,160 @@
+package searchengine.harness;
+
+import searchengine.config.HarnessSettings;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Детерминированный синтетический сайт. Страницы пронумерованы от 0 до pages - 1 и образуют дерево:
+ * у страницы i дочерние страницы i * fanOut + 1 ... i * fanOut + fanOut, если они не глубже maxDepth.
+ * Дополнительно каждая страница ссылается на crossLinks случайных страниц. Текст страниц составляется
+ * из русских слов. Содержимое страницы и то, отвечает ли она ошибкой, зависят только от её номера
+ * и seed.
+ */
+public final class SyntheticSite {
+
+    private static final String[] WORDS = (
+            "поиск индекс страница сайт лемма запрос слово текст документ ссылка обход загрузка сервер " +
+            "ответ время скорость память база данные таблица строка ключ значение очередь поток задача " +
+            "результат выдача релевантность частота ранг заголовок абзац статья новость каталог товар " +
+            "цена доставка магазин город погода история наука техника спорт культура музей выставка " +
+            "книга автор читатель библиотека школа учитель ученик урок экзамен город улица дом окно " +
+            "дверь дорога машина поезд самолёт вокзал путешествие отпуск море берег солнце ветер дождь"
+    ).split(" ");
+
+    private final HarnessSettings settings;
+    private final int pageCount;
+
+    // CONSTRUCTORS //
+
+    public SyntheticSite(HarnessSettings settings) {
+        this.settings = settings;
+        this.pageCount = countReachablePages(settings);
+    }
+
+    // METHODS //
+
+    /**
+     * Метод возвращает количество страниц сайта, достижимых от главной с учётом maxDepth.
+     * @return int
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+
+    public static String path(int page) {
+        return (page == 0) ? "/" : "/page/" + page;
+    }
+
+
+    /**
+     * Метод определяет, отвечает ли страница ошибкой 500. Доля таких страниц равна errorRate.
+     * Главная страница всегда доступна.
+     * @param page Номер страницы
+     * @return boolean
+     */
+    public boolean isFailing(int page) {
+        return page != 0 && random(page, 1).nextDouble() < settings.getErrorRate();
+    }
+
+
+    /**
+     * Метод строит HTML страницы.
+     * @param page Номер страницы
+     * @return Строка HTML
+     */
+    public String render(int page) {
+        Random random = random(page, 0);
+        StringBuilder html = new StringBuilder(settings.getTextWords() * 12 + 1024);
+        html.append("<!DOCTYPE html><html lang=\"ru\"><head><meta charset=\"UTF-8\"><title>")
+                .append(words(random, 5)).append("</title></head><body><h1>")
+                .append(words(random, 4)).append("</h1>");
+
+        for (int written = 0; written < settings.getTextWords(); written += 50) {
+            html.append("<p>").append(words(random, Math.min(50, settings.getTextWords() - written))).append("</p>");
+        }
+
+        html.append("<ul>");
+
+        for (int link : links(page, random)) {
+            html.append("<li><a href=\"").append(path(link)).append("\">")
+                    .append(words(random, 3)).append("</a></li>");
+        }
+
+        return html.append("</ul></body></html>").toString();
+    }
+
+    // UTILS METHODS //
+
+    private List<Integer> links(int page, Random random) {
+        Set<Integer> links = new LinkedHashSet<>();
+
+        if (depth(page) < settings.getMaxDepth()) {
+            for (long child = (long) page * settings.getFanOut() + 1;
+                 child <= (long) page * settings.getFanOut() + settings.getFanOut() && child < settings.getPages();
+                 child++) {
+                links.add((int) child);
+            }
+        }
+
+        for (int i = 0; i < settings.getCrossLinks() && pageCount > 1; i++) {
+            links.add(random.nextInt(pageCount));
+        }
+
+        links.remove(page);
+        return new ArrayList<>(links);
+    }
+
+
+    private int depth(int page) {
+        int depth = 0;
+
+        while (page > 0) {
+            page = (page - 1) / settings.getFanOut();
+            depth++;
+        }
+
+        return depth;
+    }
+
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return text.toString();
+    }
+
+
+    private Random random(int page, int salt) {
+        return new Random(settings.getSeed() * 31 + page * 2L + salt);
+    }
+
+
+    /**
+     * Страницы нумеруются по уровням дерева, поэтому достижимые страницы - это префикс нумерации
+     * до последней страницы уровня maxDepth.
+     */
+    private static int countReachablePages(HarnessSettings settings) {
+        long reachable = 0;
+        long levelSize = 1;
+
+        for (int depth = 0; depth <= settings.getMaxDepth() && reachable < settings.getPages(); depth++) {
+            reachable += levelSize;
+            levelSize *= Math.max(settings.getFanOut(), 1);
+        }
+
+        return (int) Math.min(reachable, settings.getPages());
+    }
+}
@@ -0,0 +1,141 @@
+package searchengine.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import searchengine.config.HarnessSettings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Встроенный HTTP-сервер, отдающий синтетический сайт на localhost. Перед каждым ответом выдерживается
+ * задержка latencyMillis со случайным разбросом до latencyJitterMillis. Неизвестные пути отвечают 404,
+ * а доля errorRate страниц - 500.
+ */
+@Component
+@Profile("harness")
+public class SyntheticSiteServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticSiteServer.class);
+    private static final String PAGE_PREFIX = "/page/";
+    private static final int SERVER_THREADS = 64;
+    private final HarnessSettings settings;
+    private final SyntheticSite site;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SyntheticSiteServer(HarnessSettings settings) {
+        this.settings = settings;
+        this.site = new SyntheticSite(settings);
+    }
+
+    // METHODS //
+
+    @PostConstruct
+    public void start() throws IOException {
+        executor = Executors.newFixedThreadPool(SERVER_THREADS, task -> {
+            Thread thread = new Thread(task, "synthetic-site");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.getPort()), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Синтетический сайт из {} страниц запущен на {}", site.getPageCount(), getUrl());
+    }
+
+
+    @PreDestroy
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+
+    public String getUrl() {
+        return "http://localhost:" + settings.getPort();
+    }
+
+
+    public int getPageCount() {
+        return site.getPageCount();
+    }
+
+    // UTILS METHODS //
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            delay();
+            int page = parsePage(exchange.getRequestURI().getPath());
+
+            if (page < 0) {
+                send(exchange, 404, "<html><body><h1>Страница не найдена</h1></body></html>");
+            } else if (site.isFailing(page)) {
+                send(exchange, 500, "<html><body><h1>Внутренняя ошибка сервера</h1></body></html>");
+            } else {
+                send(exchange, 200, site.render(page));
+            }
+        }
+    }
+
+
+    private int parsePage(String path) {
+        if (path.equals("/")) {
+            return 0;
+        }
+
+        if (!path.startsWith(PAGE_PREFIX)) {
+            return -1;
+        }
+
+        try {
+            int page = Integer.parseInt(path.substring(PAGE_PREFIX.length()));
+            return (page > 0 && page < site.getPageCount()) ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+
+    private void delay() {
+        long millis = settings.getLatencyMillis() + ((settings.getLatencyJitterMillis() > 0)
+                ? ThreadLocalRandom.current().nextLong(settings.getLatencyJitterMillis() + 1) : 0);
+
+        if (millis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static void send(HttpExchange exchange, int code, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(code, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package searchengine.harness;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import searchengine.services.utils.bean.Lemmatizator;
+
+import java.util.*;
+
+/**
+ * Словарь синтетического корпуса. Слова составляются из русских слогов, и в словарь попадают только
+ * те из них, которые лемматизатор приводит к самим себе и не считает служебными частями речи. Поэтому
+ * запрос из слов словаря после лемматизации ищет ровно по тем леммам, которые записаны в корпус.
+ * Порядок слов задаёт их ранг в распределении Ципфа.
+ */
+public final class SyntheticVocabulary {
+
+    private static final String[] CONSONANTS = "б в г д ж з к л м н п р с т ф х ц ч ш".split(" ");
+    private static final String[] VOWELS = "а о у е и ы я ю".split(" ");
+    private static final String[] ENDINGS = "ка ок ник ость ина ица ство ер ор ан".split(" ");
+    private static final int MAX_ATTEMPTS_PER_WORD = 100;
+
+    private SyntheticVocabulary() {
+    }
+
+    // METHODS //
+
+    /**
+     * Метод строит словарь заданного размера.
+     * @param luceneMorph LuceneMorphology, которым пользуется лемматизатор
+     * @param size Количество слов
+     * @param seed Начальное значение генератора случайных чисел
+     * @return List<String> слов в порядке рангов
+     */
+    public static List<String> build(LuceneMorphology luceneMorph, int size, long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new LinkedHashSet<>();
+        long attempts = 0;
+
+        while (words.size() < size) {
+            if (++attempts > (long) size * MAX_ATTEMPTS_PER_WORD) {
+                throw new IllegalStateException("Не удалось построить словарь из " + size + " слов");
+            }
+
+            String word = randomWord(random);
+
+            if (!words.contains(word) && Lemmatizator.collectLemmas(luceneMorph, word).equals(Map.of(word, 1))) {
+                words.add(word);
+            }
+        }
+
+        return new ArrayList<>(words);
+    }
+
+    // UTILS METHODS //
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 1 + random.nextInt(3);
+
+        for (int i = 0; i < syllables; i++) {
+            word.append(CONSONANTS[random.nextInt(CONSONANTS.length)])
+                    .append(VOWELS[random.nextInt(VOWELS.length)]);
+        }
+
+        return word.append(ENDINGS[random.nextInt(ENDINGS.length)]).toString();
+    }
+}
@@ -0,0 +1,311 @@
+package searchengine.harness;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchLoadSettings;
+import searchengine.config.SiteProps;
+import searchengine.config.SitesList;
+import searchengine.model.converter.CompressedContentConverter;
+import searchengine.model.implementation.IndexStatus;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.bean.CorpusStatistics;
+import searchengine.services.utils.bean.DuplicateDetector;
+import searchengine.services.utils.bean.IndexGeneration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генератор синтетического корпуса для нагрузочного стенда поиска (профиль search-load). Корпус
+ * записывается напрямую в таблицы site, page, page_content, lemma, index и site_statistics пакетными
+ * INSERT, минуя обходчик и лемматизатор, поэтому корпус в миллион страниц строится за минуты. Слова
+ * страниц выбираются из синтетического словаря по распределению Ципфа, как в естественном тексте:
+ * немногие леммы встречаются почти на всех страницах, а большинство редки. Страницы поровну делятся
+ * между сайтами из indexing-settings. Перед генерацией все таблицы индекса очищаются.
+ */
+@Component
+@Profile("search-load")
+public class ZipfCorpusGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipfCorpusGenerator.class);
+    private static final String[] TABLES = {
+            "crawl_visited", "crawl_lease", "`index`", "lemma", "page_content", "page", "site_statistics", "site"};
+    private final SearchLoadSettings settings;
+    private final SitesList sitesList;
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryManager repositoryManager;
+    private final CorpusStatistics corpusStatistics;
+    private final DuplicateDetector duplicateDetector;
+    private final IndexGeneration indexGeneration;
+    private final CompressedContentConverter contentConverter = new CompressedContentConverter();
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public ZipfCorpusGenerator(SearchLoadSettings settings, SitesList sitesList, JdbcTemplate jdbcTemplate,
+                               RepositoryManager repositoryManager, CorpusStatistics corpusStatistics,
+                               DuplicateDetector duplicateDetector, IndexGeneration indexGeneration) {
+        this.settings = settings;
+        this.sitesList = sitesList;
+        this.jdbcTemplate = jdbcTemplate;
+        this.repositoryManager = repositoryManager;
+        this.corpusStatistics = corpusStatistics;
+        this.duplicateDetector = duplicateDetector;
+        this.indexGeneration = indexGeneration;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод заменяет содержимое индекса синтетическим корпусом из pages страниц. После записи
+     * статистика корпуса перечитывается, а поколение индекса сдвигается, поэтому поиск сразу
+     * работает по новому корпусу.
+     * @param pages Количество страниц корпуса
+     * @return GeneratedCorpus
+     */
+    public GeneratedCorpus generate(int pages) {
+        List<SiteProps> sites = sitesList.getSites();
+
+        if (sites.isEmpty()) {
+            throw new IllegalStateException("В indexing-settings не задано ни одного сайта");
+        }
+
+        long start = System.nanoTime();
+        List<String> vocabulary = SyntheticVocabulary.build(luceneMorphInitialization(), settings.getVocabulary(),
+                settings.getSeed());
+        ZipfDistribution zipf = new ZipfDistribution(vocabulary.size(), settings.getZipfExponent());
+
+        for (Site site : repositoryManager.getSiteRepository().findAll()) {
+            corpusStatistics.remove(site.getId());
+            duplicateDetector.evict(site.getId());
+        }
+
+        long[] totals = jdbcTemplate.execute((ConnectionCallback<long[]>) connection ->
+                write(connection, sites, pages, vocabulary, zipf));
+
+        corpusStatistics.load();
+        indexGeneration.refreshAfterWrite();
+
+        double seconds = (double) (System.nanoTime() - start) / TimeUnit.SECONDS.toNanos(1);
+        GeneratedCorpus corpus = new GeneratedCorpus(sites.size(), pages, totals[0], totals[1], totals[2], seconds);
+        LOGGER.info("Сгенерирован корпус: {} страниц, {} лемм, {} строк index за {} с",
+                pages, corpus.getLemmas(), corpus.getIndexRows(), String.format("%.1f", seconds));
+        return corpus;
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод очищает таблицы индекса и записывает корпус в одном соединении. Проверка внешних ключей
+     * на время записи отключается: строки index пишутся раньше лемм, частоты которых известны только
+     * после генерации всех страниц сайта.
+     * @return Массив из количества лемм, строк index и слов корпуса
+     */
+    private long[] write(Connection connection, List<SiteProps> sites, int pages, List<String> vocabulary,
+                         ZipfDistribution zipf) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        long[] totals = new long[3];
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+
+            for (String table : TABLES) {
+                statement.execute("TRUNCATE TABLE " + table);
+            }
+
+            connection.setAutoCommit(false);
+            long nextPageId = 1;
+
+            for (int siteIndex = 0; siteIndex < sites.size(); siteIndex++) {
+                int sitePages = pages / sites.size() + ((siteIndex < pages % sites.size()) ? 1 : 0);
+                long[] siteTotals = writeSite(connection, siteIndex, sites.get(siteIndex), nextPageId, sitePages,
+                        vocabulary, zipf);
+                nextPageId += sitePages;
+
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += siteTotals[i];
+                }
+            }
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+
+        return totals;
+    }
+
+
+    private long[] writeSite(Connection connection, int siteIndex, SiteProps site, long firstPageId, int sitePages,
+                             List<String> vocabulary, ZipfDistribution zipf) throws SQLException {
+        long siteId = siteIndex + 1;
+        long lemmaIdBase = (long) siteIndex * vocabulary.size() + 1;
+        int[] documentFrequency = new int[vocabulary.size()];
+        int[] counts = new int[vocabulary.size()];
+        int[] distinct = new int[settings.getWordsPerPage() * 2 + 1];
+        Random random = new Random(settings.getSeed() * 31 + siteIndex);
+        long terms = 0;
+        long indexRows = 0;
+
+        try (PreparedStatement siteInsert = connection.prepareStatement(
+                     "INSERT INTO site (id, status, status_time, url, name, generation, active) " +
+                     "VALUES (?, ?, NOW(), ?, ?, 1, TRUE)");
+             PreparedStatement pageInsert = connection.prepareStatement(
+                     "INSERT INTO page (id, site_id, path, code, title) VALUES (?, ?, ?, 200, ?)");
+             PreparedStatement contentInsert = connection.prepareStatement(
+                     "INSERT INTO page_content (page_id, content) VALUES (?, ?)");
+             PreparedStatement indexInsert = connection.prepareStatement(
+                     "INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES (?, ?, ?)")) {
+
+            siteInsert.setLong(1, siteId);
+            siteInsert.setString(2, IndexStatus.INDEXED.name());
+            siteInsert.setString(3, site.getUrl());
+            siteInsert.setString(4, site.getName());
+            siteInsert.executeUpdate();
+
+            for (int page = 0; page < sitePages; page++) {
+                long pageId = firstPageId + page;
+                int length = settings.getWordsPerPage() / 2 + random.nextInt(settings.getWordsPerPage() + 1);
+                StringBuilder text = new StringBuilder(length * 10);
+                String title = null;
+                int distinctCount = 0;
+
+                for (int word = 0; word < length; word++) {
+                    int rank = zipf.sample(random);
+
+                    if (counts[rank]++ == 0) {
+                        distinct[distinctCount++] = rank;
+                    }
+
+                    if (word == settings.getTitleWords()) {
+                        title = text.toString().trim();
+                    }
+                    text.append(vocabulary.get(rank)).append(' ');
+                }
+
+                String body = text.toString().trim();
+                title = (title == null) ? body : title;
+
+                pageInsert.setLong(1, pageId);
+                pageInsert.setLong(2, siteId);
+                pageInsert.setString(3, "/doc/" + page);
+                pageInsert.setString(4, title);
+                pageInsert.addBatch();
+
+                contentInsert.setLong(1, pageId);
+                contentInsert.setBytes(2, contentConverter.convertToDatabaseColumn(
+                        "<!DOCTYPE html><html lang=\"ru\"><head><title>" + title + "</title></head><body><p>"
+                                + body + "</p></body></html>"));
+                contentInsert.addBatch();
+
+                for (int i = 0; i < distinctCount; i++) {
+                    int rank = distinct[i];
+                    indexInsert.setLong(1, pageId);
+                    indexInsert.setLong(2, lemmaIdBase + rank);
+                    indexInsert.setFloat(3, counts[rank]);
+                    indexInsert.addBatch();
+
+                    documentFrequency[rank]++;
+                    terms += counts[rank];
+                    counts[rank] = 0;
+                }
+
+                indexRows += distinctCount;
+
+                if ((page + 1) % settings.getBatchSize() == 0 || page == sitePages - 1) {
+                    pageInsert.executeBatch();
+                    contentInsert.executeBatch();
+                    indexInsert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+
+        long lemmas = writeLemmas(connection, siteId, lemmaIdBase, vocabulary, documentFrequency);
+        writeStatistics(connection, siteId, sitePages, lemmas, terms, documentFrequency);
+        connection.commit();
+
+        LOGGER.info("Сайт {}: {} страниц, {} лемм, {} строк index", site.getUrl(), sitePages, lemmas, indexRows);
+        return new long[]{lemmas, indexRows, terms};
+    }
+
+
+    /**
+     * Метод записывает леммы сайта, которые встретились хотя бы на одной странице, с их частотами.
+     * @return Количество записанных лемм
+     */
+    private long writeLemmas(Connection connection, long siteId, long lemmaIdBase, List<String> vocabulary,
+                             int[] documentFrequency) throws SQLException {
+        long lemmas = 0;
+
+        try (PreparedStatement lemmaInsert = connection.prepareStatement(
+                "INSERT INTO lemma (id, site_id, lemma, frequency) VALUES (?, ?, ?, ?)")) {
+
+            for (int rank = 0; rank < documentFrequency.length; rank++) {
+                if (documentFrequency[rank] == 0) {
+                    continue;
+                }
+
+                lemmaInsert.setLong(1, lemmaIdBase + rank);
+                lemmaInsert.setLong(2, siteId);
+                lemmaInsert.setString(3, vocabulary.get(rank));
+                lemmaInsert.setInt(4, documentFrequency[rank]);
+                lemmaInsert.addBatch();
+
+                if (++lemmas % settings.getBatchSize() == 0) {
+                    lemmaInsert.executeBatch();
+                }
+            }
+
+            lemmaInsert.executeBatch();
+        }
+
+        return lemmas;
+    }
+
+
+    private static void writeStatistics(Connection connection, long siteId, long pages, long lemmas, long terms,
+                                        int[] documentFrequency) throws SQLException {
+        int maxFrequency = 0;
+
+        for (int frequency : documentFrequency) {
+            maxFrequency = Math.max(maxFrequency, frequency);
+        }
+
+        try (PreparedStatement statisticsInsert = connection.prepareStatement(
+                "INSERT INTO site_statistics (site_id, pages_count, lemmas_count, max_frequency, terms_count) " +
+                "VALUES (?, ?, ?, ?, ?)")) {
+            statisticsInsert.setLong(1, siteId);
+            statisticsInsert.setLong(2, pages);
+            statisticsInsert.setLong(3, lemmas);
+            statisticsInsert.setInt(4, maxFrequency);
+            statisticsInsert.setLong(5, terms);
+            statisticsInsert.executeUpdate();
+        }
+    }
+
+
+    private static LuceneMorphology luceneMorphInitialization() {
+        try {
+            return new RussianLuceneMorphology();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось инициализировать RussianLuceneMorphology", e);
+        }
+    }
+}
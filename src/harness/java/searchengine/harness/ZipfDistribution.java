@@ -0,0 +1,51 @@
+package searchengine.harness;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Распределение Ципфа на рангах 0 ... size - 1: вероятность ранга r пропорциональна 1 / (r + 1)^exponent.
+ * Функция распределения вычисляется один раз, а выборка ранга выполняется двоичным поиском по ней.
+ */
+public final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    // CONSTRUCTORS //
+
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер распределения должен быть положительным");
+        }
+
+        cumulative = new double[size];
+        double sum = 0;
+
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    // METHODS //
+
+    public int size() {
+        return cumulative.length;
+    }
+
+
+    /**
+     * Метод возвращает случайный ранг в соответствии с распределением.
+     * @param random Источник случайных чисел
+     * @return Ранг от 0 до size - 1
+     */
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = (index >= 0) ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
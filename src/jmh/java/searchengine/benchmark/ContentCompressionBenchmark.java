@@ -0,0 +1,43 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.model.converter.CompressedContentConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сжатие HTML-контента при записи страницы в page_content и распаковка при построении сниппетов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentCompressionBenchmark {
+
+    private final CompressedContentConverter converter = new CompressedContentConverter();
+    private List<String> pages;
+    private List<byte[]> compressedPages;
+
+
+    @Setup
+    public void setup() {
+        pages = Corpus.loadPages();
+        compressedPages = pages.stream().map(converter::convertToDatabaseColumn).toList();
+    }
+
+
+    @Benchmark
+    public void compress(Blackhole blackhole) {
+        pages.forEach(page -> blackhole.consume(converter.convertToDatabaseColumn(page)));
+    }
+
+
+    @Benchmark
+    public void decompress(Blackhole blackhole) {
+        compressedPages.forEach(data -> blackhole.consume(converter.convertToEntityAttribute(data)));
+    }
+}
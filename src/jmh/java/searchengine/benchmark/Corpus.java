@@ -0,0 +1,51 @@
+package searchengine.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Набор сохранённых HTML-страниц из src/jmh/resources/corpus, на котором выполняются бенчмарки.
+ * Список файлов задаётся в corpus/index.txt, чтобы результаты разных запусков были сопоставимы.
+ */
+public final class Corpus {
+
+    public static final String SITE_URL = "https://www.playback.ru";
+    private static final String CORPUS_DIRECTORY = "/corpus/";
+
+
+    private Corpus() {}
+
+
+    /**
+     * Метод читает все страницы корпуса в порядке corpus/index.txt.
+     * @return List HTML-страниц
+     */
+    public static List<String> loadPages() {
+        List<String> pages = new ArrayList<>();
+
+        for (String name : read("index.txt").split("\\R")) {
+            if (!name.isBlank()) {
+                pages.add(read(name.trim()));
+            }
+        }
+
+        return pages;
+    }
+
+
+    private static String read(String name) {
+        try (InputStream stream = Corpus.class.getResourceAsStream(CORPUS_DIRECTORY + name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Файл корпуса не найден: " + name);
+            }
+
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
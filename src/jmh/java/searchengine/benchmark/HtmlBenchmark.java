@@ -0,0 +1,56 @@
+package searchengine.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.services.utils.notbean.HTMLManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор HTML при обходе сайта: извлечение текста, заголовка и ссылок страницы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlBenchmark {
+
+    private List<String> pages;
+    private List<Document> documents;
+
+
+    @Setup
+    public void setup() {
+        pages = Corpus.loadPages();
+        documents = pages.stream().map(Jsoup::parse).toList();
+    }
+
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        pages.forEach(page -> blackhole.consume(Jsoup.parse(page)));
+    }
+
+
+    @Benchmark
+    public void getTextFromHTML(Blackhole blackhole) {
+        pages.forEach(page -> blackhole.consume(HTMLManager.getTextFromHTML(page)));
+    }
+
+
+    @Benchmark
+    public void getTitleFromContent(Blackhole blackhole) {
+        pages.forEach(page -> blackhole.consume(HTMLManager.getTitleFromContent(page)));
+    }
+
+
+    @Benchmark
+    public void getLinkHrefs(Blackhole blackhole) {
+        documents.forEach(doc -> blackhole.consume(HTMLManager.getLinkHrefs(doc)));
+    }
+}
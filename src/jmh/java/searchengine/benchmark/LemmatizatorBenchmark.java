@@ -0,0 +1,49 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.services.utils.bean.Lemmatizator;
+import searchengine.services.utils.notbean.HTMLManager;
+import searchengine.services.utils.notbean.SimHash;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сбор лемм текста страницы и вычисление SimHash по ним. Lemmatizator создаётся без зависимостей:
+ * collectLemmas не обращается к базе данных.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LemmatizatorBenchmark {
+
+    private Lemmatizator lemmatizator;
+    private List<String> texts;
+    private List<Map<String, Integer>> lemmas;
+
+
+    @Setup
+    public void setup() {
+        lemmatizator = new Lemmatizator(null, null, null, null, null);
+        texts = Corpus.loadPages().stream().map(HTMLManager::getTextFromHTML).toList();
+        lemmas = texts.stream().<Map<String, Integer>>map(lemmatizator::collectLemmas).toList();
+    }
+
+
+    @Benchmark
+    public void collectLemmas(Blackhole blackhole) {
+        texts.forEach(text -> blackhole.consume(lemmatizator.collectLemmas(text)));
+    }
+
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void simHash(Blackhole blackhole) {
+        lemmas.forEach(pageLemmas -> blackhole.consume(SimHash.compute(pageLemmas)));
+    }
+}
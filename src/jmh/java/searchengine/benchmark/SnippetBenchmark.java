@@ -0,0 +1,45 @@
+package searchengine.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.services.utils.notbean.HTMLManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение сниппетов поисковой выдачи. Разбор HTML входит в измерение, как и при поиске,
+ * где контент страниц читается из базы данных в виде строки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnippetBenchmark {
+
+    @Param({"страница", "смартфон камера", "новый закон данные"})
+    public String query;
+
+    private List<String> pages;
+    private List<String> lemmas;
+
+
+    @Setup
+    public void setup() {
+        pages = Corpus.loadPages();
+        lemmas = List.of(query.split(" "));
+    }
+
+
+    @Benchmark
+    public void getSnippet(Blackhole blackhole) {
+        for (String page : pages) {
+            Document doc = Jsoup.parse(page);
+            blackhole.consume(HTMLManager.getSnippet(doc, lemmas));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package searchengine.benchmark;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.config.SiteProps;
+import searchengine.services.utils.bean.UrlCanonicalizer;
+import searchengine.services.utils.notbean.HTMLManager;
+import searchengine.services.utils.notbean.URLParser;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка ссылок, найденных на страницах корпуса: приведение к каноническому виду и разбор URL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlBenchmark {
+
+    private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+    private SiteProps site;
+    private URI pageUri;
+    private List<String> hrefs;
+    private List<URL> urls;
+
+
+    @Setup
+    public void setup() {
+        site = new SiteProps();
+        site.setUrl(Corpus.SITE_URL);
+        site.setName("PlayBack.Ru");
+        pageUri = URI.create(Corpus.SITE_URL + "/blog/search-index");
+        hrefs = Corpus.loadPages().stream()
+                .flatMap(page -> HTMLManager.getLinkHrefs(Jsoup.parse(page)).stream())
+                .toList();
+        urls = hrefs.stream()
+                .map(href -> urlCanonicalizer.canonicalize(site, pageUri, href))
+                .flatMap(Optional::stream)
+                .map(path -> URLParser.concatBaseUrlWithPath(Corpus.SITE_URL, path))
+                .toList();
+    }
+
+
+    @Benchmark
+    public void canonicalize(Blackhole blackhole) {
+        hrefs.forEach(href -> blackhole.consume(urlCanonicalizer.canonicalize(site, pageUri, href)));
+    }
+
+
+    @Benchmark
+    public void getPathFromUrl(Blackhole blackhole) {
+        urls.forEach(url -> blackhole.consume(URLParser.getPathFromUrl(url)));
+    }
+
+
+    @Benchmark
+    public void getBaseUrl(Blackhole blackhole) {
+        urls.forEach(url -> blackhole.consume(URLParser.getBaseUrl(url)));
+    }
+}
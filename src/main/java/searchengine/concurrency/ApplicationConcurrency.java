@@ -2,6 +2,7 @@ package searchengine.concurrency;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import searchengine.config.PoolProps;
 
 import java.util.concurrent.*;
 
@@ -10,11 +11,36 @@ public abstract class ApplicationConcurrency {
     protected static final Logger LOGGER = LoggerFactory.getLogger(ApplicationConcurrency.class);
     private static final int AVAILABLE_PROCESSORS = Runtime.getRuntime().availableProcessors();
     protected ForkJoinPool forkJoinPool;
-    private static final int FORK_JOIN_PARALLELISM = getCoresCount();
 
 
-    protected ForkJoinPool getNewForkJoinPool() {
-        return new ForkJoinPool(FORK_JOIN_PARALLELISM);
+    /**
+     * Метод создаёт ForkJoinPool с переданным параллелизмом. Если параллелизм не больше 0,
+     * используется половина доступных ядер.
+     * @param parallelism Параллелизм пула
+     * @return ForkJoinPool
+     */
+    protected ForkJoinPool getNewForkJoinPool(int parallelism) {
+        return new ForkJoinPool((parallelism > 0) ? parallelism : getCoresCount());
+    }
+
+
+    /**
+     * Метод создаёт пул потоков фиксированного размера с ограниченной очередью задач по переданным
+     * настройкам. Поведение при переполнении очереди определяется политикой из настроек. Потоки пула
+     * являются демонами и именуются по переданному префиксу.
+     * @param name Префикс имени потоков пула
+     * @param props Настройки пула
+     * @return BoundedThreadPool
+     */
+    protected BoundedThreadPool getNewBoundedThreadPool(String name, PoolProps props) {
+        int poolSize = (props.getThreads() > 0) ? props.getThreads() : getCoresCount();
+        RejectionPolicy rejectionPolicy = (props.getRejectionPolicy() != null)
+                ? props.getRejectionPolicy()
+                : RejectionPolicy.ABORT;
+
+        LOGGER.info("Создан пул \"{}\": потоков {}, очередь {}, политика {}",
+                name, poolSize, props.getQueueCapacity(), rejectionPolicy);
+        return new BoundedThreadPool(name, poolSize, props.getQueueCapacity(), rejectionPolicy.newHandler());
     }
 
 
@@ -0,0 +1,84 @@
+package searchengine.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import searchengine.dto.response.implementation.statistics.PoolStatistics;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул потоков фиксированного размера с ограниченной очередью, который считает задачи, не
+ * поместившиеся в очередь. Для политики CALLER_RUNS такие задачи выполняются в вызывающем потоке,
+ * но всё равно учитываются как признак насыщения пула.
+ */
+public class BoundedThreadPool extends ThreadPoolExecutor {
+
+    private final String name;
+    private final int queueCapacity;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    // CONSTRUCTORS //
+
+    public BoundedThreadPool(String name, int poolSize, int queueCapacity, RejectedExecutionHandler rejectionHandler) {
+        super(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                newDaemonThreadFactory(name));
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        setRejectedExecutionHandler((task, executor) -> {
+            rejectedCount.increment();
+            rejectionHandler.rejectedExecution(task, executor);
+        });
+    }
+
+    // METHODS //
+
+    public String getName() {
+        return name;
+    }
+
+
+    public PoolStatistics getStatistics() {
+        return new PoolStatistics(name, getPoolSize(), getActiveCount(), getQueue().size(), queueCapacity,
+                getCompletedTaskCount(), rejectedCount.sum());
+    }
+
+
+    /**
+     * Метод регистрирует метрики пула: глубину очереди, количество занятых потоков и количество
+     * задач, не поместившихся в очередь. Метрики различаются тегом pool с именем пула.
+     * @param registry Реестр метрик
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pool.queue.size", this, pool -> pool.getQueue().size())
+                .description("Количество задач в очереди пула")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("pool.queue.capacity", this, pool -> pool.queueCapacity)
+                .description("Ёмкость очереди пула")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("pool.active", this, ThreadPoolExecutor::getActiveCount)
+                .description("Количество потоков пула, выполняющих задачи")
+                .tag("pool", name)
+                .register(registry);
+        FunctionCounter.builder("pool.rejected", rejectedCount, LongAdder::sum)
+                .description("Количество задач, не поместившихся в очередь пула")
+                .tag("pool", name)
+                .register(registry);
+    }
+
+    // UTILS METHODS //
+
+    private static ThreadFactory newDaemonThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
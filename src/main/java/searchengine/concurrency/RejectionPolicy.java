@@ -0,0 +1,21 @@
+package searchengine.concurrency;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Политика обработки задач при переполнении очереди пула. ABORT отклоняет задачу с
+ * RejectedExecutionException, CALLER_RUNS выполняет её в вызывающем потоке и тем самым
+ * замедляет постановку новых задач.
+ */
+public enum RejectionPolicy {
+    ABORT,
+    CALLER_RUNS;
+
+    public RejectedExecutionHandler newHandler() {
+        return switch (this) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        };
+    }
+}
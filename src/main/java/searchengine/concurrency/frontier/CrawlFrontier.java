@@ -0,0 +1,268 @@
+package searchengine.concurrency.frontier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.config.PriorityRule;
+import searchengine.config.SiteProps;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Очередь обхода сайта с приоритетами. Первой выдаётся страница с наибольшим приоритетом: он
+ * уменьшается с глубиной страницы, растёт с количеством найденных на неё ссылок и изменяется
+ * правилами сайта {@link PriorityRule}; при равном приоритете страницы выдаются в порядке
+ * обнаружения. Когда исчерпан бюджет сайта по страницам или времени, очередь перестаёт выдавать
+ * страницы, поэтому к этому моменту уже обойдены наиболее ценные из них.
+ * <p>
+ * Повторно найденная ссылка на ещё не обойдённую страницу ставится в очередь заново с новым
+ * приоритетом, а прежняя запись очереди пропускается при выдаче.
+ */
+public class CrawlFrontier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrawlFrontier.class);
+    private static final double DEPTH_WEIGHT = 1.0;
+    private static final double IN_LINK_WEIGHT = 0.5;
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingLong(Entry::sequence);
+    private final String siteUrl;
+    private final int maxPages;
+    private final int maxDepth;
+    private final long deadlineNanos;
+    private final LongSupplier nanoClock;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private long sequence;
+    private int taken;
+    private int waiting;
+    private int workers;
+    private long dropped;
+    private boolean exhausted;
+
+    // CONSTRUCTORS //
+
+    public CrawlFrontier(SiteProps siteProps) {
+        this(siteProps, System::nanoTime);
+    }
+
+
+    /**
+     * Конструктор с источником времени, по которому проверяется бюджет обхода по времени.
+     * @param siteProps Сайт из конфигурационного файла
+     * @param nanoClock Источник времени в наносекундах
+     */
+    CrawlFrontier(SiteProps siteProps, LongSupplier nanoClock) {
+        this.siteUrl = siteProps.getUrl();
+        this.maxPages = siteProps.getMaxPages();
+        this.maxDepth = siteProps.getMaxDepth();
+        this.nanoClock = nanoClock;
+        this.deadlineNanos = (siteProps.getTimeBudgetSeconds() > 0)
+                ? nanoClock.getAsLong() + TimeUnit.SECONDS.toNanos(siteProps.getTimeBudgetSeconds())
+                : 0;
+
+        for (PriorityRule rule : siteProps.getPriorityRules()) {
+            try {
+                rules.add(new CompiledRule(Pattern.compile(rule.getPattern()), rule.getWeight(), rule.isSkip()));
+            } catch (PatternSyntaxException | NullPointerException e) {
+                LOGGER.warn("Правило приоритета {} сайта {} пропущено: некорректное регулярное выражение",
+                        rule.getPattern(), siteUrl);
+            }
+        }
+    }
+
+    // METHODS //
+
+    /**
+     * Метод ставит страницу в очередь. Страницы глубже maxDepth и страницы, попавшие под правило
+     * с skip = true, в очередь не ставятся; главная страница ставится всегда. Для уже найденной,
+     * но ещё не обойдённой страницы учитывается новая ссылка на неё.
+     * @param path Канонический путь страницы
+     * @param depth Глубина страницы от главной
+     * @return true, если страница найдена впервые и поставлена в очередь
+     */
+    public synchronized boolean offer(String path, int depth) {
+        Candidate candidate = candidates.get(path);
+
+        if (candidate != null) {
+            if (!candidate.taken && !exhausted) {
+                candidate.inLinks++;
+                candidate.depth = Math.min(candidate.depth, depth);
+                push(path, candidate);
+            }
+
+            return false;
+        }
+
+        if (exhausted || (depth > 0 && maxDepth > 0 && depth > maxDepth)) {
+            return false;
+        }
+
+        double ruleWeight = 0;
+
+        for (CompiledRule rule : rules) {
+            if (rule.pattern().matcher(path).find()) {
+                if (rule.skip() && depth > 0) {
+                    return false;
+                }
+
+                ruleWeight += rule.weight();
+            }
+        }
+
+        candidate = new Candidate(depth, ruleWeight);
+        candidates.put(path, candidate);
+        waiting++;
+        push(path, candidate);
+        return true;
+    }
+
+
+    /**
+     * Метод выдаёт страницу с наибольшим приоритетом и отмечает её обойдённой.
+     * @return Optional страницы, пустой, если очередь пуста или бюджет обхода исчерпан
+     */
+    public synchronized Optional<Entry> poll() {
+        if (isExhausted()) {
+            return Optional.empty();
+        }
+
+        Entry entry;
+
+        while ((entry = queue.poll()) != null) {
+            Candidate candidate = candidates.get(entry.path());
+
+            if (candidate.taken || candidate.sequence != entry.sequence()) {
+                continue;
+            }
+
+            candidate.taken = true;
+            taken++;
+            waiting--;
+            return Optional.of(entry);
+        }
+
+        return Optional.empty();
+    }
+
+
+    /**
+     * Метод регистрирует новый поток обхода, если в очереди есть страницы и потоков меньше
+     * переданного предела.
+     * @param maxWorkers Максимальное количество потоков обхода сайта
+     * @return true, если поток зарегистрирован и его нужно запустить
+     */
+    public synchronized boolean tryStartWorker(int maxWorkers) {
+        if (workers >= maxWorkers || waiting == 0 || exhausted) {
+            return false;
+        }
+
+        workers++;
+        return true;
+    }
+
+
+    public synchronized void startWorker() {
+        workers++;
+    }
+
+
+    public synchronized void finishWorker() {
+        workers--;
+    }
+
+
+    /**
+     * Метод возвращает количество страниц, снятых с очереди при исчерпании бюджета, и обнуляет его,
+     * поэтому каждая снятая страница возвращается один раз.
+     * @return long
+     */
+    public synchronized long takeDropped() {
+        long count = dropped;
+        dropped = 0;
+        return count;
+    }
+
+
+    /**
+     * Метод возвращает количество найденных страниц сайта, включая стоящие в очереди.
+     * @return int
+     */
+    public synchronized int getSeenCount() {
+        return candidates.size();
+    }
+
+    // UTILS METHODS //
+
+    private void push(String path, Candidate candidate) {
+        candidate.sequence = sequence++;
+        double score = candidate.ruleWeight + IN_LINK_WEIGHT * Math.log1p(candidate.inLinks)
+                - DEPTH_WEIGHT * candidate.depth;
+        queue.add(new Entry(path, candidate.depth, score, candidate.sequence));
+    }
+
+
+    /**
+     * Метод проверяет бюджет обхода. При его исчерпании очередь очищается, а количество оставшихся
+     * в ней страниц запоминается для takeDropped.
+     */
+    private boolean isExhausted() {
+        if (exhausted) {
+            return true;
+        }
+
+        String budget = null;
+
+        if (maxPages > 0 && taken >= maxPages) {
+            budget = maxPages + " страниц";
+        } else if (deadlineNanos != 0 && nanoClock.getAsLong() - deadlineNanos >= 0) {
+            budget = "времени";
+        }
+
+        if (budget == null) {
+            return false;
+        }
+
+        LOGGER.info("Обход сайта {} остановлен: исчерпан бюджет {}, не обойдено страниц в очереди: {}",
+                siteUrl, budget, waiting);
+        exhausted = true;
+        dropped += waiting;
+        waiting = 0;
+        queue.clear();
+        return true;
+    }
+
+
+    /**
+     * Страница очереди обхода.
+     * @param path Канонический путь страницы
+     * @param depth Глубина страницы от главной
+     * @param score Приоритет страницы
+     * @param sequence Порядковый номер постановки в очередь
+     */
+    public record Entry(String path, int depth, double score, long sequence) {
+    }
+
+
+    private record CompiledRule(Pattern pattern, double weight, boolean skip) {
+    }
+
+
+    private static final class Candidate {
+
+        private int depth;
+        private int inLinks;
+        private final double ruleWeight;
+        private long sequence;
+        private boolean taken;
+
+
+        Candidate(int depth, double ruleWeight) {
+            this.depth = depth;
+            this.ruleWeight = ruleWeight;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package searchengine.concurrency.hosts;
+
+import searchengine.config.CrawlerSettings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель одновременных запросов к одному хосту. Лимит подбирается по схеме AIMD: после каждого
+ * быстрого ответа он растёт примерно на единицу за "раунд" запросов, а медленный ответ, 429/503 или
+ * ошибка уменьшают его в несколько раз. Заголовок Retry-After откладывает все запросы к хосту.
+ * После failureThreshold ошибок подряд размыкатель цепи переводит хост в состояние OPEN и запросы
+ * ожидают окончания паузы; затем пропускается один пробный запрос (HALF_OPEN), и при новой ошибке
+ * пауза удваивается.
+ */
+public class HostLimiter {
+
+    private enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final double SLOW_DECREASE_FACTOR = 0.75;
+    private static final double FAILURE_DECREASE_FACTOR = 0.5;
+
+    private final String host;
+    private final CrawlerSettings settings;
+    private double limit;
+    private int inFlight;
+    private int consecutiveFailures;
+    private boolean postponed;
+    private long notBeforeNanos;
+    private long openMillis;
+    private CircuitState state = CircuitState.CLOSED;
+
+    // CONSTRUCTORS //
+
+    public HostLimiter(String host, CrawlerSettings settings) {
+        this.host = host;
+        this.settings = settings;
+        this.limit = settings.getInitialHostConcurrency();
+        this.openMillis = settings.getCircuitOpenMillis();
+    }
+
+    // METHODS //
+
+    /**
+     * Метод ожидает, пока к хосту можно будет отправить ещё один запрос: не истекла пауза Retry-After
+     * или размыкателя цепи, либо уже выполняется максимальное количество запросов.
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (true) {
+            if (postponed) {
+                long waitNanos = notBeforeNanos - System.nanoTime();
+
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                    continue;
+                }
+
+                postponed = false;
+            }
+
+            if (state == CircuitState.OPEN) {
+                state = CircuitState.HALF_OPEN;
+            }
+
+            boolean probeBusy = state == CircuitState.HALF_OPEN && inFlight > 0;
+
+            if (!probeBusy && inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+
+            wait();
+        }
+    }
+
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+
+    /**
+     * Метод учитывает успешный ответ хоста. Быстрый ответ увеличивает лимит, медленный уменьшает.
+     * @param latencyMillis Время ответа в миллисекундах
+     */
+    public synchronized void onSuccess(long latencyMillis) {
+        consecutiveFailures = 0;
+
+        if (state == CircuitState.HALF_OPEN) {
+            state = CircuitState.CLOSED;
+            openMillis = settings.getCircuitOpenMillis();
+        }
+
+        if (latencyMillis > settings.getTargetLatencyMillis()) {
+            decrease(SLOW_DECREASE_FACTOR);
+        } else {
+            limit = Math.min(settings.getMaxHostConcurrency(), limit + 1.0 / limit);
+        }
+
+        notifyAll();
+    }
+
+
+    /**
+     * Метод учитывает ответ 429 или 503: ответ считается ошибкой, а все запросы к хосту
+     * откладываются на время из Retry-After.
+     * @param retryAfterMillis Время из заголовка Retry-After в миллисекундах
+     */
+    public synchronized void onOverload(long retryAfterMillis) {
+        postpone(retryAfterMillis);
+        onFailure();
+    }
+
+
+    /**
+     * Метод учитывает сетевую ошибку или ответ 5xx. После failureThreshold ошибок подряд, а также
+     * при ошибке пробного запроса, хост исключается на время паузы размыкателя.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        decrease(FAILURE_DECREASE_FACTOR);
+
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= settings.getFailureThreshold()) {
+            state = CircuitState.OPEN;
+            postpone(openMillis);
+            openMillis = Math.min(openMillis * 2, settings.getCircuitMaxOpenMillis());
+        }
+
+        notifyAll();
+    }
+
+
+    public synchronized boolean isOpen() {
+        return state == CircuitState.OPEN;
+    }
+
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+
+    public String getHost() {
+        return host;
+    }
+
+    // UTILS METHODS //
+
+    private void decrease(double factor) {
+        limit = Math.max(1, limit * factor);
+    }
+
+
+    /**
+     * Значения System.nanoTime() сравниваются только через разность, так как само значение может быть
+     * любым, в том числе отрицательным, и переполняться. Пока пауза не задана, notBeforeNanos не используется.
+     */
+    private void postpone(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        if (!postponed || deadline - notBeforeNanos > 0) {
+            notBeforeNanos = deadline;
+            postponed = true;
+        }
+    }
+}
@@ -1,43 +1,47 @@
 package searchengine.concurrency.implementation;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import searchengine.concurrency.ApplicationConcurrency;
+import searchengine.config.ConcurrencySettings;
+import searchengine.dto.response.implementation.statistics.PoolStatistics;
 
-import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 @Component
 public class ForkJoinPoolManager extends ApplicationConcurrency {
 
-    public ForkJoinPoolManager() {
-        forkJoinPool = super.getNewForkJoinPool();
+    @Autowired
+    public ForkJoinPoolManager(ConcurrencySettings settings, MeterRegistry registry) {
+        forkJoinPool = super.getNewForkJoinPool(settings.getCrawlerParallelism());
+        Gauge.builder("pool.queue.size", forkJoinPool,
+                        pool -> pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount())
+                .description("Количество задач в очереди пула")
+                .tag("pool", "crawler")
+                .register(registry);
+        Gauge.builder("pool.active", forkJoinPool, ForkJoinPool::getActiveThreadCount)
+                .description("Количество потоков пула, выполняющих задачи")
+                .tag("pool", "crawler")
+                .register(registry);
     }
 
 
-    public void execute(Runnable task) {
-        forkJoinPool.execute(task);
+    /**
+     * Метод выполняет задачу обходчика в ForkJoinPool и ожидает её результата. В отличие от
+     * ForkJoinTask.invoke, вызванного вне пула, задача и все её подзадачи выполняются потоками пула.
+     * @param task Задача обходчика
+     * @return Результат задачи
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return forkJoinPool.invoke(task);
     }
 
 
-    public void executeAwait(List<Runnable> tasks) {
-        CountDownLatch latch = new CountDownLatch(tasks.size());
-
-        for (Runnable task : tasks) {
-            execute(() -> {
-                task.run();
-                latch.countDown();
-            });
-        }
-
-        tryToAwaitLatch(latch);
-    }
-
-
-    private void tryToAwaitLatch(CountDownLatch latch) {
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            LOGGER.error("Ошибка при попытке дождаться завершения потока: {}", e.getMessage(), e);
-        }
+    public PoolStatistics getStatistics() {
+        return new PoolStatistics("crawler", forkJoinPool.getParallelism(), forkJoinPool.getActiveThreadCount(),
+                forkJoinPool.getQueuedSubmissionCount() + forkJoinPool.getQueuedTaskCount(), null, null, null);
     }
 }
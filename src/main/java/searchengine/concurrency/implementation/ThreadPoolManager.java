@@ -0,0 +1,112 @@
+package searchengine.concurrency.implementation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.ApplicationConcurrency;
+import searchengine.concurrency.BoundedThreadPool;
+import searchengine.config.ConcurrencySettings;
+import searchengine.dto.response.implementation.statistics.PoolStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Менеджер изолированных пулов потоков: координаторы индексации сайтов, сетевая загрузка страниц,
+ * разбор и лемматизация, запись в базу данных и поиск. Размеры пулов и их очередей задаются в
+ * секции application-concurrency, поэтому насыщение одного пула не отнимает потоки у остальных.
+ * Загрузка каждого пула публикуется в метриках с тегом pool.
+ */
+@Component
+public class ThreadPoolManager extends ApplicationConcurrency {
+
+    private final BoundedThreadPool sitesPool;
+    private final BoundedThreadPool fetchPool;
+    private final BoundedThreadPool parsePool;
+    private final BoundedThreadPool writePool;
+    private final BoundedThreadPool searchPool;
+
+    @Autowired
+    public ThreadPoolManager(ConcurrencySettings settings, MeterRegistry registry) {
+        sitesPool = super.getNewBoundedThreadPool("sites", settings.getSites());
+        fetchPool = super.getNewBoundedThreadPool("fetch", settings.getFetch());
+        parsePool = super.getNewBoundedThreadPool("parse", settings.getParse());
+        writePool = super.getNewBoundedThreadPool("write", settings.getWrite());
+        searchPool = super.getNewBoundedThreadPool("search", settings.getSearch());
+        List.of(sitesPool, fetchPool, parsePool, writePool, searchPool).forEach(pool -> pool.bindTo(registry));
+    }
+
+
+    /**
+     * Метод выполняет переданные задачи в пуле поиска и ожидает их завершения не дольше переданного
+     * времени. Возвращаются результаты только тех задач, которые успели завершиться без ошибок;
+     * задачи, не уложившиеся во время или отклонённые переполненным пулом, пропускаются.
+     * @param tasks Список задач
+     * @param timeoutMillis Максимальное время ожидания всех задач в миллисекундах
+     * @return List результатов завершившихся задач
+     */
+    public <T> List<T> invokeAllSearch(List<Callable<T>> tasks, long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<Future<T>> futures = new ArrayList<>();
+        List<T> results = new ArrayList<>();
+
+        for (Callable<T> task : tasks) {
+            try {
+                futures.add(searchPool.submit(task));
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Пул поиска переполнен, задача отклонена");
+            }
+        }
+
+        for (Future<T> future : futures) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                results.add(future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                LOGGER.warn("Задача поиска не уложилась в {} мс и была отменена", timeoutMillis);
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                LOGGER.error("Ошибка при выполнении задачи поиска: {}", e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            }
+        }
+
+        return results;
+    }
+
+
+    /**
+     * Метод передаёт задачу индексации сайта в пул координаторов. Задача координатора только
+     * ожидает завершения обхода сайта в пуле обходчика и не занимает его потоки.
+     * @param task Задача индексации сайта
+     * @throws RejectedExecutionException если очередь пула координаторов переполнена
+     */
+    public void executeSiteJob(Runnable task) {
+        sitesPool.execute(task);
+    }
+
+
+    public Executor getFetchExecutor() {
+        return fetchPool;
+    }
+
+
+    public Executor getParseExecutor() {
+        return parsePool;
+    }
+
+
+    public Executor getWriteExecutor() {
+        return writePool;
+    }
+
+
+    public List<PoolStatistics> getStatistics() {
+        return List.of(sitesPool.getStatistics(), fetchPool.getStatistics(), parsePool.getStatistics(),
+                writePool.getStatistics(), searchPool.getStatistics());
+    }
+}
@@ -0,0 +1,75 @@
+package searchengine.concurrency.jobs;
+
+import lombok.Getter;
+import searchengine.config.SiteProps;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Задача полной индексации, состоящая из независимых задач индексации отдельных сайтов.
+ * Состояние задачи вычисляется по состояниям задач сайтов.
+ */
+@Getter
+public class IndexingJob {
+
+    private final String id;
+    private final List<SiteIndexingJob> siteJobs;
+
+    // CONSTRUCTORS //
+
+    public IndexingJob(List<SiteProps> sites) {
+        this(UUID.randomUUID().toString(), sites);
+    }
+
+
+    /**
+     * Конструктор задачи с заданным id. Используется, когда узел кластера присоединяется к задаче,
+     * запущенной на другом узле: у частей одной задачи на всех узлах общий id.
+     */
+    public IndexingJob(String id, List<SiteProps> sites) {
+        this.id = id;
+        this.siteJobs = sites.stream().map(SiteIndexingJob::new).toList();
+    }
+
+    // METHODS //
+
+    public JobState getState() {
+        List<JobState> states = siteJobs.stream().map(SiteIndexingJob::getState).toList();
+
+        if (states.stream().anyMatch(state -> state == JobState.RUNNING || state == JobState.QUEUED)) {
+            return JobState.RUNNING;
+        }
+        if (states.contains(JobState.PAUSED)) {
+            return JobState.PAUSED;
+        }
+        if (states.contains(JobState.FAILED)) {
+            return JobState.FAILED;
+        }
+        if (!states.isEmpty() && states.stream().allMatch(state -> state == JobState.CANCELLED)) {
+            return JobState.CANCELLED;
+        }
+
+        return JobState.COMPLETED;
+    }
+
+
+    public boolean isFinished() {
+        return getState().isFinished();
+    }
+
+
+    /**
+     * Метод возвращает задачи сайтов, к которым относится переданный url. Если url равен null,
+     * возвращаются задачи всех сайтов.
+     * @param url Базовый url сайта, либо null
+     * @return List<SiteIndexingJob>
+     */
+    public List<SiteIndexingJob> findSiteJobs(String url) {
+        if (url == null) {
+            return siteJobs;
+        }
+
+        return siteJobs.stream().filter(job -> job.getSiteProps().getUrl().equals(url)).toList();
+    }
+}
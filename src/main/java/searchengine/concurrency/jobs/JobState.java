@@ -0,0 +1,10 @@
+package searchengine.concurrency.jobs;
+
+public enum JobState {
+    QUEUED, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED;
+
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
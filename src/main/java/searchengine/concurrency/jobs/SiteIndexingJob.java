@@ -0,0 +1,223 @@
+package searchengine.concurrency.jobs;
+
+import lombok.Getter;
+import searchengine.config.SiteProps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задача индексации одного сайта. Хранит состояние задачи и счётчики прогресса обхода. Переходы
+ * состояний: QUEUED -> RUNNING <-> PAUSED -> COMPLETED | FAILED | CANCELLED; отменить можно
+ * любую незавершённую задачу. Задачи обхода страниц сайта проверяют состояние перед загрузкой
+ * каждой страницы и ожидают снятия паузы.
+ */
+public class SiteIndexingJob {
+
+    @Getter
+    private final SiteProps siteProps;
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private JobState state = JobState.QUEUED;
+    private String error;
+    private long startedAtNanos;
+    private long finishedAtNanos;
+
+    // CONSTRUCTORS //
+
+    public SiteIndexingJob(SiteProps siteProps) {
+        this.siteProps = siteProps;
+    }
+
+    // STATE METHODS //
+
+    /**
+     * Метод переводит задачу в состояние RUNNING. Возвращает false, если задача была отменена
+     * до запуска.
+     * @return boolean
+     */
+    public synchronized boolean start() {
+        if (state != JobState.QUEUED && state != JobState.PAUSED) {
+            return false;
+        }
+
+        startedAtNanos = System.nanoTime();
+
+        if (state == JobState.QUEUED) {
+            state = JobState.RUNNING;
+        }
+
+        return true;
+    }
+
+
+    public synchronized boolean pause() {
+        if (state != JobState.RUNNING && state != JobState.QUEUED) {
+            return false;
+        }
+
+        state = JobState.PAUSED;
+        return true;
+    }
+
+
+    public synchronized boolean resume() {
+        if (state != JobState.PAUSED) {
+            return false;
+        }
+
+        state = (startedAtNanos == 0) ? JobState.QUEUED : JobState.RUNNING;
+        notifyAll();
+        return true;
+    }
+
+
+    public synchronized boolean cancel() {
+        return cancel(null);
+    }
+
+
+    /**
+     * Метод отменяет задачу с указанием причины, если отмена вызвана не пользователем.
+     * @param reason Причина отмены, либо null
+     * @return false, если задача уже завершена
+     */
+    public synchronized boolean cancel(String reason) {
+        if (state.isFinished()) {
+            return false;
+        }
+
+        state = JobState.CANCELLED;
+        error = reason;
+        finishedAtNanos = System.nanoTime();
+        notifyAll();
+        return true;
+    }
+
+
+    /**
+     * Метод завершает задачу с переданным состоянием. Отменённая задача остаётся отменённой.
+     * @param finalState Итоговое состояние
+     * @param errorMessage Сообщение об ошибке, либо null
+     */
+    public synchronized void finish(JobState finalState, String errorMessage) {
+        if (state == JobState.CANCELLED) {
+            return;
+        }
+
+        state = finalState;
+        error = errorMessage;
+        finishedAtNanos = System.nanoTime();
+    }
+
+
+    /**
+     * Метод блокирует вызывающий поток, пока задача стоит на паузе. Возвращает false, если задача
+     * отменена и обход нужно прекратить.
+     * @return boolean
+     */
+    public synchronized boolean awaitIfPaused() {
+        while (state == JobState.PAUSED) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return state != JobState.CANCELLED;
+    }
+
+
+    public synchronized boolean isCancelled() {
+        return state == JobState.CANCELLED;
+    }
+
+
+    public synchronized JobState getState() {
+        return state;
+    }
+
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    // PROGRESS METHODS //
+
+    public void onPageQueued() {
+        queued.incrementAndGet();
+    }
+
+
+    public void onPageStarted() {
+        queued.decrementAndGet();
+    }
+
+
+    /**
+     * Метод убирает из очереди страницы, которые не будут обойдены, потому что исчерпан бюджет обхода.
+     * @param count Количество страниц
+     */
+    public void onPagesDropped(long count) {
+        queued.addAndGet(-count);
+    }
+
+
+    public void onPageFetched(boolean isFailed) {
+        fetched.incrementAndGet();
+
+        if (isFailed) {
+            failed.incrementAndGet();
+        }
+    }
+
+
+    public long getFetched() {
+        return fetched.get();
+    }
+
+
+    public long getQueued() {
+        return Math.max(queued.get(), 0);
+    }
+
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+
+    /**
+     * Метод возвращает среднюю скорость обхода в страницах в секунду с момента запуска задачи.
+     * @return double
+     */
+    public synchronized double getPagesPerSecond() {
+        if (startedAtNanos == 0) {
+            return 0;
+        }
+
+        long endNanos = state.isFinished() ? finishedAtNanos : System.nanoTime();
+        double seconds = (double) (endNanos - startedAtNanos) / TimeUnit.SECONDS.toNanos(1);
+        return (seconds > 0) ? fetched.get() / seconds : 0;
+    }
+
+
+    /**
+     * Метод оценивает оставшееся время обхода уже найденных страниц в секундах. Возвращает null,
+     * если оценку дать нельзя.
+     * @return Long
+     */
+    public Long getEtaSeconds() {
+        double pagesPerSecond = getPagesPerSecond();
+
+        if (getState().isFinished() || pagesPerSecond == 0) {
+            return null;
+        }
+
+        return (long) Math.ceil(getQueued() / pagesPerSecond);
+    }
+}
@@ -1,107 +1,262 @@
 package searchengine.concurrency.tasks;
 
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import searchengine.concurrency.frontier.CrawlFrontier;
+import searchengine.concurrency.jobs.SiteIndexingJob;
 import searchengine.concurrency.utils.ThreadUtil;
+import searchengine.exception.PageFetchException;
 import searchengine.model.implementation.Page;
+import searchengine.model.implementation.PageContent;
+import searchengine.model.implementation.Site;
 import searchengine.repository.RepositoryManager;
 import searchengine.repository.implementation.PageRepository;
 import searchengine.repository.implementation.SiteRepository;
+import searchengine.services.utils.bean.IndexingMetrics;
 import searchengine.services.utils.bean.Lemmatizator;
+import searchengine.services.utils.bean.PageFetcher;
+import searchengine.services.utils.bean.SharedVisitedSet;
+import searchengine.services.utils.bean.UrlCanonicalizer;
 import searchengine.services.utils.notbean.HTMLManager;
 import searchengine.services.utils.notbean.URLParser;
 
+import java.net.URI;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 
+/**
+ * Задача обхода сайта. Страницы берутся из общей для обхода сайта очереди с приоритетами
+ * {@link CrawlFrontier}: каждая задача в цикле забирает страницу с наибольшим приоритетом,
+ * обрабатывает её и ставит в очередь найденные ссылки. Пока в очереди есть страницы, задача
+ * запускает дополнительные задачи, но не больше, чем потоков в пуле обходчика. Обход завершается,
+ * когда очередь пуста и все задачи завершились, либо когда исчерпан бюджет сайта.
+ */
 public class ContentExtractorAction extends RecursiveAction {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentExtractorAction.class);
     private final URL baseUrl;
-    private final String path;
 
+    protected Site site;
     protected RepositoryManager repositoryManager;
     protected Lemmatizator lemmatizator;
+    protected PageFetcher pageFetcher;
+    protected UrlCanonicalizer urlCanonicalizer;
     protected PageRepository pageRepository;
     protected SiteRepository siteRepository;
-    protected ConcurrentHashMap<String, String> setOfUrl;
-
-    private static volatile boolean isStopped = false;
+    protected CrawlFrontier frontier;
+    protected SiteIndexingJob job;
+    protected IndexingMetrics metrics;
+    protected SharedVisitedSet visitedSet;
 
     // CONSTRUCTORS //
 
-    public ContentExtractorAction(RepositoryManager repositoryManager, String baseUrl, Lemmatizator lemmatizator) {
+    /**
+     * Конструктор корневой задачи обхода сайта.
+     * @param seedPaths Канонические пути из карты сайта, которые обходятся вместе с главной страницей,
+     *                  даже если на них нет ссылок. Они ставятся в очередь с глубиной 1.
+     * @param visitedSet Общее для узлов кластера множество взятых путей, либо null при обходе одним узлом
+     */
+    public ContentExtractorAction(RepositoryManager repositoryManager, Site site, Lemmatizator lemmatizator,
+                                  PageFetcher pageFetcher, UrlCanonicalizer urlCanonicalizer, SiteIndexingJob job,
+                                  IndexingMetrics metrics, List<String> seedPaths, SharedVisitedSet visitedSet) {
+        this.metrics = metrics;
+        this.visitedSet = visitedSet;
+        this.site = site;
+        this.job = job;
         this.repositoryManager = repositoryManager;
         this.lemmatizator = lemmatizator;
+        this.pageFetcher = pageFetcher;
+        this.urlCanonicalizer = urlCanonicalizer;
         this.pageRepository = repositoryManager.getPageRepository();
         this.siteRepository = repositoryManager.getSiteRepository();
-        this.baseUrl = URLParser.mapStringToUrl(baseUrl);
-        this.path = "/";
-        setOfUrl = new ConcurrentHashMap<>();
+        this.baseUrl = URLParser.mapStringToUrl(site.getUrl());
+        this.frontier = new CrawlFrontier(job.getSiteProps());
+        this.frontier.startWorker();
+        offer("/", 0);
+
+        for (String seedPath : seedPaths) {
+            offer(seedPath, 1);
+        }
     }
 
 
-    public ContentExtractorAction(URL baseUrl, String path) {
-        this.baseUrl = baseUrl;
-        this.path = path;
+    private ContentExtractorAction(ContentExtractorAction parent) {
+        this.baseUrl = parent.baseUrl;
+        this.site = parent.site;
+        this.repositoryManager = parent.repositoryManager;
+        this.lemmatizator = parent.lemmatizator;
+        this.pageFetcher = parent.pageFetcher;
+        this.urlCanonicalizer = parent.urlCanonicalizer;
+        this.pageRepository = parent.pageRepository;
+        this.siteRepository = parent.siteRepository;
+        this.frontier = parent.frontier;
+        this.job = parent.job;
+        this.metrics = parent.metrics;
+        this.visitedSet = parent.visitedSet;
     }
 
     // METHODS //
 
+    /**
+     * Метод возвращает количество уже найденных страниц сайта, включая стоящие в очереди.
+     * @return int
+     */
+    public int getVisitedSize() {
+        return frontier.getSeenCount();
+    }
+
+
     @Override
     public void compute() {
+        List<ContentExtractorAction> workers = new ArrayList<>();
+
+        try {
+            Optional<CrawlFrontier.Entry> entry;
+
+            while (!job.isCancelled() && (entry = frontier.poll()).isPresent()) {
+                crawl(entry.get());
+                startWorkers(workers);
+                ThreadUtil.executeDelay(200);
+            }
+
+            job.onPagesDropped(frontier.takeDropped());
+        } finally {
+            frontier.finishWorker();
 
-        if (isStopped) {
+            for (ContentExtractorAction worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    // UTILS METHODS //
+
+    private void crawl(CrawlFrontier.Entry entry) {
+        job.onPageStarted();
+
+        if (!job.awaitIfPaused()) {
             return;
         }
 
+        String path = entry.path();
         URL url = URLParser.concatBaseUrlWithPath(baseUrl.toString(), path);
-        Page pageEntity = HTMLManager.getPageEntity(url, siteRepository);
-        List<ContentExtractorAction> taskList = new ArrayList<>();
 
-        repositoryManager.executeTransaction(() -> {
-            pageRepository.save(pageEntity);
-            siteRepository.updateStatusTimeById(pageEntity.getId(), LocalDateTime.now());
-        });
+        if (visitedSet != null && !visitedSet.claim(site, path)) {
+            Page storedPage = pageRepository.findBySiteIdAndPath(site, path);
+
+            if (storedPage != null) {
+                expandStoredPage(url, storedPage, entry.depth());
+                return;
+            }
+        }
+
+        Page pageEntity;
 
-        lemmatizator.save(pageEntity);
+        try {
+            pageEntity = pageFetcher.fetch(url, site);
+        } catch (PageFetchException e) {
+            LOGGER.warn("Страница {} пропущена: {}", url, e.getMessage());
+            job.onPageFetched(true);
+            metrics.countPage(site, null);
+            return;
+        }
+
+        metrics.countPage(site, pageEntity.getCode());
+        URI pageUri = URI.create(url.toString());
+        Document doc = metrics.timeStage(IndexingMetrics.STAGE_PARSE, site, () -> Jsoup.parse(pageEntity.getContent()));
+        Optional<String> canonicalPath = HTMLManager.getCanonicalHref(doc)
+                .flatMap(href -> urlCanonicalizer.canonicalize(job.getSiteProps(), pageUri, href));
+
+        if (canonicalPath.isPresent() && !canonicalPath.get().equals(path)) {
+            job.onPageFetched(false);
+            offer(canonicalPath.get(), entry.depth());
+            metrics.timeStage(IndexingMetrics.STAGE_LINKS, site, () -> offerLinks(doc, pageUri, entry.depth() + 1));
+            return;
+        }
+
+        metrics.timeStage(IndexingMetrics.STAGE_SAVE, site, () ->
+                repositoryManager.executeTransaction(() -> {
+                    repositoryManager.savePageWithContent(pageEntity);
+                    siteRepository.updateStatusTimeById(site.getId(), LocalDateTime.now());
+                })
+        );
+
+        lemmatizator.save(pageEntity, true);
         HttpStatus pageStatus = HttpStatus.valueOf(pageEntity.getCode());
+        job.onPageFetched(pageStatus.isError());
 
         if (pageStatus.is4xxClientError()) {
             return;
         }
 
-        Set<String> paths = HTMLManager.getPagePaths(pageEntity);
+        metrics.timeStage(IndexingMetrics.STAGE_LINKS, site, () -> offerLinks(doc, pageUri, entry.depth() + 1));
+    }
 
-        for (String path : paths) {
 
-            if (path.equals(this.path) || setOfUrl.containsKey(path)) {
-                continue;
-            } else {
-                setOfUrl.put(path, path);
-            }
+    /**
+     * Метод ставит в очередь ссылки страницы, которую уже сохранил другой узел кластера до того, как
+     * потерял аренду сайта. Страница не загружается повторно: ссылки берутся из сохранённого контента,
+     * чтобы восстановить ту часть очереди обхода, которая была в памяти прежнего узла.
+     * @param url Ссылка на страницу
+     * @param storedPage Сохранённая страница
+     * @param depth Глубина страницы от главной
+     */
+    private void expandStoredPage(URL url, Page storedPage, int depth) {
+        job.onPageFetched(false);
+        PageContent content = repositoryManager.getPageContentRepository().findByPageId(storedPage);
 
-            ThreadUtil.executeDelay(200);
-            ContentExtractorAction task = new ContentExtractorAction(baseUrl, path);
-            task.repositoryManager = this.repositoryManager;
-            task.lemmatizator = this.lemmatizator;
-            task.pageRepository = this.pageRepository;
-            task.siteRepository = this.siteRepository;
-            task.setOfUrl = this.setOfUrl;
-            task.fork();
-            taskList.add(task);
+        if (content == null || HttpStatus.valueOf(storedPage.getCode()).is4xxClientError()) {
+            return;
+        }
+
+        URI pageUri = URI.create(url.toString());
+        Document doc = metrics.timeStage(IndexingMetrics.STAGE_PARSE, site, () -> Jsoup.parse(content.getContent()));
+        metrics.timeStage(IndexingMetrics.STAGE_LINKS, site, () -> offerLinks(doc, pageUri, depth + 1));
+    }
+
+
+    /**
+     * Метод приводит ссылки страницы к каноническому виду и ставит их в очередь обхода.
+     * @param doc Document JSoup
+     * @param pageUri Адрес страницы
+     * @param depth Глубина страниц, на которые ведут ссылки
+     */
+    private void offerLinks(Document doc, URI pageUri, int depth) {
+        for (String href : HTMLManager.getLinkHrefs(doc)) {
+            urlCanonicalizer.canonicalize(job.getSiteProps(), pageUri, href)
+                    .ifPresent(linkPath -> offer(linkPath, depth));
         }
+    }
+
 
-        for (ContentExtractorAction task : taskList) {
-            task.join();
+    private void offer(String path, int depth) {
+        if (frontier.offer(path, depth)) {
+            job.onPageQueued();
         }
     }
 
 
-    public static void stop() {
-        isStopped = true;
+    /**
+     * Метод запускает дополнительные задачи обхода, пока в очереди есть страницы и задач меньше,
+     * чем потоков в пуле обходчика.
+     * @param workers Список запущенных задач, которые нужно дождаться
+     */
+    private void startWorkers(List<ContentExtractorAction> workers) {
+        ForkJoinPool pool = getPool();
+        int maxWorkers = (pool != null) ? pool.getParallelism() : 1;
+
+        while (!job.isCancelled() && frontier.tryStartWorker(maxWorkers)) {
+            ContentExtractorAction worker = new ContentExtractorAction(this);
+            worker.fork();
+            workers.add(worker);
+        }
     }
 }
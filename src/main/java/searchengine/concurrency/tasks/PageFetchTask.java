@@ -0,0 +1,52 @@
+package searchengine.concurrency.tasks;
+
+import searchengine.dto.indexing.FetchedPage;
+import searchengine.model.implementation.Site;
+import searchengine.services.utils.bean.PageFetcher;
+import searchengine.services.utils.notbean.URLParser;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Задача пакетной индексации, загружающая одну страницу. Задача выполняется в пуле сетевой загрузки
+ * и не обращается к базе данных; разбор и лемматизация страницы выполняются отдельно в пуле разбора.
+ * Ошибка загрузки не пробрасывается, а сохраняется в результате.
+ */
+public class PageFetchTask implements Supplier<FetchedPage> {
+
+    private final String url;
+    private final Site site;
+    private final PageFetcher pageFetcher;
+
+    // CONSTRUCTORS //
+
+    public PageFetchTask(String url, Site site, PageFetcher pageFetcher) {
+        this.url = url;
+        this.site = site;
+        this.pageFetcher = pageFetcher;
+    }
+
+    // METHODS //
+
+    @Override
+    public FetchedPage get() {
+        FetchedPage result = new FetchedPage(url, site);
+        long start = System.nanoTime();
+
+        try {
+            result.setPage(pageFetcher.fetch(URLParser.mapStringToUrl(url), site));
+        } catch (RuntimeException e) {
+            result.setError(describe(e));
+        }
+
+        result.setFetchMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+
+    public static String describe(Throwable e) {
+        Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+}
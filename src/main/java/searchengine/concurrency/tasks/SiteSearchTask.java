@@ -0,0 +1,83 @@
+package searchengine.concurrency.tasks;
+
+import searchengine.dto.search.PageRelevance;
+import searchengine.dto.search.SearchHits;
+import searchengine.dto.search.SearchTimings;
+import searchengine.model.implementation.Lemma;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.repository.implementation.IndexRepository;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Задача поиска по одному сайту. Сайт рассматривается как отдельный шард: задача сама находит
+ * сущности лемм сайта, пересекает страницы и считает абсолютную релевантность, а возвращает
+ * только k лучших страниц и общее количество найденных. Отбор k лучших страниц и граница after
+ * выполняются в запросе, поэтому из базы данных передаются только k строк. Если задана страница
+ * after, общее количество не считается: оно не меняется в пределах поколения индекса и передаётся
+ * в курсоре.
+ */
+public class SiteSearchTask implements Callable<SearchHits> {
+
+    private final RepositoryManager repositoryManager;
+    private final Site site;
+    private final Collection<String> lemmas;
+    private final long frequencyThreshold;
+    private final int limit;
+    private final PageRelevance after;
+    private final SearchTimings timings;
+
+    // CONSTRUCTORS //
+
+    public SiteSearchTask(RepositoryManager repositoryManager, Site site, Collection<String> lemmas,
+                          long frequencyThreshold, int limit, PageRelevance after, SearchTimings timings) {
+        this.repositoryManager = repositoryManager;
+        this.site = site;
+        this.lemmas = lemmas;
+        this.frequencyThreshold = frequencyThreshold;
+        this.limit = limit;
+        this.after = after;
+        this.timings = timings;
+    }
+
+    // METHODS //
+
+    @Override
+    public SearchHits call() {
+        return repositoryManager.executeRead(this::search);
+    }
+
+    // UTILS METHODS //
+
+    private SearchHits search() {
+        List<Lemma> lemmaEntities = timings.time(SearchTimings.LEMMA_LOOKUP, () -> lemmas.stream()
+                .map(lemma -> repositoryManager.getLemmaRepository().findByLemmaAndSiteId(lemma, site))
+                .filter(Objects::nonNull)
+                .filter(lemmaEntity -> lemmaEntity.getFrequency() <= frequencyThreshold)
+                .toList());
+        timings.addLemmasUsed(lemmaEntities.size());
+
+        if (lemmaEntities.isEmpty()) {
+            return SearchHits.empty();
+        }
+
+        List<Long> lemmaIds = lemmaEntities.stream().map(Lemma::getId).toList();
+        IndexRepository indexRepository = repositoryManager.getIndexRepository();
+        List<Object[]> rows = timings.time(SearchTimings.RELEVANCE, () -> (after == null)
+                ? indexRepository.findTopPagesContainingAllLemmas(lemmaIds, lemmaIds.size(), limit)
+                : indexRepository.findTopPagesContainingAllLemmasAfter(lemmaIds, lemmaIds.size(),
+                        after.getRelevance(), after.getPageId(), limit));
+        long count = (after == null) ? indexRepository.countPagesContainingAllLemmas(lemmaIds, lemmaIds.size()) : 0;
+        timings.addCandidates(rows.size());
+
+        List<PageRelevance> pages = new ArrayList<>(rows.size());
+
+        for (Object[] row : rows) {
+            pages.add(new PageRelevance(((Number) row[0]).longValue(), ((Number) row[1]).floatValue()));
+        }
+
+        return new SearchHits(pages, count);
+    }
+}
@@ -0,0 +1,79 @@
+package searchengine.concurrency.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Совмещение одинаковых одновременных вычислений. Первый вызов с ключом выполняет вычисление,
+ * а вызовы с тем же ключом, пришедшие до его завершения, ожидают и получают тот же результат
+ * или то же исключение. Ожидание присоединившихся вызовов ограничено временем, чтобы зависшее
+ * вычисление не удерживало их потоки. Результат не кэшируется: после завершения вычисления следующий
+ * вызов выполняет его заново.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+
+    /**
+     * Метод выполняет вычисление либо присоединяется к уже выполняющемуся вычислению с тем же ключом.
+     * @param key Ключ вычисления
+     * @param supplier Вычисление
+     * @param timeoutMillis Максимальное время ожидания чужого вычисления в миллисекундах
+     * @return Результат вычисления
+     * @throws TimeoutException если чужое вычисление не завершилось за время ожидания
+     */
+    public V execute(K key, Supplier<V> supplier, long timeoutMillis) throws TimeoutException {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = calls.putIfAbsent(key, call);
+
+        if (runningCall != null) {
+            return await(runningCall, timeoutMillis);
+        }
+
+        try {
+            V value = supplier.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+
+    /**
+     * Метод возвращает количество выполняющихся вычислений.
+     * @return int
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+
+
+    private static <V> V await(CompletableFuture<V> call, long timeoutMillis) throws TimeoutException {
+        try {
+            return call.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки совместного обхода несколькими узлами с общей базой данных: идентификатор узла,
+ * длительность аренды сайта, интервал её продления и интервал опроса таблицы аренд. Аренда
+ * должна быть в несколько раз длиннее интервала продления, чтобы одна задержка продления не
+ * отдавала сайт другому узлу. Если nodeId не задан, используется имя JVM вида pid@host.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-cluster")
+public class ClusterSettings {
+    private boolean enabled = false;
+    private String nodeId;
+    private long leaseDurationMillis = 30_000;
+    private long heartbeatIntervalMillis = 10_000;
+    private long pollIntervalMillis = 5_000;
+}
@@ -0,0 +1,25 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.RejectionPolicy;
+
+/**
+ * Настройки пулов потоков приложения. Каждый вид работы выполняется в своём пуле с ограниченной
+ * очередью, чтобы тяжёлая индексация не занимала потоки, нужные для поиска. Если
+ * crawlerParallelism равен 0, параллелизм обходчика вычисляется по количеству доступных ядер.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-concurrency")
+public class ConcurrencySettings {
+    private int crawlerParallelism;
+    private PoolProps sites = new PoolProps(4, 64, RejectionPolicy.ABORT);
+    private PoolProps fetch = new PoolProps(8, 64, RejectionPolicy.CALLER_RUNS);
+    private PoolProps parse = new PoolProps(0, 128, RejectionPolicy.CALLER_RUNS);
+    private PoolProps write = new PoolProps(2, 16, RejectionPolicy.CALLER_RUNS);
+    private PoolProps search = new PoolProps(0, 256, RejectionPolicy.ABORT);
+}
@@ -0,0 +1,29 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки загрузки страниц: таймауты HTTP, адаптивное ограничение одновременных запросов к одному
+ * хосту, повторы запросов и параметры размыкателя цепи, который временно исключает недоступный хост.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-crawler")
+public class CrawlerSettings {
+    private String userAgent = "DysonSearchBot";
+    private long connectTimeoutMillis = 5_000;
+    private long responseTimeoutMillis = 15_000;
+    private int initialHostConcurrency = 2;
+    private int maxHostConcurrency = 8;
+    private long targetLatencyMillis = 1_500;
+    private int maxRetries = 3;
+    private long retryBaseDelayMillis = 500;
+    private long retryMaxDelayMillis = 30_000;
+    private int failureThreshold = 5;
+    private long circuitOpenMillis = 30_000;
+    private long circuitMaxOpenMillis = 300_000;
+}
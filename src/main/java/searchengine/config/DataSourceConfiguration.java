@@ -0,0 +1,67 @@
+package searchengine.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Конфигурация раздельных пулов соединений для записи и чтения. Оба пула по умолчанию подключаются
+ * к базе из spring.datasource, но имеют независимые размеры, поэтому поток мелких записей индексации
+ * не занимает соединения, нужные поиску. Если задан application-datasource.read.url, пул чтения
+ * подключается к реплике.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceConfiguration.class);
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, DataSourceSettings settings) {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource();
+        HikariDataSource writeDataSource = createPool("write", properties, settings.getWrite(), false);
+        HikariDataSource readDataSource = createPool("read", properties, settings.getRead(), true);
+
+        dataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.WRITE, writeDataSource,
+                ReadWriteRoutingDataSource.Route.READ, readDataSource
+        ));
+        dataSource.setDefaultTargetDataSource(writeDataSource);
+
+        return dataSource;
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод создаёт пул соединений Hikari. Незаданные в настройках пула адрес и учётные данные
+     * берутся из spring.datasource. Соединения пула чтения открываются в режиме только для чтения.
+     * @param name Имя пула
+     * @param properties Настройки spring.datasource
+     * @param props Настройки пула
+     * @param readOnly true для пула чтения
+     * @return HikariDataSource
+     */
+    private static HikariDataSource createPool(String name, DataSourceProperties properties, DataSourceProps props,
+                                               boolean readOnly) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl((props.getUrl() != null) ? props.getUrl() : properties.determineUrl());
+        dataSource.setUsername((props.getUsername() != null) ? props.getUsername() : properties.determineUsername());
+        dataSource.setPassword((props.getPassword() != null) ? props.getPassword() : properties.determinePassword());
+        dataSource.setMaximumPoolSize(props.getMaximumPoolSize());
+        dataSource.setReadOnly(readOnly);
+
+        LOGGER.info("Создан пул соединений \"{}\": {}, размер {}",
+                name, dataSource.getJdbcUrl(), props.getMaximumPoolSize());
+        return dataSource;
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Настройки одного пула соединений. Пустые url, username и password означают использование
+ * значений из spring.datasource.
+ */
+@Getter
+@Setter
+public class DataSourceProps {
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+}
@@ -0,0 +1,19 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки пулов соединений с базой данных. Пул write используется индексацией и всеми
+ * изменениями данных, пул read - поиском и статистикой. Пул read может указывать на реплику.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-datasource")
+public class DataSourceSettings {
+    private DataSourceProps write = new DataSourceProps();
+    private DataSourceProps read = new DataSourceProps();
+}
@@ -0,0 +1,19 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки HTTP-кэширования ответов поиска и статистики. При maxAgeSeconds = 0 клиенты и прокси
+ * могут хранить ответы, но обязаны проверять их по ETag перед каждым использованием.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-http-cache")
+public class HttpCacheSettings {
+    private boolean enabled = true;
+    private long maxAgeSeconds = 0;
+}
@@ -0,0 +1,21 @@
+package searchengine.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import searchengine.concurrency.RejectionPolicy;
+
+/**
+ * Настройки одного пула потоков. Если threads равен 0, размер пула вычисляется по количеству
+ * доступных ядер.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PoolProps {
+    private int threads;
+    private int queueCapacity;
+    private RejectionPolicy rejectionPolicy;
+}
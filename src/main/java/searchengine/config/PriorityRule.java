@@ -0,0 +1,17 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Правило приоритета обхода сайта. Если регулярное выражение pattern находит совпадение в пути
+ * страницы, к приоритету страницы прибавляется weight; при skip = true страница не обходится,
+ * что позволяет исключить ловушки обходчика - календари, бесконечную пагинацию, сортировки.
+ */
+@Setter
+@Getter
+public class PriorityRule {
+    private String pattern;
+    private double weight;
+    private boolean skip;
+}
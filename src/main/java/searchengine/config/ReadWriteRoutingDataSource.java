@@ -0,0 +1,45 @@
+package searchengine.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.function.Supplier;
+
+/**
+ * DataSource, который выбирает пул соединений по маршруту текущего потока. По умолчанию используется
+ * пул записи; пул чтения используется только внутри {@link #read(Supplier)}, поэтому индексация,
+ * читающая только что записанные данные, никогда не попадает на отстающую реплику.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        WRITE,
+        READ
+    }
+
+    private static final ThreadLocal<Route> CURRENT_ROUTE = ThreadLocal.withInitial(() -> Route.WRITE);
+
+    // METHODS //
+
+    /**
+     * Метод выполняет переданную задачу, направляя все новые соединения текущего потока в пул чтения.
+     * Вложенные вызовы сохраняют внешний маршрут после завершения.
+     * @param task Задача, которая только читает данные
+     * @return Результат задачи
+     */
+    public static <T> T read(Supplier<T> task) {
+        Route previous = CURRENT_ROUTE.get();
+        CURRENT_ROUTE.set(Route.READ);
+
+        try {
+            return task.get();
+        } finally {
+            CURRENT_ROUTE.set(previous);
+        }
+    }
+
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_ROUTE.get();
+    }
+}
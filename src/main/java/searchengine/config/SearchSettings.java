@@ -0,0 +1,28 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки диагностики поиска. Запросы, выполнявшиеся дольше slowQueryThresholdMillis, записываются
+ * в журнал медленных запросов с разбивкой времени по этапам. Отрицательное значение отключает журнал.
+ * Одновременно выполняется не больше maxConcurrentSearches поисков; запрос, ожидавший разрешения
+ * дольше admissionTimeoutMillis, отклоняется ответом 503. При coalescing = true одинаковые
+ * одновременные запросы совмещаются в одно вычисление; совмещённый запрос, не дождавшийся выдачи
+ * за coalescingTimeoutMillis, также отклоняется ответом 503. Поиск по сайту, не уложившийся
+ * в siteSearchTimeoutMillis, отменяется, а ответ помечается как неполный.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-search")
+public class SearchSettings {
+    private long slowQueryThresholdMillis = 1_000;
+    private long siteSearchTimeoutMillis = 5_000;
+    private int maxConcurrentSearches = 16;
+    private long admissionTimeoutMillis = 200;
+    private boolean coalescing = true;
+    private long coalescingTimeoutMillis = 10_000;
+}
@@ -3,9 +3,22 @@ package searchengine.config;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сайт из конфигурационного файла. maxPages, maxDepth и timeBudgetSeconds ограничивают обход сайта
+ * количеством страниц, глубиной от главной страницы и временем; 0 означает отсутствие ограничения.
+ * Порядок обхода задаётся приоритетом страниц, который можно изменить правилами priorityRules.
+ */
 @Setter
 @Getter
 public class SiteProps {
     private String url;
     private String name;
+    private List<String> ignoredParameters = new ArrayList<>();
+    private int maxPages;
+    private int maxDepth;
+    private long timeBudgetSeconds;
+    private List<PriorityRule> priorityRules = new ArrayList<>();
 }
@@ -0,0 +1,19 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки снимков индекса: каталог, в который записываются снимки и из которого они загружаются,
+ * и размер пакета строк при загрузке снимка в базу данных.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application-snapshot")
+public class SnapshotSettings {
+    private String directory = "snapshots";
+    private int batchSize = 1_000;
+}
@@ -1,12 +1,20 @@
 package searchengine.controllers;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import searchengine.concurrency.jobs.SiteIndexingJob;
 import searchengine.dto.response.implementation.indexing.IndexingResponse;
+import searchengine.dto.response.implementation.indexing.SearchResponse;
 import searchengine.dto.request.UrlDto;
+import searchengine.dto.request.UrlListDto;
+import searchengine.dto.response.implementation.statistics.ConcurrencyResponse;
 import searchengine.dto.response.implementation.statistics.StatisticsResponse;
 import searchengine.services.IndexingService;
 import searchengine.services.StatisticsService;
+import searchengine.services.utils.bean.HttpCacheValidator;
 
 @RestController
 @RequestMapping("/api")
@@ -14,17 +22,28 @@ public class ApiController {
 
     private final StatisticsService statisticsService;
     private final IndexingService indexingService;
+    private final HttpCacheValidator httpCacheValidator;
 
 
-    public ApiController(StatisticsService statisticsService, IndexingService indexingService) {
+    public ApiController(StatisticsService statisticsService, IndexingService indexingService,
+                         HttpCacheValidator httpCacheValidator) {
         this.statisticsService = statisticsService;
         this.indexingService = indexingService;
+        this.httpCacheValidator = httpCacheValidator;
     }
 
 
     @GetMapping("/statistics")
-    public ResponseEntity<StatisticsResponse> statistics() {
-        return statisticsService.getStatistics();
+    public ResponseEntity<StatisticsResponse> statistics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return statisticsService.getStatistics(ifNoneMatch);
+    }
+
+
+    @GetMapping("/statistics/concurrency")
+    public ResponseEntity<ConcurrencyResponse> concurrencyStatistics() {
+        return statisticsService.getConcurrencyStatistics();
     }
 
 
@@ -40,19 +59,87 @@ public class ApiController {
     }
 
 
+    @GetMapping("/indexingJobs/{jobId}")
+    public ResponseEntity<IndexingResponse> indexingJob(@PathVariable String jobId) {
+        return indexingService.getIndexingJob(jobId);
+    }
+
+
+    @GetMapping(value = "/indexingJobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> indexingJobEvents(@PathVariable String jobId) {
+        return indexingService.subscribeToIndexingJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+
+    @PostMapping("/indexingJobs/{jobId}/pause")
+    public ResponseEntity<IndexingResponse> pauseIndexingJob(@PathVariable String jobId,
+                                                             @RequestParam(required = false) String site) {
+        return indexingService.controlIndexingJob(jobId, site, SiteIndexingJob::pause);
+    }
+
+
+    @PostMapping("/indexingJobs/{jobId}/resume")
+    public ResponseEntity<IndexingResponse> resumeIndexingJob(@PathVariable String jobId,
+                                                              @RequestParam(required = false) String site) {
+        return indexingService.controlIndexingJob(jobId, site, SiteIndexingJob::resume);
+    }
+
+
+    @PostMapping("/indexingJobs/{jobId}/cancel")
+    public ResponseEntity<IndexingResponse> cancelIndexingJob(@PathVariable String jobId,
+                                                              @RequestParam(required = false) String site) {
+        return indexingService.controlIndexingJob(jobId, site, SiteIndexingJob::cancel);
+    }
+
+
     @PostMapping("/indexPage")
     public ResponseEntity<IndexingResponse> indexPage(@RequestBody UrlDto url) {
         return indexingService.indexPage(url);
     }
 
 
+    @PostMapping("/indexPages")
+    public ResponseEntity<IndexingResponse> indexPages(@RequestBody UrlListDto urls) {
+        return indexingService.indexPages(urls);
+    }
+
+
+    @PostMapping("/refreshSite")
+    public ResponseEntity<IndexingResponse> refreshSite(@RequestParam String site) {
+        return indexingService.refreshSite(site);
+    }
+
+
+    @PostMapping("/snapshots/export")
+    public ResponseEntity<IndexingResponse> exportSnapshot(@RequestParam String site) {
+        return indexingService.exportSnapshot(site);
+    }
+
+
+    @PostMapping("/snapshots/import")
+    public ResponseEntity<IndexingResponse> importSnapshot(@RequestParam String file) {
+        return indexingService.importSnapshot(file);
+    }
+
+
     @GetMapping("/search")
     public ResponseEntity<IndexingResponse> search(
             @RequestParam String query,
             @RequestParam(required = false) String site,
             @RequestParam(required = false, defaultValue = "0") Integer offset,
-            @RequestParam(required = false, defaultValue = "20") Integer limit) {
-
-        return indexingService.search(query, site, offset, limit);
+            @RequestParam(required = false, defaultValue = "20") Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean debug,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (debug) {
+            return indexingService.search(query, site, offset, limit, cursor, true);
+        }
+
+        return httpCacheValidator.respond(ifNoneMatch, httpCacheValidator.getSearchTag(),
+                () -> indexingService.search(query, site, offset, limit, cursor, false),
+                body -> !(body instanceof SearchResponse searchResponse) || !searchResponse.isPartial());
     }
 }
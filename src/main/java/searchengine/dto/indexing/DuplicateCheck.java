@@ -0,0 +1,16 @@
+package searchengine.dto.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Результат проверки страницы на почти дубликат. Кроме признака дубликата содержит признак того,
+ * что страница до проверки была оригиналом в индексе сайта, а теперь её хеш изменился либо она
+ * перестала быть оригиналом: такие страницы больше не могут служить оригиналом своим дубликатам.
+ */
+@Getter
+@AllArgsConstructor
+public class DuplicateCheck {
+    private final boolean duplicate;
+    private final boolean originalChanged;
+}
@@ -0,0 +1,34 @@
+package searchengine.dto.indexing;
+
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+
+import java.util.Map;
+
+/**
+ * Результат загрузки одной страницы пакетной индексации: сущность страницы вместе с уже
+ * собранными леммами, либо текст ошибки, если страницу загрузить не удалось.
+ */
+@Getter
+@Setter
+public class FetchedPage {
+    private final String url;
+    private final Site site;
+    private Page page;
+    private Map<String, Integer> lemmas;
+    private boolean newPage;
+    private String error;
+    private long fetchMillis;
+
+    public FetchedPage(String url, Site site) {
+        this.url = url;
+        this.site = site;
+    }
+
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.dto.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Запись карты сайта: канонический путь страницы и дата её последнего изменения,
+ * если она указана в {@code <lastmod>}.
+ */
+@Getter
+@AllArgsConstructor
+public class SitemapEntry {
+    private final String path;
+    private final Instant lastModified;
+}
@@ -0,0 +1,24 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchIndexingResponse extends IndexingResponse {
+    private List<PageIndexingResult> pages;
+    private int indexed;
+    private int failed;
+    private long fetchMillis;
+    private long indexMillis;
+    private long totalMillis;
+
+    public BatchIndexingResponse(boolean result, List<PageIndexingResult> pages) {
+        super(result);
+        this.pages = pages;
+    }
+}
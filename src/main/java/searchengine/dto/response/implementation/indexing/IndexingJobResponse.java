@@ -0,0 +1,23 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IndexingJobResponse extends IndexingResponse {
+    private String jobId;
+    private String state;
+    private List<SiteJobProgress> sites;
+
+
+    public IndexingJobResponse(boolean result, String jobId, String state, List<SiteJobProgress> sites) {
+        super(result);
+        this.jobId = jobId;
+        this.state = state;
+        this.sites = sites;
+    }
+}
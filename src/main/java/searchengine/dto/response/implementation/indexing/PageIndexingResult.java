@@ -0,0 +1,15 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageIndexingResult {
+    private String url;
+    private boolean result;
+    private Integer code;
+    private String error;
+    private long fetchMillis;
+}
@@ -0,0 +1,26 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Отладочные сведения поискового запроса: время этапов в миллисекундах и количество кандидатов.
+ * lemmasUsed - количество лемм запроса, найденных на сайтах и не отброшенных порогом частоты, в сумме
+ * по сайтам; candidates - количество страниц, содержащих все такие леммы.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchDebug {
+    private Map<String, Double> stages;
+    private double totalMillis;
+    private int lemmas;
+    private long lemmasUsed;
+    private int sites;
+    private long candidates;
+}
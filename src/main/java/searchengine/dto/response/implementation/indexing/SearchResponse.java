@@ -1,5 +1,6 @@
 package searchengine.dto.response.implementation.indexing;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -11,6 +12,12 @@ import java.util.List;
 public class SearchResponse extends IndexingResponse {
     private long count;
     private List<SearchResult> data;
+    private String nextCursor;
+    private boolean partial;
+    private int failedShards;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SearchDebug debug;
 
 
     public SearchResponse(boolean result, long count, List<SearchResult> data) {
@@ -0,0 +1,19 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SiteJobProgress {
+    private String url;
+    private String name;
+    private String state;
+    private long fetched;
+    private long queued;
+    private long failed;
+    private double pagesPerSecond;
+    private Long etaSeconds;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SitemapRefreshResponse extends IndexingResponse {
+    private int sitemapPages;
+    private int skipped;
+    private int indexed;
+    private int failed;
+    private long totalMillis;
+
+    public SitemapRefreshResponse(boolean result) {
+        super(result);
+    }
+}
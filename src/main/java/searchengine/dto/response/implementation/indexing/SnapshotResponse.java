@@ -0,0 +1,24 @@
+package searchengine.dto.response.implementation.indexing;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SnapshotResponse extends IndexingResponse {
+    private String file;
+    private String site;
+    private int generation;
+    private long pages;
+    private long lemmas;
+    private long postings;
+    private long bytes;
+    private String checksum;
+    private long totalMillis;
+
+    public SnapshotResponse(boolean result) {
+        super(result);
+    }
+}
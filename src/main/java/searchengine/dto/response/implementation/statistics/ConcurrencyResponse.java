@@ -0,0 +1,20 @@
+package searchengine.dto.response.implementation.statistics;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import searchengine.dto.response.DefaultResponse;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ConcurrencyResponse extends DefaultResponse {
+    private List<PoolStatistics> pools;
+
+    public ConcurrencyResponse(boolean result, List<PoolStatistics> pools) {
+        super(result);
+        this.pools = pools;
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.dto.response.implementation.statistics;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PoolStatistics {
+    private String name;
+    private int poolSize;
+    private int activeThreads;
+    private long queueSize;
+    private Integer queueCapacity;
+    private Long completedTasks;
+    private Long rejectedTasks;
+}
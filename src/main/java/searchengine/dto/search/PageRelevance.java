@@ -0,0 +1,11 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PageRelevance {
+    private Long pageId;
+    private float relevance;
+}
@@ -0,0 +1,73 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной выдачи. Хранит поколение индекса, на котором была получена выдача,
+ * наивысшую релевантность для нормирования, последнюю выданную страницу, после которой
+ * продолжается выдача, и общее количество найденных страниц, которое не пересчитывается
+ * для следующих страниц выдачи.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchCursor {
+    private static final String SEPARATOR = ":";
+
+    private long generation;
+    private float highestRelevance;
+    private float lastRelevance;
+    private long lastPageId;
+    private long count;
+
+
+    public PageRelevance getLastHit() {
+        return new PageRelevance(lastPageId, lastRelevance);
+    }
+
+
+    /**
+     * Метод кодирует курсор в непрозрачную для клиента строку.
+     * @return String
+     */
+    public String encode() {
+        String value = generation + SEPARATOR
+                + Float.floatToIntBits(highestRelevance) + SEPARATOR
+                + Float.floatToIntBits(lastRelevance) + SEPARATOR
+                + lastPageId + SEPARATOR
+                + count;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Метод восстанавливает курсор из строки, полученной методом encode().
+     * @param value Строка курсора
+     * @return SearchCursor
+     * @throws IllegalArgumentException если строка не является корректным курсором
+     */
+    public static SearchCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR);
+
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Неверное количество частей курсора");
+            }
+
+            return new SearchCursor(
+                    Long.parseLong(parts[0]),
+                    Float.intBitsToFloat(Integer.parseInt(parts[1])),
+                    Float.intBitsToFloat(Integer.parseInt(parts[2])),
+                    Long.parseLong(parts[3]),
+                    Long.parseLong(parts[4])
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Курсор содержит некорректные значения", e);
+        }
+    }
+}
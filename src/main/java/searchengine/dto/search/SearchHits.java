@@ -0,0 +1,29 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат поиска по одному или нескольким сайтам. failedShards - количество сайтов, поиск по которым
+ * не уложился во время или был отклонён переполненным пулом; их страницы в выдачу не попали.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchHits {
+    private List<PageRelevance> hits;
+    private long count;
+    private int failedShards;
+
+
+    public SearchHits(List<PageRelevance> hits, long count) {
+        this(hits, count, 0);
+    }
+
+
+    public static SearchHits empty() {
+        return new SearchHits(new ArrayList<>(), 0);
+    }
+}
@@ -0,0 +1,16 @@
+package searchengine.dto.search;
+
+import java.util.List;
+
+/**
+ * Ключ совмещения одинаковых поисковых запросов: отсортированные леммы запроса, сайт, окно выдачи
+ * и поколение индекса. Запросы с одинаковым ключом возвращают одинаковую выдачу.
+ * @param lemmas Отсортированные леммы запроса
+ * @param site Базовый url сайта, либо null для поиска по всем сайтам
+ * @param offset Сдвиг от начала выдачи
+ * @param limit Количество результатов
+ * @param cursor Курсор продолжения выдачи, либо null
+ * @param generation Поколение индекса
+ */
+public record SearchKey(List<String> lemmas, String site, int offset, int limit, String cursor, long generation) {
+}
@@ -0,0 +1,143 @@
+package searchengine.dto.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Время этапов одного поискового запроса и количество кандидатов на каждом этапе. Этапы поиска по
+ * сайтам выполняются параллельно, поэтому их время суммируется по всем сайтам и может превышать
+ * общее время запроса. Запрос, получивший выдачу совмещённого с ним вычисления, помечается как
+ * совмещённый: его этапы выполнялись в другом запросе и не заполняются. Класс потокобезопасен.
+ */
+public class SearchTimings {
+
+    public static final String LEMMATIZE = "lemmatize";
+    public static final String SITE_LOOKUP = "siteLookup";
+    public static final String LEMMA_LOOKUP = "lemmaLookup";
+    public static final String RELEVANCE = "relevance";
+    public static final String SHARDS = "shards";
+    public static final String MERGE = "merge";
+    public static final String PAGE_RETRIEVAL = "pageRetrieval";
+    public static final String SNIPPETS = "snippets";
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, LongAdder> stageNanos = new ConcurrentHashMap<>();
+    private final LongAdder lemmasUsed = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private volatile int lemmas;
+    private volatile int sites;
+    private volatile long totalNanos;
+    private volatile boolean coalesced;
+
+
+    public <T> T time(String stage, Supplier<T> task) {
+        long start = System.nanoTime();
+
+        try {
+            return task.get();
+        } finally {
+            add(stage, System.nanoTime() - start);
+        }
+    }
+
+
+    public void add(String stage, long nanos) {
+        stageNanos.computeIfAbsent(stage, key -> new LongAdder()).add(nanos);
+    }
+
+
+    public void setLemmas(int lemmas) {
+        this.lemmas = lemmas;
+    }
+
+
+    public void setSites(int sites) {
+        this.sites = sites;
+    }
+
+
+    public void addLemmasUsed(long count) {
+        lemmasUsed.add(count);
+    }
+
+
+    public void addCandidates(long count) {
+        candidates.add(count);
+    }
+
+
+    public void markCoalesced() {
+        coalesced = true;
+    }
+
+
+    /**
+     * Метод фиксирует общее время запроса с момента создания объекта.
+     */
+    public void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+
+    public long getStageNanos(String stage) {
+        LongAdder nanos = stageNanos.get(stage);
+        return (nanos == null) ? 0 : nanos.sum();
+    }
+
+
+    /**
+     * Метод возвращает время этапов в миллисекундах в порядке их выполнения.
+     * @return Map этапа и времени
+     */
+    public Map<String, Double> getStageMillis() {
+        Map<String, Double> result = new LinkedHashMap<>();
+
+        for (String stage : new String[]{LEMMATIZE, SITE_LOOKUP, LEMMA_LOOKUP, RELEVANCE, SHARDS, MERGE,
+                PAGE_RETRIEVAL, SNIPPETS}) {
+            if (stageNanos.containsKey(stage)) {
+                result.put(stage, toMillis(getStageNanos(stage)));
+            }
+        }
+
+        return result;
+    }
+
+
+    public double getTotalMillis() {
+        return toMillis(totalNanos);
+    }
+
+
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+
+    public int getLemmas() {
+        return lemmas;
+    }
+
+
+    public int getSites() {
+        return sites;
+    }
+
+
+    public long getLemmasUsed() {
+        return lemmasUsed.sum();
+    }
+
+
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+
+    private static double toMillis(long nanos) {
+        return Math.round((double) nanos / TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,43 @@
+package searchengine.dto.statistics;
+
+import lombok.Getter;
+
+/**
+ * Изменение статистики одного сайта, накопленное за одну операцию индексации.
+ */
+@Getter
+public class StatisticsDelta {
+    private long pages;
+    private long lemmas;
+    private long terms;
+    private long maxFrequency;
+
+
+    public StatisticsDelta addPages(long count) {
+        pages += count;
+        return this;
+    }
+
+
+    public StatisticsDelta addLemmas(long count) {
+        lemmas += count;
+        return this;
+    }
+
+
+    public StatisticsDelta addTerms(long count) {
+        terms += count;
+        return this;
+    }
+
+
+    public StatisticsDelta updateMaxFrequency(long frequency) {
+        maxFrequency = Math.max(maxFrequency, frequency);
+        return this;
+    }
+
+
+    public boolean isEmpty() {
+        return pages == 0 && lemmas == 0 && terms == 0 && maxFrequency == 0;
+    }
+}
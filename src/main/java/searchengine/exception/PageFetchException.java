@@ -0,0 +1,17 @@
+package searchengine.exception;
+
+/**
+ * Исключение, которое выбрасывается, если страницу не удалось загрузить после всех повторов,
+ * либо хост страницы временно исключён размыкателем цепи.
+ */
+public class PageFetchException extends RuntimeException {
+
+    public PageFetchException(String message) {
+        super(message);
+    }
+
+
+    public PageFetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package searchengine.exception;
+
+/**
+ * Исключение, которое выбрасывается, если поиск не получил разрешения на выполнение за время ожидания,
+ * потому что одновременно выполняется максимально допустимое количество поисковых запросов.
+ */
+public class SearchOverloadedException extends RuntimeException {
+
+    public SearchOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.exception;
+
+/**
+ * Исключение, которое выбрасывается, если снимок индекса не удалось записать или прочитать:
+ * файл повреждён, его версия не поддерживается или сайт снимка не указан в конфигурационном файле.
+ */
+public class SnapshotException extends RuntimeException {
+
+    public SnapshotException(String message) {
+        super(message);
+    }
+
+
+    public SnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,84 @@
+package searchengine.model.converter;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Конвертер, сжимающий строковый контент кодеком Zstandard при записи в базу данных и
+ * распаковывающий его при чтении. Значения, записанные до включения сжатия, не содержат
+ * сигнатуры кадра Zstandard и читаются как обычный текст в UTF-8. Кадры, в заголовке которых
+ * не записан размер исходных данных, распаковываются потоком.
+ */
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    private static final int COMPRESSION_LEVEL = 3;
+    private static final byte[] ZSTD_MAGIC = new byte[]{(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD};
+
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        if (content == null) {
+            return null;
+        }
+
+        return Zstd.compress(content.getBytes(StandardCharsets.UTF_8), COMPRESSION_LEVEL);
+    }
+
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        if (!isCompressed(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        long contentSize = Zstd.getFrameContentSize(data);
+
+        if (contentSize <= 0 || contentSize > Integer.MAX_VALUE) {
+            return new String(decompressStream(data), StandardCharsets.UTF_8);
+        }
+
+        byte[] decompressed = Zstd.decompress(data, (int) contentSize);
+        return new String(decompressed, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Метод распаковывает кадр потоком, не зная заранее размера исходных данных. Используется,
+     * когда размер не записан в заголовке кадра или заголовок не удалось разобрать.
+     */
+    private static byte[] decompressStream(byte[] data) {
+        try (InputStream input = new ZstdInputStream(new ByteArrayInputStream(data))) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static boolean isCompressed(byte[] data) {
+        if (data.length < ZSTD_MAGIC.length) {
+            return false;
+        }
+
+        for (int i = 0; i < ZSTD_MAGIC.length; i++) {
+            if (data[i] != ZSTD_MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package searchengine.model.implementation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.model.DefaultModel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Аренда обхода сайта узлом кластера. Строка одна на сайт: задача индексации публикует её в
+ * состоянии PENDING, узел, захвативший аренду, переводит её в RUNNING и продлевает, пока обходит
+ * сайт. Если узел перестал продлевать аренду, после expireTime её может захватить другой узел
+ * и продолжить обход в том же поколении сайта.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "crawl_lease")
+public class CrawlLease extends DefaultModel {
+
+    @Column(name = "site_url", columnDefinition = "VARCHAR(255)", nullable = false, unique = true)
+    private String siteUrl;
+
+    @Column(name = "job_id", columnDefinition = "VARCHAR(36)", nullable = false)
+    private String jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", columnDefinition = "ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')", nullable = false)
+    private LeaseState state;
+
+    @Column(name = "node_id", columnDefinition = "VARCHAR(255)")
+    private String nodeId;
+
+    /**
+     * Поколение сайта, в которое пишет обход. Заполняется после создания поколения.
+     */
+    @ManyToOne
+    @JoinColumn(name = "site_id")
+    private Site siteId;
+
+    @Column(name = "heartbeat_time", columnDefinition = "DATETIME(3)")
+    private LocalDateTime heartbeatTime;
+
+    @Column(name = "expire_time", columnDefinition = "DATETIME(3)")
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,28 @@
+package searchengine.model.implementation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.model.DefaultModel;
+
+/**
+ * Отметка о том, что путь поколения сайта уже взят в обработку одним из узлов кластера.
+ * Путь хранится 64-битным хешем, уникальный индекс (site_id, path_hash) не даёт двум узлам
+ * взять один и тот же путь.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "crawl_visited")
+public class CrawlVisited extends DefaultModel {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "site_id", nullable = false)
+    private Site siteId;
+
+    @Column(name = "path_hash", columnDefinition = "BIGINT", nullable = false)
+    private Long pathHash;
+
+    @Column(name = "node_id", columnDefinition = "VARCHAR(255)", nullable = false)
+    private String nodeId;
+}
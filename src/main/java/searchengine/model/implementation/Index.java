@@ -11,11 +11,11 @@ import searchengine.model.DefaultModel;
 @Table(name = "`index`")
 public class Index extends DefaultModel {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "page_id", nullable = false)
     private Page pageId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lemma_id", nullable = false)
     private Lemma lemmaId;
 
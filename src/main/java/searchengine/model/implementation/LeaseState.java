@@ -0,0 +1,10 @@
+package searchengine.model.implementation;
+
+public enum LeaseState {
+    PENDING, RUNNING, COMPLETED, FAILED;
+
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
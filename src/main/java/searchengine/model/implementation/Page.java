@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.Setter;
 import searchengine.model.DefaultModel;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @Entity
@@ -21,6 +23,33 @@ public class Page extends DefaultModel {
     @Column(name = "code", columnDefinition = "INT", nullable = false)
     private Integer code;
 
-    @Column(name = "content", columnDefinition = "MEDIUMTEXT", nullable = false)
+    @Column(name = "title", columnDefinition = "TEXT")
+    private String title;
+
+    /**
+     * 64-битный SimHash мультимножества лемм страницы, по которому находятся почти совпадающие страницы.
+     */
+    @Column(name = "simhash", columnDefinition = "BIGINT")
+    private Long simhash;
+
+    /**
+     * id страницы сайта, почти дубликатом которой является эта страница. Леммы и индексы для
+     * дубликатов не сохраняются.
+     */
+    @Column(name = "duplicate_of", columnDefinition = "INT")
+    private Long duplicateOf;
+
+    /**
+     * Время последней загрузки и индексации страницы. По нему переиндексация по карте сайта
+     * определяет, изменилась ли страница после индексации.
+     */
+    @Column(name = "indexed_at", columnDefinition = "DATETIME")
+    private LocalDateTime indexedAt;
+
+    /**
+     * HTML-контент страницы хранится в отдельной таблице page_content и при загрузке страницы
+     * не читается. Поле заполняется только при получении страницы из сети.
+     */
+    @Transient
     private String content;
 }
@@ -0,0 +1,22 @@
+package searchengine.model.implementation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.model.DefaultModel;
+import searchengine.model.converter.CompressedContentConverter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "page_content")
+public class PageContent extends DefaultModel {
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "page_id", nullable = false, unique = true)
+    private Page pageId;
+
+    @Convert(converter = CompressedContentConverter.class)
+    @Column(name = "content", columnDefinition = "MEDIUMBLOB", nullable = false)
+    private String content;
+}
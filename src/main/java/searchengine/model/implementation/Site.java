@@ -24,9 +24,15 @@ public class Site extends DefaultModel {
     @Column(name = "last_error", columnDefinition = "TEXT")
     private String lastError;
 
-    @Column(name = "url", columnDefinition = "VARCHAR(255)", nullable = false, unique = true)
+    @Column(name = "url", columnDefinition = "VARCHAR(255)", nullable = false)
     private String url;
 
     @Column(name = "name", columnDefinition = "VARCHAR(255)", nullable = false)
     private String name;
+
+    @Column(name = "generation", columnDefinition = "INT", nullable = false)
+    private Integer generation;
+
+    @Column(name = "active", columnDefinition = "BOOLEAN", nullable = false)
+    private Boolean active;
 }
@@ -0,0 +1,29 @@
+package searchengine.model.implementation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.model.DefaultModel;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "site_statistics")
+public class SiteStatistics extends DefaultModel {
+
+    @OneToOne
+    @JoinColumn(name = "site_id", nullable = false, unique = true)
+    private Site siteId;
+
+    @Column(name = "pages_count", columnDefinition = "INT", nullable = false)
+    private Long pagesCount;
+
+    @Column(name = "lemmas_count", columnDefinition = "INT", nullable = false)
+    private Long lemmasCount;
+
+    @Column(name = "max_frequency", columnDefinition = "INT", nullable = false)
+    private Long maxFrequency;
+
+    @Column(name = "terms_count", columnDefinition = "BIGINT", nullable = false)
+    private Long termsCount;
+}
@@ -0,0 +1,11 @@
+package searchengine.model.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Путь страницы и время её последней индексации для переиндексации по карте сайта.
+ */
+public interface PageIndexTime {
+    String getPath();
+    LocalDateTime getIndexedAt();
+}
@@ -0,0 +1,9 @@
+package searchengine.model.projection;
+
+/**
+ * SimHash проиндексированной страницы для построения индекса почти дубликатов.
+ */
+public interface PageSimHash {
+    Long getId();
+    Long getSimhash();
+}
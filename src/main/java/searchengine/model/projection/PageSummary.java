@@ -0,0 +1,12 @@
+package searchengine.model.projection;
+
+/**
+ * Облегчённое представление страницы для поисковой выдачи, не содержащее HTML-контент.
+ */
+public interface PageSummary {
+    Long getId();
+    String getPath();
+    String getTitle();
+    String getSiteUrl();
+    String getSiteName();
+}
@@ -0,0 +1,18 @@
+package searchengine.model.projection;
+
+import searchengine.model.implementation.IndexStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Последнее поколение сайта вместе с его статистикой для построения ответа статистики и его ETag.
+ */
+public interface SiteStatisticsSummary {
+    String getUrl();
+    Integer getGeneration();
+    IndexStatus getIndexStatus();
+    String getLastError();
+    LocalDateTime getStatusTime();
+    Long getPagesCount();
+    Long getTermsCount();
+}
@@ -5,10 +5,21 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.stereotype.Service;
 import searchengine.concurrency.implementation.ThreadPoolManager;
+import searchengine.config.ReadWriteRoutingDataSource;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.PageContent;
+import searchengine.repository.implementation.CrawlLeaseRepository;
+import searchengine.repository.implementation.CrawlVisitedRepository;
 import searchengine.repository.implementation.IndexRepository;
 import searchengine.repository.implementation.LemmaRepository;
+import searchengine.repository.implementation.PageContentRepository;
 import searchengine.repository.implementation.PageRepository;
 import searchengine.repository.implementation.SiteRepository;
+import searchengine.repository.implementation.SiteStatisticsRepository;
+import searchengine.services.utils.bean.IndexingMetrics;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 @Service
 @Getter
@@ -16,13 +27,65 @@ import searchengine.repository.implementation.SiteRepository;
 public class RepositoryManager {
     private final ThreadPoolManager threadPoolManager;
     private final PageRepository pageRepository;
+    private final PageContentRepository pageContentRepository;
     private final SiteRepository siteRepository;
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
+    private final SiteStatisticsRepository siteStatisticsRepository;
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final CrawlVisitedRepository crawlVisitedRepository;
+    private final IndexingMetrics metrics;
 
 
+    /**
+     * Метод выполняет задачу в транзакции и учитывает время её выполнения в метрике repository.transaction.
+     * Фиксация транзакции выполняется после выхода из метода и в это время не входит.
+     * @param task Задача
+     */
     @Transactional
     public void executeTransaction(Runnable task) {
-        task.run();
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            task.run();
+            failed = false;
+        } finally {
+            metrics.recordTransaction(System.nanoTime() - start, failed);
+        }
+    }
+
+
+    /**
+     * Метод выполняет задачу, которая только читает данные, через пул соединений чтения. Задачи
+     * индексации не должны использовать этот метод: пул чтения может указывать на реплику, которая
+     * ещё не получила последние изменения.
+     * @param task Задача чтения
+     * @return Результат задачи
+     */
+    public <T> T executeRead(Supplier<T> task) {
+        return ReadWriteRoutingDataSource.read(task);
+    }
+
+
+    /**
+     * Метод сохраняет страницу и её HTML-контент в рамках одной транзакции. Контент хранится
+     * в отдельной таблице, чтобы чтение страниц не затрагивало HTML. Время сохранения контента
+     * записывается в страницу как время её индексации.
+     * @param page Сущность Page с заполненным контентом
+     */
+    @Transactional
+    public void savePageWithContent(Page page) {
+        page.setIndexedAt(LocalDateTime.now());
+        pageRepository.save(page);
+        PageContent pageContent = pageContentRepository.findByPageId(page);
+
+        if (pageContent == null) {
+            pageContent = new PageContent();
+            pageContent.setPageId(page);
+        }
+
+        pageContent.setContent(page.getContent());
+        pageContentRepository.save(pageContent);
     }
 }
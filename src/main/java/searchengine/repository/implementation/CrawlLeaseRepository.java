@@ -0,0 +1,80 @@
+package searchengine.repository.implementation;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import searchengine.model.implementation.CrawlLease;
+import searchengine.repository.GenericRepository;
+
+import java.util.List;
+
+/**
+ * Запросы к таблице аренд обхода. Время аренды считается по часам базы данных (NOW(3)), поэтому
+ * расхождение часов узлов не влияет на то, какая аренда считается истёкшей.
+ */
+@Repository
+public interface CrawlLeaseRepository extends GenericRepository<CrawlLease> {
+    CrawlLease findBySiteUrl(String siteUrl);
+
+
+    @Query("SELECT l.siteUrl FROM CrawlLease l WHERE l.jobId = ?1")
+    List<String> findSiteUrlsByJobId(String jobId);
+
+
+    @Query(value = "SELECT DISTINCT job_id FROM crawl_lease " +
+            "WHERE state = 'PENDING' OR (state = 'RUNNING' AND expire_time <= NOW(3))", nativeQuery = true)
+    List<String> findOpenJobIds();
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO crawl_lease (site_url, job_id, state) VALUES (?1, ?2, 'COMPLETED')",
+            nativeQuery = true)
+    void insertIfAbsent(String siteUrl, String jobId);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET job_id = ?2, state = 'PENDING', node_id = NULL, site_id = NULL " +
+            "WHERE site_url = ?1 AND NOT (state = 'RUNNING' AND expire_time > NOW(3))", nativeQuery = true)
+    int publish(String siteUrl, String jobId);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET node_id = ?3, state = 'RUNNING', heartbeat_time = NOW(3), " +
+            "expire_time = NOW(3) + INTERVAL (?4 * 1000) MICROSECOND " +
+            "WHERE site_url = ?1 AND job_id = ?2 " +
+            "AND (state = 'PENDING' OR (state = 'RUNNING' AND expire_time <= NOW(3)))", nativeQuery = true)
+    int acquire(String siteUrl, String jobId, String nodeId, long leaseMillis);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET heartbeat_time = NOW(3), " +
+            "expire_time = NOW(3) + INTERVAL (?3 * 1000) MICROSECOND " +
+            "WHERE site_url = ?1 AND node_id = ?2 AND state = 'RUNNING'", nativeQuery = true)
+    int renew(String siteUrl, String nodeId, long leaseMillis);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET site_id = ?3 " +
+            "WHERE site_url = ?1 AND node_id = ?2 AND state = 'RUNNING'", nativeQuery = true)
+    int attachSite(String siteUrl, String nodeId, Long siteId);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET state = ?3, expire_time = NOW(3) " +
+            "WHERE site_url = ?1 AND node_id = ?2 AND state = 'RUNNING'", nativeQuery = true)
+    int release(String siteUrl, String nodeId, String state);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE crawl_lease SET expire_time = NOW(3) " +
+            "WHERE site_url = ?1 AND node_id = ?2 AND state = 'RUNNING'", nativeQuery = true)
+    int expire(String siteUrl, String nodeId);
+}
@@ -0,0 +1,34 @@
+package searchengine.repository.implementation;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import searchengine.model.implementation.CrawlVisited;
+import searchengine.model.implementation.Site;
+import searchengine.repository.GenericRepository;
+
+@Repository
+public interface CrawlVisitedRepository extends GenericRepository<CrawlVisited> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO crawl_visited (site_id, path_hash, node_id) VALUES (?1, ?2, ?3)",
+            nativeQuery = true)
+    int insertIfAbsent(Long siteId, long pathHash, String nodeId);
+
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CrawlVisited v WHERE v.siteId = ?1")
+    void deleteAllBySiteId(Site site);
+
+
+    /**
+     * Метод удаляет не больше limit посещённых адресов сайта.
+     * @return Количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM crawl_visited WHERE site_id = ?1 LIMIT ?2", nativeQuery = true)
+    int deleteChunkBySiteId(Long siteId, int limit);
+}
@@ -6,8 +6,10 @@ import org.springframework.stereotype.Repository;
 import searchengine.model.implementation.Index;
 import searchengine.model.implementation.Lemma;
 import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
 import searchengine.repository.GenericRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,4 +24,50 @@ public interface IndexRepository extends GenericRepository<Index> {
     @Modifying
     @Query("UPDATE Index i SET i.rank = i.rank + ?2 WHERE i.id = ?1")
     void incrementRank( Long indexId, int count);
+
+
+    /**
+     * Релевантность считается в FLOAT, чтобы сравнение с границей курсора в запросе совпадало
+     * со сравнением тех же значений в Java.
+     */
+    @Query(value = "SELECT i.page_id, CAST(SUM(i.`rank`) AS FLOAT) AS relevance FROM `index` i " +
+            "WHERE i.lemma_id IN ?1 GROUP BY i.page_id HAVING COUNT(*) = ?2 " +
+            "ORDER BY relevance DESC, i.page_id LIMIT ?3", nativeQuery = true)
+    List<Object[]> findTopPagesContainingAllLemmas(Collection<Long> lemmaIds, long lemmasCount, int limit);
+
+
+    @Query(value = "SELECT i.page_id, CAST(SUM(i.`rank`) AS FLOAT) AS relevance FROM `index` i " +
+            "WHERE i.lemma_id IN ?1 GROUP BY i.page_id HAVING COUNT(*) = ?2 " +
+            "AND (relevance < CAST(?3 AS FLOAT) OR (relevance = CAST(?3 AS FLOAT) AND i.page_id > ?4)) " +
+            "ORDER BY relevance DESC, i.page_id LIMIT ?5", nativeQuery = true)
+    List<Object[]> findTopPagesContainingAllLemmasAfter(Collection<Long> lemmaIds, long lemmasCount,
+                                                        float afterRelevance, long afterPageId, int limit);
+
+
+    @Query(value = "SELECT COUNT(*) FROM (SELECT i.page_id FROM `index` i WHERE i.lemma_id IN ?1 " +
+            "GROUP BY i.page_id HAVING COUNT(*) = ?2) p", nativeQuery = true)
+    long countPagesContainingAllLemmas(Collection<Long> lemmaIds, long lemmasCount);
+
+
+    @Query("SELECT COALESCE(SUM(i.rank), 0) FROM Index i WHERE i.pageId.id IN ?1")
+    Double sumRanksByPageIds(Collection<Long> pageIds);
+
+
+    @Modifying
+    @Query("DELETE FROM Index i WHERE i.pageId.id IN ?1")
+    int deleteAllByPageIds(Collection<Long> pageIds);
+
+
+    @Query("SELECT COUNT(i) FROM Index i WHERE i.pageId.siteId = ?1")
+    long countBySiteId(Site site);
+
+
+    /**
+     * Метод удаляет не больше limit индексов страниц сайта.
+     * @return Количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM `index` WHERE page_id IN (SELECT p.id FROM page p WHERE p.site_id = ?1) " +
+            "LIMIT ?2", nativeQuery = true)
+    int deleteChunkBySiteId(Long siteId, int limit);
 }
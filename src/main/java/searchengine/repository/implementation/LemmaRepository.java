@@ -7,17 +7,14 @@ import searchengine.model.implementation.Lemma;
 import searchengine.model.implementation.Site;
 import searchengine.repository.GenericRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LemmaRepository extends GenericRepository<Lemma> {
     List<Lemma> findByLemma(String lemma);
     Lemma findByLemmaAndSiteId(String lemma, Site site);
-    boolean existsByLemma(String lemma);
-
-
-    @Query("SELECT MAX(l.frequency) FROM Lemma l")
-    Long findMaxFrequency();
+    long countBySiteId(Site site);
 
 
     @Modifying
@@ -25,6 +22,37 @@ public interface LemmaRepository extends GenericRepository<Lemma> {
     void incrementFrequency(Long lemmaId);
 
 
-    @Query("SELECT SUM(i.rank) FROM Index i JOIN i.pageId p JOIN p.siteId s WHERE s.url = ?1")
-    Long countLemmasBySiteUrl(String url);
+    /**
+     * Метод создаёт лемму сайта с переданной частотой либо увеличивает частоту существующей леммы.
+     * @return 1, если лемма создана, 2, если увеличена частота существующей
+     */
+    @Modifying
+    @Query(value = "INSERT INTO lemma (site_id, lemma, frequency) VALUES (?1, ?2, ?3) " +
+            "ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)", nativeQuery = true)
+    int upsertFrequency(Long siteId, String lemma, long pagesCount);
+
+
+    @Query("SELECT l FROM Lemma l WHERE l.siteId = ?1 AND l.lemma IN ?2")
+    List<Lemma> findAllBySiteIdAndLemmaIn(Site site, Collection<String> lemmas);
+
+
+    @Modifying
+    @Query(value = "UPDATE lemma l JOIN (SELECT i.lemma_id, COUNT(*) AS pages FROM `index` i " +
+            "WHERE i.page_id IN ?1 GROUP BY i.lemma_id) d ON l.id = d.lemma_id " +
+            "SET l.frequency = l.frequency - d.pages", nativeQuery = true)
+    void decrementFrequenciesByPageIds(Collection<Long> pageIds);
+
+
+    @Modifying
+    @Query("DELETE FROM Lemma l WHERE l.siteId = ?1 AND l.frequency <= 0")
+    int deleteUnusedBySiteId(Site site);
+
+
+    /**
+     * Метод удаляет не больше limit лемм сайта.
+     * @return Количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM lemma WHERE site_id = ?1 LIMIT ?2", nativeQuery = true)
+    int deleteChunkBySiteId(Long siteId, int limit);
 }
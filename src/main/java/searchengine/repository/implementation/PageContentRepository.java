@@ -0,0 +1,30 @@
+package searchengine.repository.implementation;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.PageContent;
+import searchengine.repository.GenericRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PageContentRepository extends GenericRepository<PageContent> {
+    PageContent findByPageId(Page page);
+
+
+    @Query("SELECT c FROM PageContent c JOIN FETCH c.pageId p WHERE p.id IN ?1")
+    List<PageContent> findAllByPageIdIn(Collection<Long> pageIds);
+
+
+    /**
+     * Метод удаляет не больше limit строк контента страниц сайта.
+     * @return Количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM page_content WHERE page_id IN (SELECT p.id FROM page p WHERE p.site_id = ?1) " +
+            "LIMIT ?2", nativeQuery = true)
+    int deleteChunkBySiteId(Long siteId, int limit);
+}
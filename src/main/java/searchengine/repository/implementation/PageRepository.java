@@ -1,32 +1,63 @@
 package searchengine.repository.implementation;
 
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import searchengine.model.implementation.Page;
 import searchengine.model.implementation.Site;
+import searchengine.model.projection.PageIndexTime;
+import searchengine.model.projection.PageSimHash;
+import searchengine.model.projection.PageSummary;
 import searchengine.repository.GenericRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PageRepository extends GenericRepository<Page> {
     Page findBySiteIdAndPath(Site site, String path);
 
-    @Query("SELECT COUNT(p) FROM Page p WHERE p.siteId.url = ?1")
-    long countPagesBySiteUrl(String url);
+    long countBySiteId(Site site);
 
-    @Query("SELECT p FROM Page p " +
-            "JOIN Index i ON p.id = i.pageId.id " +
-            "JOIN Lemma l ON i.lemmaId.id = l.id " +
-            "WHERE l.lemma = ?1")
-    List<Page> searchPagesByLemma(String lemma);
+    @Query("SELECT p.path AS path, p.indexedAt AS indexedAt FROM Page p WHERE p.siteId = ?1")
+    List<PageIndexTime> findIndexTimesBySiteId(Site site);
 
-    @Query("SELECT p FROM Page p " +
-            "JOIN Index i ON p.id = i.pageId.id " +
-            "JOIN Lemma l ON i.lemmaId.id = l.id " +
-            "WHERE l.lemma = ?1 AND p.siteId = ?2")
-    List<Page> searchPagesByLemmaAndSiteId(String lemma, Site site);
+    @Query("SELECT p.id AS id, p.simhash AS simhash FROM Page p " +
+            "WHERE p.siteId = ?1 AND p.simhash IS NOT NULL AND p.duplicateOf IS NULL")
+    List<PageSimHash> findSimHashesBySiteId(Site site);
 
-    @Query("SELECT SUM(i.rank) FROM Index i WHERE i.pageId = ?1")
-    Long getRankSumForPage(Page page);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Page p SET p.simhash = ?2, p.duplicateOf = ?3 WHERE p.id = ?1")
+    void updateSimHashById(Long pageId, Long simhash, Long duplicateOf);
+
+    /**
+     * Метод блокирует найденные страницы до конца транзакции, чтобы их можно было прочитать
+     * и снять с них отметку дубликата без изменений другими транзакциями в промежутке.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Page> findAllByDuplicateOf(Long originalId);
+
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Page p SET p.duplicateOf = NULL WHERE p.duplicateOf = ?1")
+    void clearDuplicateOf(Long originalId);
+
+    @Query("SELECT p.id AS id, p.path AS path, p.title AS title, s.url AS siteUrl, s.name AS siteName " +
+            "FROM Page p JOIN p.siteId s WHERE p.id IN ?1")
+    List<PageSummary> findSummariesByIdIn(Collection<Long> pageIds);
+
+
+    /**
+     * Метод удаляет не больше limit страниц сайта.
+     * @return Количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM page WHERE site_id = ?1 LIMIT ?2", nativeQuery = true)
+    int deleteChunkBySiteId(Long siteId, int limit);
 }
@@ -6,13 +6,34 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import searchengine.model.implementation.IndexStatus;
 import searchengine.model.implementation.Site;
+import searchengine.model.projection.SiteStatisticsSummary;
 import searchengine.repository.GenericRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface SiteRepository extends GenericRepository<Site> {
-    Site findByUrl(String url);
+    @Query("SELECT s FROM Site s WHERE s.url = ?1 AND s.active = true")
+    Site findActiveByUrl(String url);
+
+    List<Site> findAllByActiveTrue();
+
+    Site findFirstByUrlOrderByGenerationDesc(String url);
+
+    @Query("SELECT COALESCE(MAX(s.generation), 0) FROM Site s WHERE s.url = ?1")
+    int findMaxGenerationByUrl(String url);
+
+    @Query("SELECT s.id FROM Site s WHERE s.url = ?1 AND s.active = false")
+    List<Long> findInactiveIdsByUrl(String url);
+
+    @Query("SELECT s.url AS url, s.generation AS generation, s.indexStatus AS indexStatus, " +
+            "s.lastError AS lastError, s.statusTime AS statusTime, " +
+            "COALESCE(st.pagesCount, 0) AS pagesCount, COALESCE(st.termsCount, 0) AS termsCount " +
+            "FROM Site s LEFT JOIN SiteStatistics st ON st.siteId = s " +
+            "WHERE s.generation = (SELECT MAX(l.generation) FROM Site l WHERE l.url = s.url)")
+    List<SiteStatisticsSummary> findLatestGenerationSummaries();
 
     @Modifying
     @Transactional
@@ -26,4 +47,16 @@ public interface SiteRepository extends GenericRepository<Site> {
     void updateStatusAndErrorByStatus(IndexStatus oldIndexStatus,
                                       IndexStatus newIndexStatus,
                                       String errorMessage);
+
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Site s SET s.active = CASE WHEN s.id = ?2 THEN true ELSE false END WHERE s.url = ?1")
+    void activateGeneration(String url, Long siteId);
+
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Site s WHERE s.id IN ?1")
+    void deleteAllByIdIn(Collection<Long> siteIds);
 }
@@ -0,0 +1,23 @@
+package searchengine.repository.implementation;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import searchengine.model.implementation.Site;
+import searchengine.model.implementation.SiteStatistics;
+import searchengine.repository.GenericRepository;
+
+@Repository
+public interface SiteStatisticsRepository extends GenericRepository<SiteStatistics> {
+    SiteStatistics findBySiteId(Site site);
+
+
+    @Modifying
+    @Query("UPDATE SiteStatistics s SET " +
+            "s.pagesCount = s.pagesCount + ?2, " +
+            "s.lemmasCount = s.lemmasCount + ?3, " +
+            "s.termsCount = s.termsCount + ?4, " +
+            "s.maxFrequency = CASE WHEN s.maxFrequency < ?5 THEN ?5 ELSE s.maxFrequency END " +
+            "WHERE s.id = ?1")
+    void applyDelta(Long statisticsId, long pages, long lemmas, long terms, long maxFrequency);
+}
@@ -3,6 +3,7 @@ package searchengine.services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import searchengine.dto.response.DefaultResponse;
@@ -28,4 +29,11 @@ public abstract class DefaultService {
     protected <T extends DefaultResponse> ResponseEntity<T> getFailedResponse(T body) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
+
+
+    protected <T extends DefaultResponse> ResponseEntity<T> getUnavailableResponse(T body, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(body);
+    }
 }
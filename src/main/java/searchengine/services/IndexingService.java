@@ -2,55 +2,110 @@ package searchengine.services;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import searchengine.concurrency.implementation.ForkJoinPoolManager;
-import searchengine.concurrency.tasks.ContentExtractorAction;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import searchengine.concurrency.jobs.IndexingJob;
+import searchengine.concurrency.jobs.SiteIndexingJob;
 import searchengine.config.SiteProps;
 import searchengine.config.SitesList;
+import searchengine.dto.indexing.FetchedPage;
+import searchengine.dto.indexing.SitemapEntry;
 import searchengine.dto.request.UrlDto;
+import searchengine.dto.request.UrlListDto;
+import searchengine.dto.response.implementation.indexing.BatchIndexingResponse;
 import searchengine.dto.response.implementation.indexing.IndexingErrorResponse;
 import searchengine.dto.response.implementation.indexing.IndexingResponse;
+import searchengine.dto.response.implementation.indexing.PageIndexingResult;
 import searchengine.dto.response.implementation.indexing.SearchResponse;
 import searchengine.dto.response.implementation.indexing.SearchResult;
+import searchengine.dto.response.implementation.indexing.SitemapRefreshResponse;
+import searchengine.dto.response.implementation.indexing.SnapshotResponse;
+import searchengine.dto.search.PageRelevance;
+import searchengine.dto.search.SearchCursor;
+import searchengine.dto.search.SearchKey;
+import searchengine.dto.search.SearchHits;
+import searchengine.dto.search.SearchTimings;
+import searchengine.exception.PageFetchException;
+import searchengine.exception.SearchOverloadedException;
+import searchengine.exception.SnapshotException;
 import searchengine.model.implementation.IndexStatus;
-import searchengine.model.implementation.Lemma;
 import searchengine.model.implementation.Page;
+import searchengine.model.implementation.PageContent;
 import searchengine.model.implementation.Site;
+import searchengine.model.projection.PageSummary;
 import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.bean.IndexGeneration;
+import searchengine.services.utils.bean.IndexSnapshotManager;
+import searchengine.services.utils.bean.IndexingJobManager;
 import searchengine.services.utils.bean.Lemmatizator;
+import searchengine.services.utils.bean.PageBatchIndexer;
+import searchengine.services.utils.bean.PageFetcher;
+import searchengine.services.utils.bean.SearchDiagnostics;
+import searchengine.services.utils.bean.SearchExecutor;
+import searchengine.services.utils.bean.SearchGate;
+import searchengine.services.utils.bean.SiteGenerationManager;
+import searchengine.services.utils.bean.SitemapReader;
+import searchengine.services.utils.bean.UrlCanonicalizer;
 import searchengine.services.utils.notbean.HTMLManager;
+import searchengine.services.utils.notbean.SearchEvent;
 import searchengine.services.utils.notbean.URLParser;
 
 import java.net.URL;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 public class IndexingService extends DefaultService {
 
+    private static final int MAX_BATCH_URLS = 500;
+    private static final String OUT_OF_SITES_ERROR =
+            "Данная страница находится за пределами сайтов, указанных в конфигурационном файле";
+    private static final String INVALID_URL_ERROR = "Передан некорректный адрес страницы";
     private final SitesList sitesList;
-    private final ForkJoinPoolManager forkJoinPoolManager;
     private final Lemmatizator lemmatizator;
-    private boolean isIndexing = false;
+    private final SearchExecutor searchExecutor;
+    private final IndexGeneration indexGeneration;
+    private final SiteGenerationManager siteGenerationManager;
+    private final IndexingJobManager indexingJobManager;
+    private final PageBatchIndexer pageBatchIndexer;
+    private final PageFetcher pageFetcher;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final SitemapReader sitemapReader;
+    private final SearchDiagnostics searchDiagnostics;
+    private final IndexSnapshotManager indexSnapshotManager;
+    private final SearchGate searchGate;
 
     // CONSTRUCTORS //
 
     @Autowired
     public IndexingService(SitesList sitesList, RepositoryManager repositoryManager,
-                           ForkJoinPoolManager forkJoinPoolManager, Lemmatizator lemmatizator) {
+                           Lemmatizator lemmatizator, SearchExecutor searchExecutor,
+                           IndexGeneration indexGeneration, SiteGenerationManager siteGenerationManager,
+                           IndexingJobManager indexingJobManager, PageBatchIndexer pageBatchIndexer,
+                           PageFetcher pageFetcher, UrlCanonicalizer urlCanonicalizer,
+                           SitemapReader sitemapReader, SearchDiagnostics searchDiagnostics,
+                           IndexSnapshotManager indexSnapshotManager, SearchGate searchGate) {
         super(repositoryManager);
         this.sitesList = sitesList;
-        this.forkJoinPoolManager = forkJoinPoolManager;
         this.lemmatizator = lemmatizator;
+        this.searchExecutor = searchExecutor;
+        this.indexGeneration = indexGeneration;
+        this.siteGenerationManager = siteGenerationManager;
+        this.indexingJobManager = indexingJobManager;
+        this.pageBatchIndexer = pageBatchIndexer;
+        this.pageFetcher = pageFetcher;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.sitemapReader = sitemapReader;
+        this.searchDiagnostics = searchDiagnostics;
+        this.indexSnapshotManager = indexSnapshotManager;
+        this.searchGate = searchGate;
     }
 
     // API METHODS //
@@ -58,63 +113,62 @@ public class IndexingService extends DefaultService {
     public ResponseEntity<IndexingResponse> startIndexing() {
         LOGGER.info("Вызван запуск полной индексации");
 
-        if (isIndexing) {
-            return getFailedResponse(new IndexingErrorResponse("Индексация уже запущена"));
-        }
+        return indexingJobManager.start(sitesList.getSites())
+                .<ResponseEntity<IndexingResponse>>map(job -> getSuccessResponse(indexingJobManager.getProgress(job)))
+                .orElseGet(() -> getFailedResponse(new IndexingErrorResponse("Индексация уже запущена")));
+    }
 
-        isIndexing = true;
-        repositoryManager.getSiteRepository().deleteAll();
-        repositoryManager.getPageRepository().deleteAll();
-        repositoryManager.getLemmaRepository().deleteAll();
-        repositoryManager.getIndexRepository().deleteAll();
 
-        AtomicInteger errorsCount = new AtomicInteger();
-        List<Runnable> tasks = new ArrayList<>();
+    public ResponseEntity<IndexingResponse> stopIndexing() {
+        LOGGER.info("Вызвана остановка индексации");
 
-        sitesList.getSites().forEach(site -> tasks.add(() -> {
-            Site siteEntity = mapSiteEntityFromSiteList(site);
-            ContentExtractorAction action =
-                    new ContentExtractorAction(repositoryManager, siteEntity.getUrl(), lemmatizator);
+        if (!indexingJobManager.isIndexing()) {
+            return getFailedResponse(new IndexingErrorResponse("Индексация не запущена"));
+        }
 
-            if (hasErrorsDuringInvocation(action, siteEntity)) {
-                errorsCount.getAndIncrement();
-                return;
-            }
+        indexingJobManager.getCurrentJob().ifPresent(job ->
+                job.getSiteJobs().forEach(SiteIndexingJob::cancel)
+        );
 
-            siteEntity.setIndexStatus(IndexStatus.INDEXED);
-            repositoryManager.executeTransaction(() ->
-                    repositoryManager.getSiteRepository().save(siteEntity)
-            );
-        }));
+        return getSuccessResponse(new IndexingResponse(true));
+    }
 
-        forkJoinPoolManager.executeAwait(tasks);
-        isIndexing = false;
 
-        if (errorsCount.get() != 0) {
-            return getFailedResponse(
-                    new IndexingErrorResponse("Индексация закончена с ошибкой на " + errorsCount.get() + " сайтах")
-            );
-        }
+    public ResponseEntity<IndexingResponse> getIndexingJob(String jobId) {
+        return indexingJobManager.getJob(jobId)
+                .<ResponseEntity<IndexingResponse>>map(job -> getSuccessResponse(indexingJobManager.getProgress(job)))
+                .orElseGet(() -> getFailedResponse(new IndexingErrorResponse("Задача индексации не найдена")));
+    }
 
-        return getSuccessResponse(new IndexingResponse(true));
+
+    public Optional<SseEmitter> subscribeToIndexingJob(String jobId) {
+        return indexingJobManager.getJob(jobId).map(indexingJobManager::subscribe);
     }
 
 
-    public ResponseEntity<IndexingResponse> stopIndexing() {
-        LOGGER.info("Вызвана остановка индексации");
+    /**
+     * Метод применяет действие к задачам индексации сайтов. Если site равен null, действие применяется
+     * ко всем сайтам задачи. Успешным ответ считается, если действие изменило состояние хотя бы одного сайта.
+     * @param jobId id задачи индексации
+     * @param site Базовый url сайта, либо null
+     * @param action Действие над задачей сайта, возвращающее true при смене состояния
+     * @return ResponseEntity<IndexingResponse>
+     */
+    public ResponseEntity<IndexingResponse> controlIndexingJob(String jobId, String site,
+                                                               Predicate<SiteIndexingJob> action) {
+        Optional<IndexingJob> job = indexingJobManager.getJob(jobId);
 
-        if (!isIndexing) {
-            return getFailedResponse(new IndexingErrorResponse("Индексация не запущена"));
+        if (job.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse("Задача индексации не найдена"));
         }
 
-        ContentExtractorAction.stop();
+        long changed = job.get().findSiteJobs(site).stream().filter(action).count();
 
-        repositoryManager.executeTransaction(() -> {
-            String errorMessage = "Индексация остановлена пользователем";
-            repositoryManager.getSiteRepository().updateStatusAndErrorByStatus(IndexStatus.INDEXING, IndexStatus.FAILED, errorMessage);
-        });
+        if (changed == 0) {
+            return getFailedResponse(new IndexingErrorResponse("Состояние задачи не позволяет выполнить действие"));
+        }
 
-        return getSuccessResponse(new IndexingResponse(true));
+        return getSuccessResponse(indexingJobManager.getProgress(job.get()));
     }
 
 
@@ -123,20 +177,34 @@ public class IndexingService extends DefaultService {
         Site siteEntity = getSiteEntityFromUrl(urlDto.getUrl());
 
         if (siteEntity == null) {
-            String errorMessage = "Данная страница находится за пределами сайтов, указанных в конфигурационном файле";
-            return getFailedResponse(new IndexingErrorResponse(errorMessage));
+            return getFailedResponse(new IndexingErrorResponse(OUT_OF_SITES_ERROR));
+        }
+
+        Optional<String> canonicalUrl = getCanonicalUrl(urlDto.getUrl());
+
+        if (canonicalUrl.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse(INVALID_URL_ERROR));
+        }
+
+        URL url = URLParser.mapStringToUrl(canonicalUrl.get());
+        Page newPageEntity;
+
+        try {
+            newPageEntity = pageFetcher.fetch(url, siteEntity);
+        } catch (PageFetchException e) {
+            return getFailedResponse(new IndexingErrorResponse(e.getMessage()));
         }
 
         siteEntity.setIndexStatus(IndexStatus.INDEXING);
         repositoryManager.getSiteRepository().save(siteEntity);
 
-        URL url = URLParser.mapStringToUrl(urlDto.getUrl());
         String path = URLParser.getPathFromUrl(url);
         Page pageEntity = repositoryManager.getPageRepository().findBySiteIdAndPath(siteEntity, path);
-        Page newPageEntity = HTMLManager.getPageEntity(url, repositoryManager.getSiteRepository());
+        boolean isNewPage = pageEntity == null;
 
-        if (pageEntity != null) {
+        if (!isNewPage) {
             pageEntity.setContent(newPageEntity.getContent());
+            pageEntity.setTitle(newPageEntity.getTitle());
             pageEntity.setCode(newPageEntity.getCode());
         } else {
             pageEntity = newPageEntity;
@@ -144,11 +212,11 @@ public class IndexingService extends DefaultService {
 
         Page finalPageEntity = pageEntity;
         repositoryManager.executeTransaction(() -> {
-            repositoryManager.getPageRepository().save(finalPageEntity);
-            repositoryManager.getSiteRepository().updateStatusTimeById(finalPageEntity.getId(), LocalDateTime.now());
+            repositoryManager.savePageWithContent(finalPageEntity);
+            repositoryManager.getSiteRepository().updateStatusTimeById(siteEntity.getId(), LocalDateTime.now());
         });
 
-        lemmatizator.save(pageEntity);
+        lemmatizator.save(pageEntity, isNewPage);
         siteEntity.setIndexStatus(IndexStatus.INDEXED);
 
         repositoryManager.executeTransaction(() ->
@@ -159,253 +227,412 @@ public class IndexingService extends DefaultService {
     }
 
 
-    public ResponseEntity<IndexingResponse> search(String query, String site, Integer offset, Integer limit) {
-        LOGGER.info("Вызван поиск по запросу \"{}\"", query);
+    /**
+     * Метод индексирует или переиндексирует пакет страниц. Страницы загружаются параллельно, а их леммы
+     * и индексы записываются пакетными транзакциями. В ответе возвращается результат по каждой ссылке
+     * и время этапов загрузки и записи.
+     * @param urlListDto Список ссылок страниц
+     * @return ResponseEntity<IndexingResponse>
+     */
+    public ResponseEntity<IndexingResponse> indexPages(UrlListDto urlListDto) {
+        List<String> urls = (urlListDto.getUrls() == null) ? List.of() : urlListDto.getUrls().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        LOGGER.info("Вызвана пакетная индексация {} страниц", urls.size());
 
-        if (query.isBlank()) {
-            String errorMessage = "Задан пустой поисковый запрос";
+        if (urls.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse("Не передан список страниц"));
+        }
+
+        if (urls.size() > MAX_BATCH_URLS) {
+            String errorMessage = "За один запрос можно проиндексировать не более " + MAX_BATCH_URLS + " страниц";
             return getFailedResponse(new IndexingErrorResponse(errorMessage));
         }
 
-        Site siteEntity = getSiteEntityFromUrl(site);
-        List<String> lemmas = getFilteredSearchLemmas(query, siteEntity);
+        long start = System.nanoTime();
+        Map<String, Site> pages = new LinkedHashMap<>();
+        Map<String, String> canonicalUrls = new HashMap<>();
+        Map<String, PageIndexingResult> results = new LinkedHashMap<>();
+
+        for (String url : urls) {
+            Site siteEntity = getSiteEntityFromUrl(url);
+            Optional<String> canonicalUrl = getCanonicalUrl(url);
+            String error = (siteEntity == null) ? OUT_OF_SITES_ERROR : INVALID_URL_ERROR;
+            results.put(url, new PageIndexingResult(url, false, null, error, 0));
 
-        if (lemmas.isEmpty()) {
-            return getSuccessResponse(new SearchResponse(true, 0, new ArrayList<>()));
+            if (siteEntity != null && canonicalUrl.isPresent()) {
+                pages.put(canonicalUrl.get(), siteEntity);
+                canonicalUrls.put(url, canonicalUrl.get());
+            }
         }
 
-        List<Page> pages = getPagesFromLemmasAndSite(lemmas, siteEntity);
+        List<FetchedPage> fetchedPages = pageBatchIndexer.fetch(pages);
+        long fetched = System.nanoTime();
+        pageBatchIndexer.write(fetchedPages);
+        long written = System.nanoTime();
 
-        if (pages.isEmpty()) {
-            return getSuccessResponse(new SearchResponse(true,0, new ArrayList<>()));
-        }
+        Map<String, FetchedPage> fetchedByUrl = fetchedPages.stream()
+                .collect(Collectors.toMap(FetchedPage::getUrl, page -> page));
 
-        List<SearchResult> searchResults = mapSearchResultAndSortByRelevance(pages, lemmas);
+        canonicalUrls.forEach((url, canonicalUrl) -> {
+            FetchedPage fetchedPage = fetchedByUrl.get(canonicalUrl);
+            Integer code = (fetchedPage.getPage() != null) ? fetchedPage.getPage().getCode() : null;
+            results.put(url, new PageIndexingResult(url, !fetchedPage.isFailed(), code, fetchedPage.getError(),
+                    fetchedPage.getFetchMillis()));
+        });
 
-        return getSuccessResponse(
-                new SearchResponse(true, pages.size(), searchResults.subList(offset, offset + limit))
-        );
+        BatchIndexingResponse response = new BatchIndexingResponse(true, new ArrayList<>(results.values()));
+        response.setIndexed((int) results.values().stream().filter(PageIndexingResult::isResult).count());
+        response.setFailed(results.size() - response.getIndexed());
+        response.setFetchMillis(TimeUnit.NANOSECONDS.toMillis(fetched - start));
+        response.setIndexMillis(TimeUnit.NANOSECONDS.toMillis(written - fetched));
+        response.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(written - start));
+
+        return getSuccessResponse(response);
     }
 
-    // UTILS METHODS //
 
     /**
-     * Метод является маппером DTO SearchResult из сущности Page. Так же метод ищет наивысшую
-     * релевантность и сортирует список SearchResult относительно неё.
-     * @param pagesList List сущностей Page
-     * @param lemmas List<String>
-     * @return List<SearchResult>
+     * Метод переиндексирует страницы сайта по его карте. Страница загружается, если её ещё нет в индексе,
+     * если в карте не указана дата её изменения, либо если {@code <lastmod>} новее времени последней
+     * индексации этой страницы. Страницы без сохранённого времени индексации, например загруженные
+     * из снимка, считаются изменившимися. Остальные страницы пропускаются без запросов к сайту. Страницы индексируются
+     * пакетами по MAX_BATCH_URLS.
+     * @param site Базовый url сайта из конфигурационного файла
+     * @return ResponseEntity<IndexingResponse>
      */
-    private List<SearchResult> mapSearchResultAndSortByRelevance(List<Page> pagesList,
-                                                                 List<String> lemmas) {
-        // TODO: Оптимизировать маппинг и сортировку
-        List<SearchResult> searchResults = new ArrayList<>();
+    public ResponseEntity<IndexingResponse> refreshSite(String site) {
+        LOGGER.info("Вызвана переиндексация по карте сайта {}", site);
+        Optional<SiteProps> siteProps = (site == null) ? Optional.empty() : findSiteProps(site);
 
-        for (Page page : pagesList) {
-            SearchResult searchResult = new SearchResult();
-            searchResult.setSite(page.getSiteId().getUrl());
-            searchResult.setSiteName(page.getSiteId().getName());
-            searchResult.setUri(page.getPath());
-            searchResult.setTitle(HTMLManager.getTitleFromContent(page.getContent()));
-            searchResult.setSnippet(getSnippet(page, lemmas));
-            searchResult.setRelevance(getAbsoluteRelevance(page));
-            searchResults.add(searchResult);
+        if (siteProps.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse(OUT_OF_SITES_ERROR));
         }
 
-        float highestRelevance = searchResults.stream()
-                .map(SearchResult::getRelevance)
-                .max(Float::compareTo)
-                .orElseThrow();
+        if (indexingJobManager.isIndexing()) {
+            return getFailedResponse(new IndexingErrorResponse("Индексация уже запущена"));
+        }
+
+        long start = System.nanoTime();
+        List<SitemapEntry> entries = sitemapReader.read(siteProps.get());
 
-        for (SearchResult searchResult : searchResults) {
-            float absoluteRelevance = searchResult.getRelevance();
-            searchResult.setRelevance(absoluteRelevance / highestRelevance);
+        if (entries.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse("Карта сайта не найдена или пуста"));
         }
 
-        return searchResults;
+        Site siteEntity = getSiteEntityFromUrl(siteProps.get().getUrl());
+        Map<String, Instant> indexedAt = new HashMap<>();
+        repositoryManager.getPageRepository().findIndexTimesBySiteId(siteEntity).forEach(page ->
+                indexedAt.put(page.getPath(), (page.getIndexedAt() == null)
+                        ? Instant.MIN
+                        : page.getIndexedAt().atZone(ZoneId.systemDefault()).toInstant()));
+        List<String> changedUrls = entries.stream()
+                .filter(entry -> !indexedAt.containsKey(entry.getPath()) || entry.getLastModified() == null
+                        || entry.getLastModified().isAfter(indexedAt.get(entry.getPath())))
+                .map(entry -> siteProps.get().getUrl() + entry.getPath())
+                .toList();
+
+        SitemapRefreshResponse response = new SitemapRefreshResponse(true);
+        response.setSitemapPages(entries.size());
+        response.setSkipped(entries.size() - changedUrls.size());
+
+        for (int from = 0; from < changedUrls.size(); from += MAX_BATCH_URLS) {
+            Map<String, Site> pages = new LinkedHashMap<>();
+            changedUrls.subList(from, Math.min(changedUrls.size(), from + MAX_BATCH_URLS))
+                    .forEach(url -> pages.put(url, siteEntity));
+
+            List<FetchedPage> fetchedPages = pageBatchIndexer.fetch(pages);
+            pageBatchIndexer.write(fetchedPages);
+            int failed = (int) fetchedPages.stream().filter(FetchedPage::isFailed).count();
+            response.setIndexed(response.getIndexed() + fetchedPages.size() - failed);
+            response.setFailed(response.getFailed() + failed);
+        }
+
+        response.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return getSuccessResponse(response);
     }
 
 
     /**
-     * Метод ищет сущности Page в базе данных по переданным в параметры значениям и возвращает в виде
-     * списка. Изначально метод извлекает из базы данных страницы, которые содержат самый первый
-     * элемент списка лемм. Затем при помощи цикла из списка страниц удаляются те страницы, которые не
-     * имеют в себе остальные леммы.
-     * @param lemmas Список строк лемм, предположительно отсортированный по возрастанию релевантности
-     * @param site Сущность Site
-     * @return List<Page>
+     * Метод записывает снимок активного поколения сайта в каталог снимков.
+     * @param site Базовый url сайта из конфигурационного файла
+     * @return ResponseEntity<IndexingResponse>
      */
-    private List<Page> getPagesFromLemmasAndSite(List<String> lemmas, Site site) {
-        // TODO: Оптимизировать получение страниц
-        List<Page> pages;
+    public ResponseEntity<IndexingResponse> exportSnapshot(String site) {
+        LOGGER.info("Вызван экспорт снимка индекса сайта {}", site);
+        Optional<SiteProps> siteProps = (site == null) ? Optional.empty() : findSiteProps(site);
 
-        if (site != null) {
-            pages = repositoryManager.getPageRepository().searchPagesByLemmaAndSiteId(lemmas.get(0), site);
-        } else {
-            pages = repositoryManager.getPageRepository().searchPagesByLemma(lemmas.get(0));
+        if (siteProps.isEmpty()) {
+            return getFailedResponse(new IndexingErrorResponse(OUT_OF_SITES_ERROR));
+        }
+
+        Site siteEntity = repositoryManager.getSiteRepository().findActiveByUrl(siteProps.get().getUrl());
+
+        if (siteEntity == null) {
+            return getFailedResponse(new IndexingErrorResponse("Сайт ещё не проиндексирован"));
+        }
+
+        try {
+            SnapshotResponse response = indexSnapshotManager.export(siteEntity);
+            return getSuccessResponse(response);
+        } catch (SnapshotException e) {
+            LOGGER.error(e.getMessage(), e);
+            return getFailedResponse(new IndexingErrorResponse(e.getMessage()));
         }
+    }
+
 
-        for (int i = 1; i < lemmas.size(); i++) {
-            String currentLemma = lemmas.get(i);
-            pages.removeIf(currentPage -> !currentPage.getContent().contains(currentLemma));
+    /**
+     * Метод загружает снимок из каталога снимков в новое поколение сайта, которое после загрузки
+     * становится активным. Во время индексации загрузка снимков недоступна.
+     * @param file Имя файла снимка в каталоге снимков
+     * @return ResponseEntity<IndexingResponse>
+     */
+    public ResponseEntity<IndexingResponse> importSnapshot(String file) {
+        LOGGER.info("Вызвана загрузка снимка индекса {}", file);
+
+        if (indexingJobManager.isIndexing()) {
+            return getFailedResponse(new IndexingErrorResponse("Индексация уже запущена"));
         }
 
-        return pages;
+        try {
+            SnapshotResponse response = indexSnapshotManager.importSnapshot(file);
+            return getSuccessResponse(response);
+        } catch (SnapshotException e) {
+            LOGGER.error(e.getMessage(), e);
+            return getFailedResponse(new IndexingErrorResponse(e.getMessage()));
+        }
     }
 
 
     /**
-     * Метод получает список лемм из переданного в параметры поискового запроса и ищет в базе данных
-     * сущности данных лемм, если site == null, то леммы ищутся на всех страницах. Полученный список
-     * очищается от возможных null-значений, затем и от лемм, которые встречаются на слишком большом
-     * количестве страниц. Список сортируется в порядке увеличения частоты встречаемости, очищается
-     * от повторов и возвращается в виде List.
-     * @param query Строка поискового запроса
-     * @param site Сущность Site
-     * @return List<String>
+     * Метод выполняет поиск и записывает время его этапов: событие JFR для каждого запроса и запись
+     * в журнал медленных запросов, если запрос выполнялся дольше порога. При debug = true разбивка
+     * времени возвращается в поле debug ответа.
+     * @param query Поисковый запрос
+     * @param site Базовый url сайта, либо null для поиска по всем сайтам
+     * @param offset Сдвиг от начала выдачи, не используется при переданном курсоре
+     * @param limit Количество результатов
+     * @param cursorValue Курсор продолжения выдачи, либо null
+     * @param debug true, если в ответ нужно добавить разбивку времени по этапам
+     * @return ResponseEntity<IndexingResponse>
      */
-    private List<String> getFilteredSearchLemmas(String query, Site site) {
-        long threshold = (long) (repositoryManager.getLemmaRepository().findMaxFrequency() * 0.9);
-
-        return lemmatizator.collectLemmas(query).keySet().stream()
-                .flatMap(lemma -> (site == null)
-                        ? repositoryManager.getLemmaRepository().findByLemma(lemma).stream()
-                        : Stream.of(repositoryManager.getLemmaRepository().findByLemmaAndSiteId(lemma, site))
-                )
-                .filter(Objects::nonNull)
-                .filter(lemmaEntity -> lemmaEntity.getFrequency() <= threshold)
-                .sorted(Comparator.comparingLong(Lemma::getFrequency))
-                .map(Lemma::getLemma).distinct().collect(Collectors.toList());
+    public ResponseEntity<IndexingResponse> search(String query, String site, Integer offset, Integer limit,
+                                                   String cursorValue, boolean debug) {
+        SearchEvent event = searchDiagnostics.begin();
+        SearchTimings timings = new SearchTimings();
+        ResponseEntity<IndexingResponse> response = search(query, site, offset, limit, cursorValue, debug, timings);
+        timings.finish();
+
+        if (response.getBody() instanceof SearchResponse searchResponse) {
+            searchDiagnostics.record(event, query, site, searchResponse.getCount(), timings);
+
+            if (debug) {
+                searchResponse.setDebug(searchDiagnostics.toDebug(timings));
+            }
+        }
+
+        return response;
     }
 
+    // UTILS METHODS //
 
-    private String getSnippet(Page page, List<String> lemmas) {
-        Document doc = Jsoup.parse(page.getContent());
-        List<Element> elements = new ArrayList<>();
+    private ResponseEntity<IndexingResponse> search(String query, String site, Integer offset, Integer limit,
+                                                    String cursorValue, boolean debug, SearchTimings timings) {
+        LOGGER.info("Вызван поиск по запросу \"{}\"", query);
 
-        for (String lemma : lemmas) {
-            elements = doc.body().getElementsContainingOwnText(lemma);
+        if (query.isBlank()) {
+            String errorMessage = "Задан пустой поисковый запрос";
+            return getFailedResponse(new IndexingErrorResponse(errorMessage));
+        }
 
-            if (!elements.isEmpty()) {
-                break;
+        SearchCursor cursor = null;
+
+        if (cursorValue != null) {
+            try {
+                cursor = SearchCursor.decode(cursorValue);
+            } catch (IllegalArgumentException e) {
+                return getFailedResponse(new IndexingErrorResponse("Передан некорректный курсор"));
             }
-        }
 
-        if (elements.isEmpty()) {
-            return "";
+            if (cursor.getGeneration() != indexGeneration.current()) {
+                return getFailedResponse(new IndexingErrorResponse("Индекс изменился, повторите поиск с первой страницы"));
+            }
         }
 
-        for (String currentLemma : lemmas) {
-            Iterator<Element> iterator = elements.iterator();
+        long generation = indexGeneration.current();
+        List<String> lemmas = timings.time(SearchTimings.LEMMATIZE, () ->
+                new ArrayList<>(lemmatizator.collectLemmas(query).keySet()));
+        SearchKey key = debug ? null : new SearchKey(
+                lemmas.stream().sorted().toList(), site, (cursor == null) ? offset : 0, limit, cursorValue, generation);
+        SearchCursor searchCursor = cursor;
 
-            while (iterator.hasNext()) {
-                Element el = iterator.next();
+        boolean[] computed = new boolean[1];
 
-                if (elements.size() == 1) {
-                    break;
-                }
+        try {
+            ResponseEntity<IndexingResponse> response = searchGate.execute(key, () -> {
+                computed[0] = true;
+                return findPages(lemmas, site, offset, limit, searchCursor, generation, timings);
+            });
 
-                if (!el.text().contains(currentLemma)) {
-                    iterator.remove();
-                }
+            if (!computed[0]) {
+                timings.markCoalesced();
             }
+
+            return response;
+        } catch (SearchOverloadedException e) {
+            LOGGER.warn("Поиск по запросу \"{}\" отклонён: {}", query, e.getMessage());
+            return getUnavailableResponse(new IndexingErrorResponse(e.getMessage()), searchGate.getRetryAfterSeconds());
         }
+    }
 
-        String resultText = elements.get(0).text();
 
-        for (String lemma : lemmas) {
-            Pattern pattern = Pattern.compile(lemma, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(resultText);
-            resultText = matcher.replaceAll("<b>$0</b>");
+    /**
+     * Метод находит страницы по леммам запроса и строит выдачу. Вызывается через {@link SearchGate},
+     * поэтому одна выдача может быть возвращена нескольким одинаковым одновременным запросам.
+     * @param lemmas Леммы поискового запроса
+     * @param site Базовый url сайта, либо null для поиска по всем сайтам
+     * @param offset Сдвиг от начала выдачи, не используется при переданном курсоре
+     * @param limit Количество результатов
+     * @param cursor Курсор продолжения выдачи, либо null
+     * @param generation Поколение индекса, на котором начат поиск
+     * @param timings Время этапов запроса
+     * @return ResponseEntity<IndexingResponse>
+     */
+    private ResponseEntity<IndexingResponse> findPages(List<String> lemmas, String site, Integer offset, Integer limit,
+                                                       SearchCursor cursor, long generation, SearchTimings timings) {
+        List<Site> sites = timings.time(SearchTimings.SITE_LOOKUP, () -> {
+            Site siteEntity = getSiteEntityFromUrl(site);
+            return (siteEntity != null)
+                    ? List.of(siteEntity)
+                    : repositoryManager.executeRead(() -> repositoryManager.getSiteRepository().findAllByActiveTrue());
+        });
+        timings.setLemmas(lemmas.size());
+        timings.setSites(sites.size());
+
+        int from = (cursor == null) ? offset : 0;
+        PageRelevance after = (cursor == null) ? null : cursor.getLastHit();
+        SearchHits searchHits = searchExecutor.execute(lemmas, sites, from + limit + 1, after, timings);
+        List<PageRelevance> hits = searchHits.getHits();
+        long count = (cursor == null) ? searchHits.getCount() : cursor.getCount();
+
+        if (hits.size() <= from) {
+            SearchResponse response = new SearchResponse(true, count, new ArrayList<>());
+            setFailedShards(response, searchHits);
+            return getSuccessResponse(response);
         }
 
-        if (resultText.length() > 200) {
-            resultText = resultText.substring(0, 197) + "...";
+        float highestRelevance = (cursor == null) ? hits.get(0).getRelevance() : cursor.getHighestRelevance();
+        List<PageRelevance> window = hits.subList(from, Math.min(hits.size(), from + limit));
+        List<SearchResult> searchResults =
+                repositoryManager.executeRead(() -> mapSearchResults(window, highestRelevance, lemmas, timings));
+        SearchResponse response = new SearchResponse(true, count, searchResults);
+        setFailedShards(response, searchHits);
+
+        if (hits.size() > from + limit) {
+            PageRelevance lastHit = window.get(window.size() - 1);
+            response.setNextCursor(
+                    new SearchCursor(generation, highestRelevance, lastHit.getRelevance(), lastHit.getPageId(), count)
+                            .encode()
+            );
         }
 
-        return resultText;
+        return getSuccessResponse(response);
     }
 
 
     /**
-     * Метод получает абсолютную релевантность - сумму всех rank всех найденных на странице лемм
-     * и возвращает данное значение.
-     * @param page Сущность Page
-     * @return float
+     * Метод помечает выдачу как неполную, если поиск по части сайтов не уложился во время или был
+     * отклонён: количество найденных страниц в таком ответе меньше действительного.
      */
-    private float getAbsoluteRelevance(Page page) {
-        return repositoryManager.getPageRepository().getRankSumForPage(page);
+    private static void setFailedShards(SearchResponse response, SearchHits searchHits) {
+        response.setFailedShards(searchHits.getFailedShards());
+        response.setPartial(searchHits.getFailedShards() > 0);
     }
 
 
     /**
-     * Метод является маппером из SiteProps в Site.
-     * @param site Сущность SiteProps
-     * @return Site
+     * Метод является маппером DTO SearchResult из найденных страниц. Для переданного окна выдачи
+     * из базы данных загружаются облегчённые представления страниц и, одним запросом, их HTML-контент,
+     * который нужен только для построения сниппетов. Релевантность нормируется относительно
+     * наивысшей релевантности по всем сайтам. Порядок переданного списка сохраняется.
+     * @param hits Отсортированный по релевантности список страниц
+     * @param highestRelevance Наивысшая абсолютная релевантность выдачи
+     * @param lemmas Леммы поискового запроса
+     * @param timings Время этапов запроса
+     * @return List<SearchResult>
      */
-    private Site mapSiteEntityFromSiteList(SiteProps site) {
-        Site siteEntity = new Site();
-        siteEntity.setUrl(site.getUrl());
-        siteEntity.setName(site.getName());
-        siteEntity.setIndexStatus(IndexStatus.INDEXING);
-        siteEntity.setLastError("");
-        siteEntity.setStatusTime(LocalDateTime.now());
-        repositoryManager.getSiteRepository().save(siteEntity);
-        return siteEntity;
+    private List<SearchResult> mapSearchResults(List<PageRelevance> hits, float highestRelevance,
+                                                List<String> lemmas, SearchTimings timings) {
+        List<Long> pageIds = hits.stream().map(PageRelevance::getPageId).toList();
+        long retrievalStart = System.nanoTime();
+        Map<Long, PageSummary> pages = repositoryManager.getPageRepository().findSummariesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(PageSummary::getId, page -> page));
+        Map<Long, String> contents = repositoryManager.getPageContentRepository().findAllByPageIdIn(pageIds).stream()
+                .collect(Collectors.toMap(content -> content.getPageId().getId(), PageContent::getContent));
+        timings.add(SearchTimings.PAGE_RETRIEVAL, System.nanoTime() - retrievalStart);
+        long snippetsStart = System.nanoTime();
+        List<SearchResult> searchResults = new ArrayList<>();
+
+        for (PageRelevance hit : hits) {
+            PageSummary page = pages.get(hit.getPageId());
+
+            if (page == null) {
+                continue;
+            }
+
+            Document doc = Jsoup.parse(contents.getOrDefault(hit.getPageId(), ""));
+            SearchResult searchResult = new SearchResult();
+            searchResult.setSite(page.getSiteUrl());
+            searchResult.setSiteName(page.getSiteName());
+            searchResult.setUri(page.getPath());
+            searchResult.setTitle((page.getTitle() != null) ? page.getTitle() : doc.title());
+            searchResult.setSnippet(HTMLManager.getSnippet(doc, lemmas));
+            searchResult.setRelevance(hit.getRelevance() / highestRelevance);
+            searchResults.add(searchResult);
+        }
+
+        timings.add(SearchTimings.SNIPPETS, System.nanoTime() - snippetsStart);
+        return searchResults;
     }
 
 
     /**
      * Метод принимает строку ссылки в параметры и проверяет наличие данной ссылки в конфигурационном
-     * файле. При наличии файла, метод получает данный сайт из базы данных и возвращает его. При отсутствии
-     * сайта в базе данных создаётся новый сайт, сохраняется в базе и возвращается. Если в парметры был
+     * файле. При наличии файла, метод получает активное поколение данного сайта из базы данных и возвращает
+     * его. При отсутствии активного поколения создаётся новое, сохраняется в базе и возвращается. Если в парметры был
      * передан null, метод вернёт null.
      * @param url Базовый URL сайта
      * @return Site
      */
     private Site getSiteEntityFromUrl(String url) {
-        Site siteEntity = null;
-
         if (url == null) {
             return null;
         }
 
-        for (SiteProps site : sitesList.getSites()) {
-
-            if (url.startsWith(site.getUrl())) {
-                Site foundedSite = repositoryManager.getSiteRepository().findByUrl(site.getUrl());
-
-                if (foundedSite == null) {
-                    Site finalFoundedSite = mapSiteEntityFromSiteList(site);
-                    repositoryManager.executeTransaction(() ->
-                            repositoryManager.getSiteRepository().save(finalFoundedSite)
-                    );
-                    foundedSite = finalFoundedSite;
-                }
-
-                siteEntity = foundedSite;
-            }
-        }
-
-        return siteEntity;
+        return findSiteProps(url).map(site -> {
+            Site foundedSite = repositoryManager.getSiteRepository().findActiveByUrl(site.getUrl());
+            return (foundedSite != null) ? foundedSite : siteGenerationManager.createActiveGeneration(site);
+        }).orElse(null);
     }
 
 
     /**
-     * Метод выполняет переданную в него рекурсивную задачу и возвращает true если задача
-     * завершилась с ошибками, в противном случае возвращает false.
-     * @param action Рекурсивная задача
-     * @param siteEntity Сущность Site
-     * @return boolean
+     * Метод приводит ссылку на страницу сайта из конфигурационного файла к каноническому виду.
+     * @param url Ссылка на страницу
+     * @return Optional канонической абсолютной ссылки, пустой, если ссылка не относится к сайтам
      */
-    private static boolean hasErrorsDuringInvocation(RecursiveAction action, Site siteEntity) {
-        try {
-            action.invoke();
-            return false;
-        } catch (Exception e) {
-            LOGGER.error("Ошибка во время индексации сайта {}: {}", siteEntity.getUrl(), e.getMessage(), e);
-            siteEntity.setIndexStatus(IndexStatus.FAILED);
-            return true;
-        }
+    private Optional<String> getCanonicalUrl(String url) {
+        return findSiteProps(url).flatMap(site ->
+                urlCanonicalizer.canonicalize(site, url).map(path -> site.getUrl() + path)
+        );
+    }
+
+
+    private Optional<SiteProps> findSiteProps(String url) {
+        return sitesList.getSites().stream()
+                .filter(site -> url.startsWith(site.getUrl()))
+                .reduce((first, second) -> second);
     }
 }
@@ -2,39 +2,93 @@ package searchengine.services;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import searchengine.concurrency.implementation.ForkJoinPoolManager;
+import searchengine.concurrency.implementation.ThreadPoolManager;
 import searchengine.config.SiteProps;
 import searchengine.config.SitesList;
+import searchengine.dto.response.implementation.statistics.ConcurrencyResponse;
 import searchengine.dto.response.implementation.statistics.DetailedStatisticsItem;
+import searchengine.dto.response.implementation.statistics.PoolStatistics;
 import searchengine.dto.response.implementation.statistics.StatisticsData;
 import searchengine.dto.response.implementation.statistics.StatisticsResponse;
 import searchengine.dto.response.implementation.statistics.TotalStatistics;
-import searchengine.model.implementation.Site;
+import searchengine.model.projection.SiteStatisticsSummary;
 import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.bean.HttpCacheValidator;
+import searchengine.services.utils.bean.IndexingJobManager;
 
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class StatisticsService extends DefaultService {
     private final SitesList sites;
+    private final HttpCacheValidator httpCacheValidator;
+    private final IndexingJobManager indexingJobManager;
+    private final ForkJoinPoolManager forkJoinPoolManager;
+    private final ThreadPoolManager threadPoolManager;
 
 
-    public StatisticsService(RepositoryManager repositoryManager, SitesList sites) {
+    public StatisticsService(RepositoryManager repositoryManager, SitesList sites, HttpCacheValidator httpCacheValidator,
+                             IndexingJobManager indexingJobManager, ForkJoinPoolManager forkJoinPoolManager,
+                             ThreadPoolManager threadPoolManager) {
         super(repositoryManager);
         this.sites = sites;
+        this.httpCacheValidator = httpCacheValidator;
+        this.indexingJobManager = indexingJobManager;
+        this.forkJoinPoolManager = forkJoinPoolManager;
+        this.threadPoolManager = threadPoolManager;
     }
 
 
-    public ResponseEntity<StatisticsResponse> getStatistics() {
+    /**
+     * Метод возвращает статистику индексации. Ответ и его ETag строятся по одним и тем же строкам,
+     * прочитанным одним запросом из базы данных, поэтому ETag совпадает на всех узлах кластера,
+     * пока не изменятся данные, попадающие в ответ.
+     * @param ifNoneMatch Значение заголовка If-None-Match, либо null
+     * @return ResponseEntity<StatisticsResponse>
+     */
+    public ResponseEntity<StatisticsResponse> getStatistics(String ifNoneMatch) {
+        boolean isIndexing = indexingJobManager.isIndexing();
+        Map<String, SiteStatisticsSummary> summaries = new HashMap<>();
+
+        repositoryManager.executeRead(() -> repositoryManager.getSiteRepository().findLatestGenerationSummaries())
+                .forEach(summary -> summaries.put(summary.getUrl(), summary));
+
+        String eTag = httpCacheValidator.getStatisticsTag(getVersion(summaries), isIndexing);
+        return httpCacheValidator.respond(ifNoneMatch, eTag, () -> buildStatistics(summaries, isIndexing));
+    }
+
+
+    /**
+     * Метод возвращает текущую загрузку пулов потоков: количество занятых потоков, заполненность
+     * очередей и количество задач, не поместившихся в очередь.
+     * @return ResponseEntity<ConcurrencyResponse>
+     */
+    public ResponseEntity<ConcurrencyResponse> getConcurrencyStatistics() {
+        List<PoolStatistics> pools = new ArrayList<>();
+        pools.add(forkJoinPoolManager.getStatistics());
+        pools.addAll(threadPoolManager.getStatistics());
+
+        return getSuccessResponse(new ConcurrencyResponse(true, pools));
+    }
+
+    // UTILS METHODS //
+
+    private ResponseEntity<StatisticsResponse> buildStatistics(Map<String, SiteStatisticsSummary> summaries,
+                                                               boolean isIndexing) {
         TotalStatistics total = new TotalStatistics();
         total.setSites(sites.getSites().size());
-        total.setIndexing(true);
+        total.setIndexing(isIndexing);
 
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
-        List<SiteProps> sitesList = sites.getSites();
 
-        for (SiteProps siteProps : sitesList) {
-            Site siteEntity = repositoryManager.getSiteRepository().findByUrl(siteProps.getUrl());
+        for (SiteProps siteProps : sites.getSites()) {
+            SiteStatisticsSummary summary = summaries.get(siteProps.getUrl());
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             int pages;
             int lemmas;
@@ -42,19 +96,12 @@ public class StatisticsService extends DefaultService {
             String error;
             long statusTime;
 
-            if (!(siteEntity == null)) {
-                pages = (int) repositoryManager.getPageRepository().countPagesBySiteUrl(siteProps.getUrl());
-                Long lemmasCount = repositoryManager.getLemmaRepository().countLemmasBySiteUrl(siteProps.getUrl());
-
-                if (lemmasCount != null) {
-                    lemmas = lemmasCount.intValue();
-                } else {
-                    lemmas = 0;
-                }
-
-                status = siteEntity.getIndexStatus().name();
-                error = siteEntity.getLastError();
-                statusTime = siteEntity.getStatusTime().toInstant(java.time.ZoneOffset.UTC).toEpochMilli();
+            if (!(summary == null)) {
+                pages = summary.getPagesCount().intValue();
+                lemmas = summary.getTermsCount().intValue();
+                status = summary.getIndexStatus().name();
+                error = summary.getLastError();
+                statusTime = summary.getStatusTime().toInstant(ZoneOffset.UTC).toEpochMilli();
 
             } else {
                 pages = 0;
@@ -85,4 +132,31 @@ public class StatisticsService extends DefaultService {
         response.setResult(true);
         return getSuccessResponse(response);
     }
+
+
+    /**
+     * Метод вычисляет версию данных статистики по сайтам из конфигурации. Используются только
+     * хэш-коды строк, чисел и дат, которые не зависят от JVM, поэтому версия одинакова на всех узлах.
+     */
+    private long getVersion(Map<String, SiteStatisticsSummary> summaries) {
+        long version = 1;
+
+        for (SiteProps siteProps : sites.getSites()) {
+            SiteStatisticsSummary summary = summaries.get(siteProps.getUrl());
+            version = 31 * version + siteProps.getUrl().hashCode();
+
+            if (summary == null) {
+                continue;
+            }
+
+            version = 31 * version + summary.getGeneration();
+            version = 31 * version + summary.getIndexStatus().name().hashCode();
+            version = 31 * version + Objects.hashCode(summary.getLastError());
+            version = 31 * version + summary.getStatusTime().hashCode();
+            version = 31 * version + summary.getPagesCount();
+            version = 31 * version + summary.getTermsCount();
+        }
+
+        return version;
+    }
 }
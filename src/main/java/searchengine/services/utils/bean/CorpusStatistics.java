@@ -0,0 +1,214 @@
+package searchengine.services.utils.bean;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import searchengine.dto.statistics.StatisticsDelta;
+import searchengine.model.implementation.Site;
+import searchengine.model.implementation.SiteStatistics;
+import searchengine.repository.RepositoryManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Статистика корпуса по сайтам: количество страниц, лемм, суммарное количество слов и наибольшая
+ * частота леммы. Статистика хранится в таблице site_statistics и дублируется в памяти, поэтому
+ * чтение не требует запросов к базе данных. Изменения вносятся при индексации страниц
+ * одним UPDATE в рамках транзакции. Статистика хранится для всех поколений сайтов, но наибольшая
+ * частота леммы считается только по активным поколениям, по которым идёт поиск.
+ */
+@Component
+public class CorpusStatistics {
+
+    private final RepositoryManager repositoryManager;
+    private final Map<Long, SiteStatistics> statisticsBySiteId = new ConcurrentHashMap<>();
+    private final Set<Long> activeSiteIds = ConcurrentHashMap.newKeySet();
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public CorpusStatistics(RepositoryManager repositoryManager) {
+        this.repositoryManager = repositoryManager;
+    }
+
+
+    /**
+     * Метод перечитывает статистику всех поколений из базы данных и заменяет ею статистику в памяти:
+     * статистика удалённых поколений убирается, а признак активности берётся из базы данных.
+     */
+    @PostConstruct
+    public void load() {
+        Map<Long, SiteStatistics> loaded = new HashMap<>();
+        Set<Long> active = new HashSet<>();
+
+        for (SiteStatistics statistics : repositoryManager.getSiteStatisticsRepository().findAll()) {
+            loaded.put(statistics.getSiteId().getId(), statistics);
+
+            if (Boolean.TRUE.equals(statistics.getSiteId().getActive())) {
+                active.add(statistics.getSiteId().getId());
+            }
+        }
+
+        statisticsBySiteId.keySet().retainAll(loaded.keySet());
+        statisticsBySiteId.putAll(loaded);
+        activeSiteIds.retainAll(active);
+        activeSiteIds.addAll(active);
+    }
+
+    // METHODS //
+
+    /**
+     * Метод применяет накопленное изменение к статистике сайта: сначала в базе данных, затем в памяти.
+     * Наибольшая частота только растёт, поэтому после удаления лемм она является оценкой сверху.
+     * @param site Сущность сайта
+     * @param delta Изменение статистики
+     */
+    public void apply(Site site, StatisticsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        SiteStatistics statistics = getOrCreate(site);
+
+        synchronized (statistics) {
+            repositoryManager.executeTransaction(() ->
+                    repositoryManager.getSiteStatisticsRepository().applyDelta(statistics.getId(),
+                            delta.getPages(), delta.getLemmas(), delta.getTerms(), delta.getMaxFrequency())
+            );
+
+            statistics.setPagesCount(statistics.getPagesCount() + delta.getPages());
+            statistics.setLemmasCount(statistics.getLemmasCount() + delta.getLemmas());
+            statistics.setTermsCount(statistics.getTermsCount() + delta.getTerms());
+            statistics.setMaxFrequency(Math.max(statistics.getMaxFrequency(), delta.getMaxFrequency()));
+        }
+    }
+
+
+    /**
+     * Метод убирает из памяти статистику удалённого поколения сайта. Строка в базе данных
+     * удаляется каскадно вместе с записью сайта.
+     * @param siteId id записи сайта
+     */
+    public void remove(Long siteId) {
+        statisticsBySiteId.remove(siteId);
+        activeSiteIds.remove(siteId);
+    }
+
+
+    public long getPagesCount(Site site) {
+        SiteStatistics statistics = statisticsBySiteId.get(site.getId());
+
+        if (statistics == null) {
+            return 0;
+        }
+
+        synchronized (statistics) {
+            return statistics.getPagesCount();
+        }
+    }
+
+
+    public long getLemmasCount(Site site) {
+        SiteStatistics statistics = statisticsBySiteId.get(site.getId());
+
+        if (statistics == null) {
+            return 0;
+        }
+
+        synchronized (statistics) {
+            return statistics.getLemmasCount();
+        }
+    }
+
+
+    public long getTermsCount(Site site) {
+        SiteStatistics statistics = statisticsBySiteId.get(site.getId());
+
+        if (statistics == null) {
+            return 0;
+        }
+
+        synchronized (statistics) {
+            return statistics.getTermsCount();
+        }
+    }
+
+
+    /**
+     * Метод возвращает наибольшую частоту леммы среди активных поколений сайтов.
+     * @return long
+     */
+    public long getMaxFrequency() {
+        long maxFrequency = 0;
+
+        for (Long siteId : activeSiteIds) {
+            SiteStatistics statistics = statisticsBySiteId.get(siteId);
+
+            if (statistics == null) {
+                continue;
+            }
+
+            synchronized (statistics) {
+                maxFrequency = Math.max(maxFrequency, statistics.getMaxFrequency());
+            }
+        }
+
+        return maxFrequency;
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод возвращает статистику сайта из памяти, из базы данных, если её записал другой узел
+     * кластера, либо создаёт новую. Запросы к базе данных выполняются вне карты, а в карту
+     * статистика добавляется через putIfAbsent, поэтому параллельные потоки получают один объект.
+     */
+    private SiteStatistics getOrCreate(Site site) {
+        SiteStatistics cached = statisticsBySiteId.get(site.getId());
+
+        if (cached != null) {
+            return cached;
+        }
+
+        SiteStatistics statistics = repositoryManager.getSiteStatisticsRepository().findBySiteId(site);
+
+        if (statistics == null) {
+            statistics = create(site);
+        }
+
+        if (Boolean.TRUE.equals(site.getActive())) {
+            activeSiteIds.add(site.getId());
+        }
+
+        SiteStatistics previous = statisticsBySiteId.putIfAbsent(site.getId(), statistics);
+        return (previous != null) ? previous : statistics;
+    }
+
+
+    /**
+     * Метод создаёт строку статистики сайта. Если её одновременно создал другой поток или узел,
+     * уникальный ключ site_id не даст создать вторую, и возвращается уже записанная строка.
+     */
+    private SiteStatistics create(Site site) {
+        SiteStatistics statistics = new SiteStatistics();
+        statistics.setSiteId(site);
+        statistics.setPagesCount(0L);
+        statistics.setLemmasCount(0L);
+        statistics.setMaxFrequency(0L);
+        statistics.setTermsCount(0L);
+
+        try {
+            repositoryManager.executeTransaction(() ->
+                    repositoryManager.getSiteStatisticsRepository().save(statistics)
+            );
+            return statistics;
+        } catch (DataIntegrityViolationException e) {
+            return repositoryManager.getSiteStatisticsRepository().findBySiteId(site);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package searchengine.services.utils.bean;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.jobs.SiteIndexingJob;
+import searchengine.config.ClusterSettings;
+import searchengine.config.SiteProps;
+import searchengine.model.implementation.CrawlLease;
+import searchengine.model.implementation.LeaseState;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.repository.implementation.CrawlLeaseRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аренды обхода сайтов в общей базе данных. Задача индексации публикует аренды своих сайтов,
+ * каждый узел захватывает свободные аренды условным UPDATE, поэтому сайт обходит только один узел.
+ * Захваченные аренды продлеваются по расписанию. Если продлить аренду не удалось, потому что её
+ * уже захватил другой узел, задача сайта на этом узле отменяется. Аренда узла, который перестал
+ * её продлевать, истекает, и её может захватить любой другой узел.
+ */
+@Component
+public class CrawlLeaseManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrawlLeaseManager.class);
+    private final ClusterSettings settings;
+    private final CrawlLeaseRepository leaseRepository;
+    private final String nodeId;
+    private final Map<String, SiteIndexingJob> heldLeases = new ConcurrentHashMap<>();
+    private final Set<String> lostLeases = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "crawl-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public CrawlLeaseManager(ClusterSettings settings, RepositoryManager repositoryManager) {
+        this.settings = settings;
+        this.leaseRepository = repositoryManager.getCrawlLeaseRepository();
+        this.nodeId = (settings.getNodeId() != null)
+                ? settings.getNodeId()
+                : ManagementFactory.getRuntimeMXBean().getName();
+
+        if (settings.isEnabled()) {
+            heartbeatScheduler.scheduleAtFixedRate(this::renewLeases, settings.getHeartbeatIntervalMillis(),
+                    settings.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+            LOGGER.info("Совместный обход включён, узел {}", nodeId);
+        }
+    }
+
+    // METHODS //
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+
+    public long getPollIntervalMillis() {
+        return settings.getPollIntervalMillis();
+    }
+
+
+    /**
+     * Метод публикует аренды сайтов задачи индексации в состоянии PENDING. Аренда сайта, который
+     * прямо сейчас обходит живой узел, не переопубликовывается: задача сайта на этом узле дождётся
+     * завершения чужого обхода.
+     * @param jobId id задачи индексации
+     * @param sites Сайты задачи
+     */
+    public void publish(String jobId, List<SiteProps> sites) {
+        for (SiteProps site : sites) {
+            leaseRepository.insertIfAbsent(site.getUrl(), jobId);
+
+            if (leaseRepository.publish(site.getUrl(), jobId) == 0) {
+                LOGGER.info("Сайт {} уже обходит другой узел, аренда не переопубликована", site.getUrl());
+            }
+        }
+    }
+
+
+    /**
+     * Метод пытается захватить аренду сайта в рамках задачи: свободную аренду или аренду, которую
+     * её владелец перестал продлевать. Захваченная аренда продлевается, пока не будет освобождена.
+     * @param jobId id задачи индексации
+     * @param siteJob Задача индексации сайта, которая будет отменена при потере аренды
+     * @return Optional захваченной аренды. Если у аренды уже есть поколение сайта, обход нужно
+     *         продолжить в нём
+     */
+    public Optional<CrawlLease> tryAcquire(String jobId, SiteIndexingJob siteJob) {
+        String url = siteJob.getSiteProps().getUrl();
+
+        if (leaseRepository.acquire(url, jobId, nodeId, settings.getLeaseDurationMillis()) == 0) {
+            return Optional.empty();
+        }
+
+        lostLeases.remove(url);
+        heldLeases.put(url, siteJob);
+        LOGGER.info("Узел {} захватил аренду сайта {}", nodeId, url);
+        return find(url);
+    }
+
+
+    public Optional<CrawlLease> find(String url) {
+        return Optional.ofNullable(leaseRepository.findBySiteUrl(url));
+    }
+
+
+    /**
+     * Метод возвращает id задач, в которых есть свободные аренды или аренды, которые их владельцы
+     * перестали продлевать.
+     * @return List<String>
+     */
+    public List<String> findOpenJobIds() {
+        return leaseRepository.findOpenJobIds();
+    }
+
+
+    public List<String> findSiteUrls(String jobId) {
+        return leaseRepository.findSiteUrlsByJobId(jobId);
+    }
+
+
+    /**
+     * Метод записывает в аренду поколение сайта, в которое пишет обход, чтобы узел, захвативший
+     * аренду после этого узла, продолжил обход в том же поколении.
+     * @param url Базовый url сайта
+     * @param generation Поколение сайта
+     */
+    public void attachGeneration(String url, Site generation) {
+        leaseRepository.attachSite(url, nodeId, generation.getId());
+    }
+
+
+    /**
+     * Метод продлевает аренду сайта. Если аренду захватил другой узел, она считается потерянной,
+     * а задача сайта отменяется.
+     * @param url Базовый url сайта
+     * @return true, если аренда всё ещё принадлежит этому узлу
+     */
+    public boolean renew(String url) {
+        if (lostLeases.contains(url)) {
+            return false;
+        }
+
+        if (leaseRepository.renew(url, nodeId, settings.getLeaseDurationMillis()) > 0) {
+            return true;
+        }
+
+        SiteIndexingJob siteJob = heldLeases.remove(url);
+        lostLeases.add(url);
+        LOGGER.warn("Узел {} потерял аренду сайта {}", nodeId, url);
+
+        if (siteJob != null) {
+            siteJob.cancel("Аренда сайта перешла к другому узлу");
+        }
+
+        return false;
+    }
+
+
+    public boolean isLost(String url) {
+        return lostLeases.contains(url);
+    }
+
+
+    /**
+     * Метод освобождает аренду сайта с итоговым состоянием обхода.
+     * @param url Базовый url сайта
+     * @param state COMPLETED или FAILED
+     */
+    public void release(String url, LeaseState state) {
+        heldLeases.remove(url);
+        lostLeases.remove(url);
+        leaseRepository.release(url, nodeId, state.name());
+    }
+
+
+    /**
+     * При остановке приложения аренды не освобождаются, а сразу истекают: обход незавершённых сайтов
+     * подхватят другие узлы, не дожидаясь окончания срока аренды.
+     */
+    @PreDestroy
+    public void close() {
+        heartbeatScheduler.shutdownNow();
+
+        for (String url : heldLeases.keySet()) {
+            try {
+                leaseRepository.expire(url, nodeId);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Не удалось освободить аренду сайта {}: {}", url, e.getMessage());
+            }
+        }
+    }
+
+    // UTILS METHODS //
+
+    private void renewLeases() {
+        for (String url : heldLeases.keySet()) {
+            try {
+                renew(url);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Не удалось продлить аренду сайта {}: {}", url, e.getMessage());
+            }
+        }
+    }
+}
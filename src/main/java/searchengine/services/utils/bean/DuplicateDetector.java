@@ -0,0 +1,161 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.dto.indexing.DuplicateCheck;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.notbean.SimHash;
+import searchengine.services.utils.notbean.SimHashIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Компонент находит почти дубликаты страниц внутри сайта: печатные версии, страницы архивов и тегов
+ * с тем же текстом. Для каждой страницы вычисляется SimHash её лемм, и страница считается дубликатом,
+ * если у уже проиндексированной страницы того же поколения сайта хеш отличается не более чем на
+ * MAX_DISTANCE бит. Индексы хешей хранятся в памяти по сайтам и при первом обращении загружаются из базы.
+ * Если оригинал переиндексирован с другим содержимым или перестал быть оригиналом, отметка дубликата
+ * с зависящих от него страниц снимается, чтобы их можно было проиндексировать заново.
+ */
+@Component
+public class DuplicateDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateDetector.class);
+    private static final int MAX_DISTANCE = SimHashIndex.BANDS - 1;
+    private static final int MIN_LEMMAS = 20;
+    private final RepositoryManager repositoryManager;
+    private final Map<Long, SimHashIndex> indexes = new ConcurrentHashMap<>();
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public DuplicateDetector(RepositoryManager repositoryManager) {
+        this.repositoryManager = repositoryManager;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод вычисляет SimHash уже сохранённой страницы и проверяет, не является ли она почти дубликатом
+     * другой страницы сайта. Результат записывается в поля simhash и duplicateOf страницы, а уникальная
+     * страница добавляется в индекс сайта. Страницы, в которых меньше MIN_LEMMAS разных лемм, не
+     * проверяются: у коротких текстов хеши слишком часто совпадают случайно.
+     * @param page Сохранённая страница
+     * @param lemmas Леммы страницы и количество их повторений
+     * @return DuplicateCheck - признак дубликата, который не должен индексироваться, и признак
+     * изменившегося оригинала
+     */
+    public DuplicateCheck detect(Page page, Map<String, Integer> lemmas) {
+        SimHashIndex index = getIndex(page.getSiteId());
+        Optional<Long> previous = index.get(page.getId());
+        page.setDuplicateOf(null);
+
+        if (lemmas.size() < MIN_LEMMAS) {
+            page.setSimhash(null);
+            index.remove(page.getId());
+            return new DuplicateCheck(false, previous.isPresent());
+        }
+
+        long simhash = SimHash.compute(lemmas);
+        page.setSimhash(simhash);
+        Optional<Long> original = index.findNearOrPut(page.getId(), simhash, MAX_DISTANCE);
+        boolean originalChanged = previous.isPresent() && (original.isPresent() || previous.get() != simhash);
+
+        if (original.isEmpty()) {
+            return new DuplicateCheck(false, originalChanged);
+        }
+
+        page.setDuplicateOf(original.get());
+        LOGGER.debug("Страница {} сайта {} является почти дубликатом страницы {}",
+                page.getPath(), page.getSiteId().getUrl(), original.get());
+        return new DuplicateCheck(true, originalChanged);
+    }
+
+
+    /**
+     * Метод снимает отметку дубликата со всех страниц, которые были почти дубликатами переданной.
+     * Страницы читаются с блокировкой и отметка снимается в одной транзакции, поэтому возвращаются
+     * ровно те страницы, с которых она снята.
+     * @param original Страница, переставшая быть оригиналом своих дубликатов
+     * @return List страниц, которые нужно проиндексировать заново
+     */
+    public List<Page> releaseDependents(Page original) {
+        List<Page> dependents = new ArrayList<>();
+
+        repositoryManager.executeTransaction(() -> {
+            dependents.addAll(repositoryManager.getPageRepository().findAllByDuplicateOf(original.getId()));
+
+            if (!dependents.isEmpty()) {
+                repositoryManager.getPageRepository().clearDuplicateOf(original.getId());
+            }
+        });
+
+        if (!dependents.isEmpty()) {
+            dependents.forEach(dependent -> dependent.setDuplicateOf(null));
+            LOGGER.debug("Страница {} сайта {} изменилась, дубликатов для переиндексации: {}",
+                    original.getPath(), original.getSiteId().getUrl(), dependents.size());
+        }
+
+        return dependents;
+    }
+
+
+    /**
+     * Метод удаляет страницу из индекса сайта, например если транзакция, в которой она была
+     * сохранена, откатилась.
+     * @param site Сущность сайта
+     * @param pageId id страницы
+     */
+    public void forget(Site site, Long pageId) {
+        SimHashIndex index = indexes.get(site.getId());
+
+        if (index != null && pageId != null) {
+            index.remove(pageId);
+        }
+    }
+
+
+    /**
+     * Метод удаляет из памяти индекс хешей удалённого поколения сайта.
+     * @param siteId id поколения сайта
+     */
+    public void evict(Long siteId) {
+        indexes.remove(siteId);
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод возвращает индекс хешей сайта из памяти либо загружает его из базы данных. Загрузка
+     * выполняется вне карты, а в карту индекс добавляется через putIfAbsent, поэтому запрос к базе
+     * не блокирует другие сайты, а параллельные потоки получают один и тот же индекс.
+     */
+    private SimHashIndex getIndex(Site site) {
+        SimHashIndex cached = indexes.get(site.getId());
+
+        if (cached != null) {
+            return cached;
+        }
+
+        SimHashIndex index = new SimHashIndex();
+        repositoryManager.getPageRepository().findSimHashesBySiteId(site)
+                .forEach(page -> index.put(page.getId(), page.getSimhash()));
+
+        SimHashIndex previous = indexes.putIfAbsent(site.getId(), index);
+
+        if (previous != null) {
+            return previous;
+        }
+
+        LOGGER.debug("Загружен индекс SimHash сайта {}: {} страниц", site.getUrl(), index.size());
+        return index;
+    }
+}
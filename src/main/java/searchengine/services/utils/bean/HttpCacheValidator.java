@@ -0,0 +1,148 @@
+package searchengine.services.utils.bean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import searchengine.config.HttpCacheSettings;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Компонент условных HTTP-ответов. ETag ответа вычисляется до его построения по общему для всех узлов
+ * состоянию базы данных, поэтому на запрос с совпадающим If-None-Match отвечается 304 без построения
+ * ответа, а ETag одного и того же содержимого совпадает на всех узлах и после перезапуска. Результаты
+ * поиска зависят от статистики всего корпуса, поэтому их ETag берётся из общего поколения индекса,
+ * а не из поколения отдельного сайта. Поколение хранится в памяти, поэтому проверка ETag поиска
+ * не обращается к базе данных.
+ */
+@Component
+public class HttpCacheValidator {
+
+    private final HttpCacheSettings settings;
+    private final IndexGeneration indexGeneration;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public HttpCacheValidator(HttpCacheSettings settings, IndexGeneration indexGeneration) {
+        this.settings = settings;
+        this.indexGeneration = indexGeneration;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод возвращает ETag результатов поиска по поколению индекса в памяти. Поколение обновляется
+     * при каждом изменении индекса на этом узле, а в режиме кластера - также при опросе аренд.
+     * @return Строгий ETag в кавычках
+     */
+    public String getSearchTag() {
+        return "\"s" + Long.toUnsignedString(indexGeneration.current(), 36) + "\"";
+    }
+
+
+    /**
+     * Метод возвращает ETag статистики. Кроме версии данных статистики в него входит признак идущей
+     * индексации, который не хранится в базе данных.
+     * @param version Версия данных, из которых строится статистика
+     * @param isIndexing true, если идёт индексация
+     * @return Строгий ETag в кавычках
+     */
+    public String getStatisticsTag(long version, boolean isIndexing) {
+        return "\"t" + Long.toUnsignedString(version, 36) + (isIndexing ? "i" : "") + "\"";
+    }
+
+
+    /**
+     * Метод отвечает 304, если If-None-Match запроса содержит переданный ETag, иначе строит ответ
+     * и добавляет к успешному ответу ETag и Cache-Control. Ответы с ошибками не кэшируются.
+     * @param ifNoneMatch Значение заголовка If-None-Match, либо null
+     * @param eTag ETag, вычисленный до построения ответа
+     * @param handler Построение ответа
+     * @return ResponseEntity
+     */
+    public <T> ResponseEntity<T> respond(String ifNoneMatch, String eTag, Supplier<ResponseEntity<T>> handler) {
+        return respond(ifNoneMatch, eTag, handler, body -> true);
+    }
+
+
+    /**
+     * Метод работает как {@link #respond(String, String, Supplier)}, но ETag получает только полный
+     * ответ. Неполный успешный ответ, например результаты поиска без части сайтов, отдаётся
+     * с Cache-Control: no-store, чтобы клиент не закэшировал его как полный.
+     * @param ifNoneMatch Значение заголовка If-None-Match, либо null
+     * @param eTag ETag, вычисленный до построения ответа
+     * @param handler Построение ответа
+     * @param isComplete Проверка, что тело ответа полное
+     * @return ResponseEntity
+     */
+    public <T> ResponseEntity<T> respond(String ifNoneMatch, String eTag, Supplier<ResponseEntity<T>> handler,
+                                         Predicate<T> isComplete) {
+        if (!settings.isEnabled()) {
+            return handler.get();
+        }
+
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(getCacheControl())
+                    .build();
+        }
+
+        ResponseEntity<T> response = handler.get();
+
+        if (!response.getStatusCode().isSameCodeAs(HttpStatus.OK)) {
+            return response;
+        }
+
+        if (!isComplete.test(response.getBody())) {
+            return ResponseEntity.ok()
+                    .headers(response.getHeaders())
+                    .cacheControl(CacheControl.noStore())
+                    .body(response.getBody());
+        }
+
+        return ResponseEntity.ok()
+                .headers(response.getHeaders())
+                .eTag(eTag)
+                .cacheControl(getCacheControl())
+                .body(response.getBody());
+    }
+
+    // UTILS METHODS //
+
+    private CacheControl getCacheControl() {
+        return (settings.getMaxAgeSeconds() > 0)
+                ? CacheControl.maxAge(settings.getMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+    }
+
+
+    /**
+     * Метод сравнивает ETag со списком из If-None-Match. По RFC 9110 для If-None-Match используется
+     * слабое сравнение, поэтому префикс W/ не учитывается.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
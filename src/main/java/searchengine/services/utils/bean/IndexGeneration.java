@@ -0,0 +1,107 @@
+package searchengine.services.utils.bean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.config.ReadWriteRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поколение индекса. Поколение вычисляется по общему для всех узлов состоянию базы данных - id активных
+ * поколений сайтов и версиям их индекса, - поэтому совпадает на всех узлах и не меняется после перезапуска.
+ * По нему можно определить, что результаты, полученные ранее, могли устареть. Версия индекса сайта
+ * увеличивается только при записи в активное поколение: страницы, которые полный обход записывает
+ * в новое неактивное поколение, поиску не видны и поколение не меняют.
+ * <p>
+ * Вычисленное значение хранится в памяти, поэтому {@link #current()} не обращается к базе данных.
+ * Оно перечитывается из пула записи после активации поколения или записи в активное поколение
+ * на этом узле, а в режиме кластера - также из пула чтения при каждом опросе аренд, чтобы узел
+ * узнавал об изменениях, сделанных другими узлами.
+ */
+@Component
+public class IndexGeneration {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean loaded;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public IndexGeneration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // METHODS //
+
+    public long current() {
+        if (!loaded) {
+            refresh();
+        }
+
+        return generation.get();
+    }
+
+
+    /**
+     * Метод перечитывает поколение индекса из пула чтения. Используется при периодическом опросе
+     * изменений, сделанных другими узлами.
+     * @return long - текущее поколение индекса
+     */
+    public long refresh() {
+        return ReadWriteRoutingDataSource.read(this::load);
+    }
+
+
+    /**
+     * Метод перечитывает поколение индекса из пула записи. Используется после изменения индекса
+     * на этом узле, чтобы не прочитать устаревшее значение с отстающей реплики.
+     * @return long - текущее поколение индекса
+     */
+    public long refreshAfterWrite() {
+        return load();
+    }
+
+
+    /**
+     * Метод отмечает изменение индекса активного поколения сайта: увеличивает версию его индекса
+     * и перечитывает поколение. Для неактивного поколения версия не меняется.
+     * @param siteId id записи сайта
+     */
+    public void advance(Long siteId) {
+        jdbcTemplate.update("UPDATE site SET index_version = index_version + 1 WHERE id = ? AND active = TRUE",
+                siteId);
+        refreshAfterWrite();
+    }
+
+    // UTILS METHODS //
+
+    private long load() {
+        long[] hash = {FNV_OFFSET_BASIS};
+
+        jdbcTemplate.query("SELECT id, index_version FROM site WHERE active = TRUE ORDER BY id", resultSet -> {
+            hash[0] = mix(hash[0], resultSet.getLong(1));
+            hash[0] = mix(hash[0], resultSet.getLong(2));
+        });
+
+        generation.set(hash[0]);
+        loaded = true;
+
+        return hash[0];
+    }
+
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,596 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import searchengine.config.SiteProps;
+import searchengine.config.SitesList;
+import searchengine.config.SnapshotSettings;
+import searchengine.dto.response.implementation.indexing.SnapshotResponse;
+import searchengine.dto.statistics.StatisticsDelta;
+import searchengine.exception.SnapshotException;
+import searchengine.model.implementation.IndexStatus;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.notbean.SnapshotFormat;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимки индекса сайта. Экспорт записывает активное поколение сайта - страницы с контентом, леммы
+ * и индекс - в один двоичный файл формата {@link SnapshotFormat}, читая таблицы потоково через пул
+ * чтения на одном соединении в транзакции с согласованным снимком. Импорт сначала проверяет контрольную сумму файла, затем пакетными INSERT загружает снимок
+ * в новое поколение сайта и делает его активным, поэтому новый узел получает индекс без обхода сайта.
+ * Недогруженное поколение удаляется и активным не становится никогда.
+ */
+@Component
+public class IndexSnapshotManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexSnapshotManager.class);
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private final SnapshotSettings settings;
+    private final SitesList sitesList;
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryManager repositoryManager;
+    private final SiteGenerationManager siteGenerationManager;
+    private final CorpusStatistics corpusStatistics;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public IndexSnapshotManager(SnapshotSettings settings, SitesList sitesList, DataSource dataSource,
+                                RepositoryManager repositoryManager, SiteGenerationManager siteGenerationManager,
+                                CorpusStatistics corpusStatistics) {
+        this.settings = settings;
+        this.sitesList = sitesList;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.repositoryManager = repositoryManager;
+        this.siteGenerationManager = siteGenerationManager;
+        this.corpusStatistics = corpusStatistics;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод записывает снимок поколения сайта в каталог снимков. Файл сначала пишется во временный
+     * и переименовывается только после записи контрольной суммы, поэтому недописанный снимок
+     * никогда не попадает в каталог под своим именем.
+     * @param generation Поколение сайта
+     * @return SnapshotResponse
+     * @throws SnapshotException если снимок не удалось записать
+     */
+    public SnapshotResponse export(Site generation) {
+        long start = System.nanoTime();
+        SnapshotResponse response = new SnapshotResponse(true);
+        Path file = Path.of(settings.getDirectory()).resolve(fileName(generation));
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(file.getParent());
+            long checksum = repositoryManager.executeRead(() -> write(generation, temporaryFile, response));
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            response.setFile(file.getFileName().toString());
+            response.setBytes(Files.size(file));
+            response.setChecksum(Long.toHexString(checksum));
+        } catch (IOException | UncheckedIOException e) {
+            deleteQuietly(temporaryFile);
+            throw new SnapshotException("Не удалось записать снимок сайта " + generation.getUrl(), e);
+        }
+
+        response.setSite(generation.getUrl());
+        response.setGeneration(generation.getGeneration());
+        response.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.info("Снимок сайта {} записан в {}: {} страниц, {} лемм, {} записей индекса, {} байт за {} мс",
+                generation.getUrl(), file.toAbsolutePath(), response.getPages(), response.getLemmas(),
+                response.getPostings(), response.getBytes(), response.getTotalMillis());
+        return response;
+    }
+
+
+    /**
+     * Метод загружает снимок из каталога снимков в новое поколение сайта. Сайт снимка должен быть
+     * указан в конфигурационном файле. После успешной загрузки поколение становится активным,
+     * а при ошибке уже записанная часть поколения удаляется и поиск продолжает работать
+     * по предыдущему поколению, если оно есть.
+     * @param fileName Имя файла снимка в каталоге снимков
+     * @return SnapshotResponse
+     * @throws SnapshotException если файл не найден, повреждён или сайт снимка неизвестен
+     */
+    public SnapshotResponse importSnapshot(String fileName) {
+        long start = System.nanoTime();
+        Path file = resolve(fileName);
+        SnapshotResponse response = new SnapshotResponse(true);
+
+        try {
+            response.setChecksum(Long.toHexString(SnapshotFormat.verifyChecksum(file)));
+            response.setBytes(Files.size(file));
+
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+                load(input, response);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new SnapshotException("Не удалось прочитать снимок " + fileName, e);
+        }
+
+        response.setFile(file.getFileName().toString());
+        response.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.info("Снимок {} загружен в поколение {} сайта {}: {} страниц, {} лемм, {} записей индекса за {} мс",
+                fileName, response.getGeneration(), response.getSite(), response.getPages(), response.getLemmas(),
+                response.getPostings(), response.getTotalMillis());
+        return response;
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод выполняет все чтения экспорта на одном соединении в транзакции только для чтения
+     * с согласованным снимком InnoDB. Количества в заголовке и потоково прочитанные строки поэтому
+     * относятся к одному состоянию базы данных, даже если в поколение параллельно пишет другой узел.
+     */
+    private long write(Site generation, Path file, SnapshotResponse response) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                statement.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+            }
+
+            try {
+                JdbcTemplate snapshotJdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                snapshotJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+                return write(snapshotJdbcTemplate, generation, file, response);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("COMMIT");
+                }
+            }
+        });
+    }
+
+
+    private static long write(JdbcTemplate snapshotJdbcTemplate, Site generation, Path file,
+                              SnapshotResponse response) {
+        long[] pageIds = snapshotJdbcTemplate.queryForList("SELECT id FROM page WHERE site_id = ? ORDER BY id",
+                Long.class, generation.getId()).stream().mapToLong(Long::longValue).toArray();
+        List<Long> lemmaIdList = new ArrayList<>();
+        List<String> lemmas = new ArrayList<>();
+        List<Integer> frequencies = new ArrayList<>();
+
+        snapshotJdbcTemplate.query("SELECT id, lemma, frequency FROM lemma WHERE site_id = ? ORDER BY id", resultSet -> {
+            lemmaIdList.add(resultSet.getLong(1));
+            lemmas.add(resultSet.getString(2));
+            frequencies.add(resultSet.getInt(3));
+        }, generation.getId());
+
+        long[] lemmaIds = lemmaIdList.stream().mapToLong(Long::longValue).toArray();
+
+        try (OutputStream fileOutput = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            CheckedOutputStream checkedOutput = new CheckedOutputStream(fileOutput, new CRC32C());
+            DataOutputStream output = new DataOutputStream(checkedOutput);
+
+            output.writeInt(SnapshotFormat.MAGIC);
+            output.writeShort(SnapshotFormat.VERSION);
+            SnapshotFormat.writeString(output, generation.getUrl());
+            SnapshotFormat.writeString(output, generation.getName());
+            output.writeInt(generation.getGeneration());
+            output.writeLong(System.currentTimeMillis());
+            output.writeInt(pageIds.length);
+            output.writeInt(lemmaIds.length);
+
+            RowCallbackHandler pageWriter = resultSet -> writePage(output, resultSet, pageIds);
+            snapshotJdbcTemplate.query("SELECT p.path, p.code, p.title, p.simhash, p.duplicate_of, c.content " +
+                    "FROM page p LEFT JOIN page_content c ON c.page_id = p.id WHERE p.site_id = ? ORDER BY p.id",
+                    pageWriter, generation.getId());
+
+            for (int i = 0; i < lemmaIds.length; i++) {
+                SnapshotFormat.writeString(output, lemmas.get(i));
+                output.writeInt(frequencies.get(i));
+            }
+
+            PostingWriter postingWriter = new PostingWriter(output, lemmaIds, pageIds);
+            RowCallbackHandler postingReader = resultSet ->
+                    postingWriter.add(resultSet.getLong(1), resultSet.getLong(2), resultSet.getFloat(3));
+            snapshotJdbcTemplate.query("SELECT i.lemma_id, i.page_id, i.`rank` FROM `index` i " +
+                    "JOIN lemma l ON l.id = i.lemma_id WHERE l.site_id = ? ORDER BY i.lemma_id, i.page_id",
+                    postingReader, generation.getId());
+            postingWriter.finish();
+
+            output.flush();
+            long checksum = checkedOutput.getChecksum().getValue();
+            new DataOutputStream(fileOutput).writeLong(checksum);
+
+            response.setPages(pageIds.length);
+            response.setLemmas(lemmaIds.length);
+            response.setPostings(postingWriter.getPostings());
+            return checksum;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static void writePage(DataOutputStream output, ResultSet resultSet, long[] pageIds) throws SQLException {
+        try {
+            SnapshotFormat.writeString(output, resultSet.getString(1));
+            output.writeInt(resultSet.getInt(2));
+            SnapshotFormat.writeString(output, resultSet.getString(3));
+
+            long simhash = resultSet.getLong(4);
+            output.writeBoolean(!resultSet.wasNull());
+            if (!resultSet.wasNull()) {
+                output.writeLong(simhash);
+            }
+
+            long duplicateOf = resultSet.getLong(5);
+            output.writeInt(resultSet.wasNull() ? -1 : Math.max(-1, Arrays.binarySearch(pageIds, duplicateOf)));
+
+            byte[] content = resultSet.getBytes(6);
+            output.writeInt((content == null) ? -1 : content.length);
+            if (content != null) {
+                output.write(content);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Метод читает снимок после заголовка и загружает его в новое поколение сайта.
+     * @param input Поток снимка
+     * @param response Ответ, в который записываются сведения о загрузке
+     */
+    private void load(DataInputStream input, SnapshotResponse response) throws IOException {
+        if (input.readInt() != SnapshotFormat.MAGIC) {
+            throw new SnapshotException("Файл не является снимком индекса");
+        }
+
+        short version = input.readShort();
+
+        if (version != SnapshotFormat.VERSION) {
+            throw new SnapshotException("Версия снимка " + version + " не поддерживается");
+        }
+
+        String url = SnapshotFormat.readString(input);
+        SnapshotFormat.readString(input);
+        input.readInt();
+        input.readLong();
+        int pageCount = input.readInt();
+        int lemmaCount = input.readInt();
+        SiteProps siteProps = sitesList.getSites().stream()
+                .filter(site -> site.getUrl().equals(url))
+                .findFirst()
+                .orElseThrow(() -> new SnapshotException("Сайт снимка " + url + " не указан в конфигурационном файле"));
+
+        Site generation = siteGenerationManager.createGeneration(siteProps);
+
+        try {
+            StatisticsDelta delta = jdbcTemplate.execute((ConnectionCallback<StatisticsDelta>) connection ->
+                    insert(connection, input, generation, pageCount, lemmaCount, response));
+            corpusStatistics.apply(generation, delta);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Загрузка снимка сайта {} не завершена, поколение {} удаляется: {}",
+                    url, generation.getGeneration(), e.getMessage());
+            siteGenerationManager.discard(generation);
+            throw e;
+        }
+
+        generation.setIndexStatus(IndexStatus.INDEXED);
+        generation.setStatusTime(LocalDateTime.now());
+        repositoryManager.executeTransaction(() -> repositoryManager.getSiteRepository().save(generation));
+        siteGenerationManager.complete(generation);
+
+        response.setSite(url);
+        response.setGeneration(generation.getGeneration());
+        response.setPages(pageCount);
+        response.setLemmas(lemmaCount);
+    }
+
+
+    private StatisticsDelta insert(Connection connection, DataInputStream input, Site generation, int pageCount,
+                                   int lemmaCount, SnapshotResponse response) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            long[] pageIds = insertPages(connection, input, generation, pageCount);
+            long[] lemmaIds = new long[lemmaCount];
+            StatisticsDelta delta = new StatisticsDelta().addPages(pageCount).addLemmas(lemmaCount);
+
+            try (PreparedStatement lemmaInsert = connection.prepareStatement(
+                    "INSERT INTO lemma (site_id, lemma, frequency) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (int lemma = 0; lemma < lemmaCount; lemma++) {
+                    String lemmaValue = SnapshotFormat.readString(input);
+                    int frequency = input.readInt();
+                    lemmaInsert.setLong(1, generation.getId());
+                    lemmaInsert.setString(2, lemmaValue);
+                    lemmaInsert.setInt(3, frequency);
+                    lemmaInsert.addBatch();
+                    delta.updateMaxFrequency(frequency);
+
+                    if ((lemma + 1) % settings.getBatchSize() == 0 || lemma == lemmaCount - 1) {
+                        int from = lemma / settings.getBatchSize() * settings.getBatchSize();
+                        lemmaInsert.executeBatch();
+                        readGeneratedKeys(lemmaInsert, lemmaIds, from, lemma + 1 - from);
+                        connection.commit();
+                    }
+                }
+            }
+
+            long terms = 0;
+            long postings = 0;
+
+            try (PreparedStatement indexInsert = connection.prepareStatement(
+                    "INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES (?, ?, ?)")) {
+                for (int lemma = 0; lemma < lemmaCount; lemma++) {
+                    int count = SnapshotFormat.readVarInt(input);
+                    int page = 0;
+
+                    for (int i = 0; i < count; i++) {
+                        page += SnapshotFormat.readVarInt(input);
+                        float rank = input.readFloat();
+
+                        if (page < 0 || page >= pageCount) {
+                            throw new SnapshotException("Запись индекса ссылается на несуществующую страницу " + page);
+                        }
+
+                        indexInsert.setLong(1, pageIds[page]);
+                        indexInsert.setLong(2, lemmaIds[lemma]);
+                        indexInsert.setFloat(3, rank);
+                        indexInsert.addBatch();
+                        terms += (long) rank;
+
+                        if (++postings % settings.getBatchSize() == 0) {
+                            indexInsert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                }
+
+                indexInsert.executeBatch();
+                connection.commit();
+            }
+
+            response.setPostings(postings);
+            return delta.addTerms(terms);
+        } catch (IOException e) {
+            connection.rollback();
+            throw new UncheckedIOException(e);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+
+    /**
+     * Метод загружает страницы снимка с их контентом и возвращает id записанных страниц в порядке
+     * снимка. Ссылки почти дубликатов на исходные страницы проставляются после записи всех страниц.
+     */
+    private long[] insertPages(Connection connection, DataInputStream input, Site generation, int pageCount)
+            throws SQLException, IOException {
+        long[] pageIds = new long[pageCount];
+        int[] duplicateOf = new int[pageCount];
+        List<byte[]> contents = new ArrayList<>();
+
+        try (PreparedStatement pageInsert = connection.prepareStatement(
+                     "INSERT INTO page (site_id, path, code, title, simhash) VALUES (?, ?, ?, ?, ?)",
+                     Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement contentInsert = connection.prepareStatement(
+                     "INSERT INTO page_content (page_id, content) VALUES (?, ?)")) {
+
+            for (int page = 0; page < pageCount; page++) {
+                pageInsert.setLong(1, generation.getId());
+                pageInsert.setString(2, SnapshotFormat.readString(input));
+                pageInsert.setInt(3, input.readInt());
+                pageInsert.setString(4, SnapshotFormat.readString(input));
+
+                if (input.readBoolean()) {
+                    pageInsert.setLong(5, input.readLong());
+                } else {
+                    pageInsert.setNull(5, Types.BIGINT);
+                }
+
+                duplicateOf[page] = input.readInt();
+                int contentLength = input.readInt();
+                byte[] content = null;
+
+                if (contentLength >= 0) {
+                    content = new byte[contentLength];
+                    input.readFully(content);
+                }
+
+                pageInsert.addBatch();
+                contents.add(content);
+
+                if (contents.size() == settings.getBatchSize() || page == pageCount - 1) {
+                    int from = page + 1 - contents.size();
+                    pageInsert.executeBatch();
+                    readGeneratedKeys(pageInsert, pageIds, from, contents.size());
+
+                    for (int i = 0; i < contents.size(); i++) {
+                        if (contents.get(i) != null) {
+                            contentInsert.setLong(1, pageIds[from + i]);
+                            contentInsert.setBytes(2, contents.get(i));
+                            contentInsert.addBatch();
+                        }
+                    }
+
+                    contentInsert.executeBatch();
+                    connection.commit();
+                    contents.clear();
+                }
+            }
+        }
+
+        try (PreparedStatement duplicateUpdate = connection.prepareStatement(
+                "UPDATE page SET duplicate_of = ? WHERE id = ?")) {
+            for (int page = 0; page < pageCount; page++) {
+                if (duplicateOf[page] >= 0 && duplicateOf[page] < pageCount) {
+                    duplicateUpdate.setLong(1, pageIds[duplicateOf[page]]);
+                    duplicateUpdate.setLong(2, pageIds[page]);
+                    duplicateUpdate.addBatch();
+                }
+            }
+
+            duplicateUpdate.executeBatch();
+            connection.commit();
+        }
+
+        return pageIds;
+    }
+
+
+    private static void readGeneratedKeys(PreparedStatement statement, long[] ids, int from, int count)
+            throws SQLException {
+        int index = from;
+
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next() && index < from + count) {
+                ids[index++] = keys.getLong(1);
+            }
+        }
+
+        if (index != from + count) {
+            throw new SnapshotException("База данных вернула не все id записанных строк");
+        }
+    }
+
+
+    /**
+     * Метод разрешает имя снимка только внутри каталога снимков, чтобы через параметр запроса
+     * нельзя было прочитать произвольный файл.
+     */
+    private Path resolve(String fileName) {
+        Path directory = Path.of(settings.getDirectory()).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+
+        if (!file.getParent().equals(directory) || !fileName.endsWith(SnapshotFormat.EXTENSION)) {
+            throw new SnapshotException("Некорректное имя снимка " + fileName);
+        }
+
+        if (!Files.isRegularFile(file)) {
+            throw new SnapshotException("Снимок " + fileName + " не найден");
+        }
+
+        return file;
+    }
+
+
+    private static String fileName(Site generation) {
+        String host = URI.create(generation.getUrl()).getHost();
+        return host + "-g" + generation.getGeneration() + "-" + LocalDateTime.now().format(FILE_TIME_FORMAT)
+                + SnapshotFormat.EXTENSION;
+    }
+
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось удалить временный файл {}: {}", file, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Запись индекса по леммам. Строки index приходят упорядоченными по lemma_id и page_id; записи
+     * одной леммы собираются в буфер и записываются вместе с их количеством, а для лемм без записей
+     * записывается ноль.
+     */
+    private static final class PostingWriter {
+
+        private final DataOutputStream output;
+        private final long[] lemmaIds;
+        private final long[] pageIds;
+        private int lemma;
+        private int[] pages = new int[1024];
+        private float[] ranks = new float[1024];
+        private int size;
+        private long postings;
+
+
+        PostingWriter(DataOutputStream output, long[] lemmaIds, long[] pageIds) {
+            this.output = output;
+            this.lemmaIds = lemmaIds;
+            this.pageIds = pageIds;
+        }
+
+
+        void add(long lemmaId, long pageId, float rank) {
+            while (lemma < lemmaIds.length && lemmaIds[lemma] < lemmaId) {
+                flush();
+                lemma++;
+            }
+
+            int page = Arrays.binarySearch(pageIds, pageId);
+
+            if (lemma == lemmaIds.length || lemmaIds[lemma] != lemmaId || page < 0) {
+                return;
+            }
+
+            if (size == pages.length) {
+                pages = Arrays.copyOf(pages, size * 2);
+                ranks = Arrays.copyOf(ranks, size * 2);
+            }
+
+            pages[size] = page;
+            ranks[size++] = rank;
+        }
+
+
+        void finish() {
+            while (lemma < lemmaIds.length) {
+                flush();
+                lemma++;
+            }
+        }
+
+
+        long getPostings() {
+            return postings;
+        }
+
+
+        private void flush() {
+            try {
+                SnapshotFormat.writeVarInt(output, size);
+                int previous = 0;
+
+                for (int i = 0; i < size; i++) {
+                    SnapshotFormat.writeVarInt(output, pages[i] - previous);
+                    output.writeFloat(ranks[i]);
+                    previous = pages[i];
+                }
+
+                postings += size;
+                size = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
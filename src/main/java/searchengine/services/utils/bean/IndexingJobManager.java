@@ -0,0 +1,527 @@
+package searchengine.services.utils.bean;
+
+import io.micrometer.core.instrument.Meter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import searchengine.concurrency.implementation.ForkJoinPoolManager;
+import searchengine.concurrency.implementation.ThreadPoolManager;
+import searchengine.concurrency.jobs.IndexingJob;
+import searchengine.concurrency.jobs.JobState;
+import searchengine.concurrency.jobs.SiteIndexingJob;
+import searchengine.concurrency.tasks.ContentExtractorAction;
+import searchengine.config.SiteProps;
+import searchengine.config.SitesList;
+import searchengine.dto.indexing.SitemapEntry;
+import searchengine.dto.response.implementation.indexing.IndexingJobResponse;
+import searchengine.dto.response.implementation.indexing.SiteJobProgress;
+import searchengine.model.implementation.CrawlLease;
+import searchengine.model.implementation.IndexStatus;
+import searchengine.model.implementation.LeaseState;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Менеджер асинхронных задач индексации. Запуск индексации создаёт задачу и сразу возвращает её,
+ * а сайты индексируются как независимые задачи, которые можно ставить на паузу, возобновлять и
+ * отменять. Задача сайта выполняется в пуле координаторов и ожидает обхода сайта в пуле обходчика.
+ * Обход начинается с главной страницы и страниц из карты сайта, самые свежие из них - первыми. Прогресс задач доступен по запросу и через server-sent events.
+ * <p>
+ * Если включён совместный обход, сайты задачи распределяются между узлами через аренды в общей базе
+ * данных: задача сайта обходит его только захватив аренду, а иначе ждёт, пока сайт обойдёт другой
+ * узел, и забирает аренду, если тот перестал её продлевать. Узлы периодически проверяют таблицу аренд
+ * и присоединяются к задачам, запущенным на других узлах.
+ */
+@Component
+public class IndexingJobManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexingJobManager.class);
+    private static final int MAX_STORED_JOBS = 50;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1_000;
+    private static final Comparator<SitemapEntry> SITEMAP_FRESHNESS = Comparator.comparing(
+            SitemapEntry::getLastModified, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final RepositoryManager repositoryManager;
+    private final ForkJoinPoolManager forkJoinPoolManager;
+    private final ThreadPoolManager threadPoolManager;
+    private final Lemmatizator lemmatizator;
+    private final PageFetcher pageFetcher;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final SitemapReader sitemapReader;
+    private final IndexingMetrics metrics;
+    private final SiteGenerationManager siteGenerationManager;
+    private final CrawlLeaseManager leaseManager;
+    private final SharedVisitedSet visitedSet;
+    private final CorpusStatistics corpusStatistics;
+    private final IndexGeneration indexGeneration;
+    private final SitesList sitesList;
+
+    private final Map<String, IndexingJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IndexingJob> eldest) {
+            return size() > MAX_STORED_JOBS && eldest.getValue().isFinished();
+        }
+    });
+    private final List<JobSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService progressScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "indexing-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService leasePollScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "lease-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private IndexingJob currentJob;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public IndexingJobManager(RepositoryManager repositoryManager, ForkJoinPoolManager forkJoinPoolManager,
+                              ThreadPoolManager threadPoolManager, Lemmatizator lemmatizator,
+                              PageFetcher pageFetcher, UrlCanonicalizer urlCanonicalizer,
+                              SitemapReader sitemapReader, SiteGenerationManager siteGenerationManager,
+                              IndexingMetrics metrics, CrawlLeaseManager leaseManager, SharedVisitedSet visitedSet,
+                              CorpusStatistics corpusStatistics, IndexGeneration indexGeneration,
+                              SitesList sitesList) {
+        this.repositoryManager = repositoryManager;
+        this.forkJoinPoolManager = forkJoinPoolManager;
+        this.threadPoolManager = threadPoolManager;
+        this.lemmatizator = lemmatizator;
+        this.pageFetcher = pageFetcher;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.sitemapReader = sitemapReader;
+        this.metrics = metrics;
+        this.siteGenerationManager = siteGenerationManager;
+        this.leaseManager = leaseManager;
+        this.visitedSet = visitedSet;
+        this.corpusStatistics = corpusStatistics;
+        this.indexGeneration = indexGeneration;
+        this.sitesList = sitesList;
+        progressScheduler.scheduleAtFixedRate(this::publishProgress,
+                PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (leaseManager.isEnabled()) {
+            leasePollScheduler.scheduleWithFixedDelay(this::joinOpenJobs, leaseManager.getPollIntervalMillis(),
+                    leaseManager.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // METHODS //
+
+    /**
+     * Метод создаёт задачу индексации переданных сайтов и запускает индексацию каждого сайта
+     * в пуле координаторов, не дожидаясь её завершения. Если предыдущая задача ещё не завершена,
+     * новая задача не создаётся и метод возвращает пустой Optional. При совместном обходе аренды
+     * сайтов задачи публикуются для всех узлов.
+     * @param sites Сайты из конфигурационного файла
+     * @return Optional<IndexingJob>
+     */
+    public synchronized Optional<IndexingJob> start(List<SiteProps> sites) {
+        if (isIndexing()) {
+            return Optional.empty();
+        }
+
+        IndexingJob job = new IndexingJob(sites);
+
+        if (leaseManager.isEnabled()) {
+            leaseManager.publish(job.getId(), sites);
+        }
+
+        launch(job);
+        LOGGER.info("Запущена задача индексации {}", job.getId());
+        return Optional.of(job);
+    }
+
+
+    public synchronized boolean isIndexing() {
+        return currentJob != null && !currentJob.isFinished();
+    }
+
+
+    public synchronized Optional<IndexingJob> getCurrentJob() {
+        return Optional.ofNullable(currentJob);
+    }
+
+
+    public Optional<IndexingJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+
+    /**
+     * Метод возвращает DTO с текущим прогрессом задачи и всех её сайтов.
+     * @param job Задача индексации
+     * @return IndexingJobResponse
+     */
+    public IndexingJobResponse getProgress(IndexingJob job) {
+        List<SiteJobProgress> sites = new ArrayList<>();
+
+        for (SiteIndexingJob siteJob : job.getSiteJobs()) {
+            sites.add(new SiteJobProgress(
+                    siteJob.getSiteProps().getUrl(),
+                    siteJob.getSiteProps().getName(),
+                    siteJob.getState().name(),
+                    siteJob.getFetched(),
+                    siteJob.getQueued(),
+                    siteJob.getFailed(),
+                    siteJob.getPagesPerSecond(),
+                    siteJob.getEtaSeconds(),
+                    siteJob.getError()
+            ));
+        }
+
+        return new IndexingJobResponse(true, job.getId(), job.getState().name(), sites);
+    }
+
+
+    /**
+     * Метод создаёт поток server-sent events, в который раз в секунду отправляется прогресс задачи.
+     * После завершения задачи отправляется итоговый прогресс и поток закрывается.
+     * @param job Задача индексации
+     * @return SseEmitter
+     */
+    public SseEmitter subscribe(IndexingJob job) {
+        SseEmitter emitter = new SseEmitter(0L);
+        JobSubscription subscription = new JobSubscription(job, emitter);
+        subscriptions.add(subscription);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        progressScheduler.execute(() -> send(subscription));
+        return emitter;
+    }
+
+
+    /**
+     * При остановке приложения останавливаются рассылка прогресса и опрос аренд, чтобы они не
+     * обращались к уже закрытым пулам соединений.
+     */
+    @PreDestroy
+    public void close() {
+        leasePollScheduler.shutdownNow();
+        progressScheduler.shutdownNow();
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод читает карту сайта и возвращает пути страниц, начиная с самых свежих по {@code <lastmod>}.
+     * Ошибка чтения карты не прерывает индексацию: сайт обходится только по ссылкам.
+     * @param siteProps Настройки сайта
+     * @return Канонические пути страниц
+     */
+    private List<String> readSeedPaths(SiteProps siteProps) {
+        try {
+            List<String> seedPaths = sitemapReader.read(siteProps).stream()
+                    .sorted(SITEMAP_FRESHNESS)
+                    .map(SitemapEntry::getPath)
+                    .toList();
+            LOGGER.info("Из карты сайта {} получено {} страниц", siteProps.getUrl(), seedPaths.size());
+            return seedPaths;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Не удалось прочитать карту сайта {}: {}", siteProps.getUrl(), e.getMessage());
+            return List.of();
+        }
+    }
+
+
+    private void launch(IndexingJob job) {
+        jobs.put(job.getId(), job);
+        currentJob = job;
+
+        for (SiteIndexingJob siteJob : job.getSiteJobs()) {
+            try {
+                threadPoolManager.executeSiteJob(() -> runSiteJob(job.getId(), siteJob));
+            } catch (RejectedExecutionException e) {
+                LOGGER.error("Пул индексации сайтов переполнен, сайт {} не будет проиндексирован",
+                        siteJob.getSiteProps().getUrl());
+                siteJob.finish(JobState.FAILED, "Пул индексации сайтов переполнен");
+            }
+        }
+    }
+
+
+    /**
+     * Метод индексирует один сайт в новом поколении и переводит задачу сайта в итоговое состояние.
+     * Ошибка индексации одного сайта не влияет на остальные сайты задачи. Любая ошибка при создании,
+     * обходе или завершении поколения завершает задачу сайта со статусом FAILED, а недостроенное
+     * поколение удаляется.
+     * @param jobId id задачи индексации
+     * @param siteJob Задача индексации сайта
+     */
+    private void runSiteJob(String jobId, SiteIndexingJob siteJob) {
+        if (!siteJob.start()) {
+            return;
+        }
+
+        try {
+            if (leaseManager.isEnabled()) {
+                runLeasedSiteJob(jobId, siteJob);
+                return;
+            }
+
+            Site siteEntity = null;
+
+            try {
+                siteEntity = siteGenerationManager.createGeneration(siteJob.getSiteProps());
+                crawl(siteJob, siteEntity, null);
+                completeGeneration(siteEntity);
+            } catch (RuntimeException e) {
+                abort(siteJob, siteEntity, e);
+            }
+        } finally {
+            if (!siteJob.getState().isFinished()) {
+                siteJob.finish(JobState.FAILED, "Индексация сайта прервана");
+            }
+        }
+    }
+
+
+    /**
+     * Метод индексирует сайт при совместном обходе. Пока аренду сайта держит другой узел, задача
+     * ждёт и периодически пытается её захватить. Задача завершается, когда аренда захвачена и сайт
+     * обойдён, либо когда другой узел завершил обход сайта или аренда перешла к другой задаче.
+     * @param jobId id задачи индексации
+     * @param siteJob Задача индексации сайта
+     */
+    private void runLeasedSiteJob(String jobId, SiteIndexingJob siteJob) {
+        String url = siteJob.getSiteProps().getUrl();
+
+        while (!siteJob.isCancelled()) {
+            Optional<CrawlLease> lease;
+
+            try {
+                lease = leaseManager.tryAcquire(jobId, siteJob);
+            } catch (RuntimeException e) {
+                abort(siteJob, null, e);
+                return;
+            }
+
+            if (lease.isPresent()) {
+                crawlLeased(siteJob, lease.get());
+                return;
+            }
+
+            Optional<CrawlLease> current;
+
+            try {
+                current = leaseManager.find(url);
+            } catch (RuntimeException e) {
+                abort(siteJob, null, e);
+                return;
+            }
+
+            if (current.isEmpty() || !current.get().getJobId().equals(jobId)) {
+                siteJob.finish(JobState.CANCELLED, "Сайт индексируется в другой задаче");
+                return;
+            }
+
+            if (current.get().getState().isFinished()) {
+                LOGGER.info("Сайт {} проиндексирован узлом {}", url, current.get().getNodeId());
+                siteJob.finish(current.get().getState() == LeaseState.COMPLETED ? JobState.COMPLETED : JobState.FAILED,
+                        current.get().getState() == LeaseState.COMPLETED
+                                ? null
+                                : "Индексация на узле " + current.get().getNodeId() + " завершилась ошибкой");
+                return;
+            }
+
+            try {
+                Thread.sleep(leaseManager.getPollIntervalMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                siteJob.finish(JobState.FAILED, "Ожидание аренды сайта прервано");
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Метод обходит сайт по захваченной аренде. Если в аренде уже записано поколение сайта, значит
+     * прежний владелец аренды не завершил обход, и обход продолжается в этом поколении: сохранённые им
+     * страницы не загружаются повторно. Если аренда была потеряна, поколение не завершается, его
+     * дообходит новый владелец аренды.
+     * @param siteJob Задача индексации сайта
+     * @param lease Захваченная аренда
+     */
+    private void crawlLeased(SiteIndexingJob siteJob, CrawlLease lease) {
+        String url = siteJob.getSiteProps().getUrl();
+        Site siteEntity = lease.getSiteId();
+
+        try {
+            if (siteEntity == null) {
+                siteEntity = siteGenerationManager.createGeneration(siteJob.getSiteProps());
+                leaseManager.attachGeneration(url, siteEntity);
+            } else {
+                LOGGER.info("Узел {} продолжает индексацию сайта {} в поколении {}",
+                        leaseManager.getNodeId(), url, siteEntity.getGeneration());
+            }
+
+            crawl(siteJob, siteEntity, visitedSet);
+
+            if (!leaseManager.renew(url)) {
+                LOGGER.warn("Индексация сайта {} передана другому узлу, поколение {} не завершается",
+                        url, siteEntity.getGeneration());
+                return;
+            }
+
+            completeGeneration(siteEntity);
+
+            if (siteEntity.getIndexStatus() == IndexStatus.INDEXED) {
+                visitedSet.clear(siteEntity);
+            }
+
+            leaseManager.release(url, (siteEntity.getIndexStatus() == IndexStatus.INDEXED)
+                    ? LeaseState.COMPLETED
+                    : LeaseState.FAILED);
+        } catch (RuntimeException e) {
+            abort(siteJob, siteEntity, e);
+
+            try {
+                leaseManager.release(url, LeaseState.FAILED);
+            } catch (RuntimeException releaseError) {
+                LOGGER.warn("Не удалось освободить аренду сайта {}: {}", url, releaseError.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Метод обходит сайт в переданном поколении и выставляет поколению и задаче сайта итоговый статус.
+     * @param siteJob Задача индексации сайта
+     * @param siteEntity Поколение сайта
+     * @param visitedSet Общее множество взятых путей, либо null при обходе одним узлом
+     */
+    private void crawl(SiteIndexingJob siteJob, Site siteEntity, SharedVisitedSet visitedSet) {
+        List<String> seedPaths = readSeedPaths(siteJob.getSiteProps());
+        ContentExtractorAction action = new ContentExtractorAction(repositoryManager, siteEntity, lemmatizator,
+                pageFetcher, urlCanonicalizer, siteJob, metrics, seedPaths, visitedSet);
+        List<Meter> crawlMeters = metrics.registerCrawl(siteJob, action::getVisitedSize);
+
+        try {
+            forkJoinPoolManager.invoke(action);
+
+            if (siteJob.isCancelled()) {
+                siteEntity.setIndexStatus(IndexStatus.FAILED);
+                siteEntity.setLastError((siteJob.getError() != null)
+                        ? siteJob.getError()
+                        : "Индексация остановлена пользователем");
+            } else {
+                siteEntity.setIndexStatus(IndexStatus.INDEXED);
+                siteJob.finish(JobState.COMPLETED, null);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Ошибка во время индексации сайта {}: {}", siteEntity.getUrl(), e.getMessage(), e);
+            siteEntity.setIndexStatus(IndexStatus.FAILED);
+            siteEntity.setLastError(e.getMessage());
+            siteJob.finish(JobState.FAILED, e.getMessage());
+        } finally {
+            metrics.unregisterCrawl(crawlMeters);
+        }
+    }
+
+
+    private void completeGeneration(Site siteEntity) {
+        repositoryManager.executeTransaction(() ->
+                repositoryManager.getSiteRepository().save(siteEntity)
+        );
+        siteGenerationManager.complete(siteEntity);
+    }
+
+
+    /**
+     * Метод завершает задачу сайта со статусом FAILED после ошибки вне обхода и удаляет
+     * недостроенное поколение, если оно успело появиться и не стало активным.
+     * @param siteJob Задача индексации сайта
+     * @param siteEntity Поколение сайта, либо null, если оно не было создано
+     * @param e Ошибка
+     */
+    private void abort(SiteIndexingJob siteJob, Site siteEntity, RuntimeException e) {
+        LOGGER.error("Индексация сайта {} прервана: {}", siteJob.getSiteProps().getUrl(), e.getMessage(), e);
+        siteJob.finish(JobState.FAILED, e.getMessage());
+
+        if (siteEntity == null) {
+            return;
+        }
+
+        try {
+            siteGenerationManager.discard(siteEntity);
+        } catch (RuntimeException discardError) {
+            LOGGER.warn("Не удалось удалить поколение {} сайта {}: {}",
+                    siteEntity.getGeneration(), siteEntity.getUrl(), discardError.getMessage());
+        }
+    }
+
+
+    /**
+     * Метод присоединяет узел к задаче, запущенной на другом узле, если в ней есть свободные аренды
+     * или аренды, которые их владельцы перестали продлевать. Пока на узле выполняется своя задача,
+     * он не присоединяется к чужим. Заодно перечитываются статистика корпуса и поколение индекса, чтобы
+     * поиск на этом узле учитывал поколения, проиндексированные другими узлами.
+     */
+    private synchronized void joinOpenJobs() {
+        try {
+            corpusStatistics.load();
+            indexGeneration.refresh();
+
+            if (isIndexing()) {
+                return;
+            }
+
+            for (String jobId : leaseManager.findOpenJobIds()) {
+                Set<String> urls = new HashSet<>(leaseManager.findSiteUrls(jobId));
+                List<SiteProps> sites = sitesList.getSites().stream()
+                        .filter(site -> urls.contains(site.getUrl()))
+                        .toList();
+
+                if (!sites.isEmpty()) {
+                    LOGGER.info("Узел {} присоединяется к задаче индексации {}", leaseManager.getNodeId(), jobId);
+                    launch(new IndexingJob(jobId, sites));
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Не удалось проверить аренды обхода: {}", e.getMessage());
+        }
+    }
+
+
+    private void publishProgress() {
+        for (JobSubscription subscription : subscriptions) {
+            send(subscription);
+        }
+    }
+
+
+    private void send(JobSubscription subscription) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .name("progress")
+                    .data(getProgress(subscription.job()), MediaType.APPLICATION_JSON));
+
+            if (subscription.job().isFinished()) {
+                subscription.emitter().complete();
+                subscriptions.remove(subscription);
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscriptions.remove(subscription);
+        }
+    }
+
+
+    private record JobSubscription(IndexingJob job, SseEmitter emitter) {}
+}
@@ -0,0 +1,141 @@
+package searchengine.services.utils.bean;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.jobs.SiteIndexingJob;
+import searchengine.model.implementation.Site;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Метрики обхода и индексации, публикуемые через Micrometer. Время этапов обработки страницы
+ * записывается таймерами crawler.stage, загрузки страниц - таймером crawler.fetch с классом кода
+ * ответа, транзакций - таймером repository.transaction. Размер очереди обхода и множества
+ * посещённых страниц публикуются датчиками на время обхода сайта. Метрики сайта помечаются тегом
+ * site с его базовым url, количество которых ограничено конфигурационным файлом.
+ */
+@Component
+public class IndexingMetrics {
+
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_LEMMATIZE = "lemmatize";
+    public static final String STAGE_INDEX = "index";
+    public static final String STAGE_LINKS = "links";
+    private static final String STATUS_ERROR = "error";
+    private final MeterRegistry registry;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public IndexingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // METHODS //
+
+    public <T> T timeStage(String stage, Site site, Supplier<T> task) {
+        return stageTimer(stage, site).record(task);
+    }
+
+
+    public void timeStage(String stage, Site site, Runnable task) {
+        stageTimer(stage, site).record(task);
+    }
+
+
+    /**
+     * Метод учитывает одну попытку загрузки страницы: её время и код ответа.
+     * @param site Сущность сайта
+     * @param code Код ответа сервера
+     * @param nanos Время загрузки в наносекундах
+     */
+    public void recordFetch(Site site, int code, long nanos) {
+        String status = (code / 100) + "xx";
+        Timer.builder("crawler.fetch")
+                .description("Время загрузки страницы")
+                .tag("site", site.getUrl())
+                .tag("status", status)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Метод учитывает попытку загрузки, завершившуюся сетевой ошибкой.
+     * @param site Сущность сайта
+     * @param nanos Время до ошибки в наносекундах
+     */
+    public void recordFetchError(Site site, long nanos) {
+        Timer.builder("crawler.fetch")
+                .description("Время загрузки страницы")
+                .tag("site", site.getUrl())
+                .tag("status", STATUS_ERROR)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Метод учитывает обработанную обходчиком страницу по классу её кода ответа. Скорость обхода
+     * в страницах в секунду - скорость роста этого счётчика.
+     * @param site Сущность сайта
+     * @param code Код ответа, либо null, если страницу загрузить не удалось
+     */
+    public void countPage(Site site, Integer code) {
+        registry.counter("crawler.pages", "site", site.getUrl(),
+                "status", (code == null) ? STATUS_ERROR : (code / 100) + "xx").increment();
+    }
+
+
+    public void recordTransaction(long nanos, boolean failed) {
+        Timer.builder("repository.transaction")
+                .description("Время выполнения задачи в транзакции")
+                .tag("outcome", failed ? "failure" : "success")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Метод регистрирует датчики обхода сайта: размер очереди и количество посещённых страниц.
+     * Датчики нужно удалить методом unregisterCrawl после завершения обхода.
+     * @param job Задача индексации сайта
+     * @param visitedSize Источник количества посещённых страниц
+     * @return Зарегистрированные датчики
+     */
+    public List<Meter> registerCrawl(SiteIndexingJob job, Supplier<Number> visitedSize) {
+        String site = job.getSiteProps().getUrl();
+
+        return List.of(
+                Gauge.builder("crawler.frontier.size", job, SiteIndexingJob::getQueued)
+                        .description("Количество страниц в очереди обхода")
+                        .tag("site", site)
+                        .strongReference(true)
+                        .register(registry),
+                Gauge.builder("crawler.visited.size", visitedSize)
+                        .description("Количество найденных страниц сайта")
+                        .tag("site", site)
+                        .strongReference(true)
+                        .register(registry)
+        );
+    }
+
+
+    public void unregisterCrawl(List<Meter> meters) {
+        meters.forEach(registry::remove);
+    }
+
+    // UTILS METHODS //
+
+    private Timer stageTimer(String stage, Site site) {
+        return Timer.builder("crawler.stage")
+                .description("Время этапа обработки страницы")
+                .tag("stage", stage)
+                .tag("site", site.getUrl())
+                .register(registry);
+    }
+}
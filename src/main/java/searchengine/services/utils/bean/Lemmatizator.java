@@ -5,17 +5,26 @@ import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import searchengine.dto.indexing.DuplicateCheck;
+import searchengine.dto.indexing.FetchedPage;
+import searchengine.dto.statistics.StatisticsDelta;
 import searchengine.model.implementation.Index;
 import searchengine.model.implementation.Lemma;
 import searchengine.model.implementation.Page;
+import searchengine.model.implementation.PageContent;
 import searchengine.model.implementation.Site;
 import searchengine.repository.RepositoryManager;
 import searchengine.services.utils.notbean.HTMLManager;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Component
 public final class Lemmatizator {
@@ -23,58 +32,80 @@ public final class Lemmatizator {
     private static final Logger LOGGER = LoggerFactory.getLogger(Lemmatizator.class);
     private static final String[] FUNCTIONAL_PARTS_OF_SPEECH = new String[]{"СОЮЗ", "ПРЕДЛ", "МЕЖД", "ЧАСТ"};
     private final RepositoryManager repositoryManager;
+    private final IndexGeneration indexGeneration;
+    private final CorpusStatistics corpusStatistics;
+    private final DuplicateDetector duplicateDetector;
+    private final IndexingMetrics metrics;
 
     // CONSTRUCTORS //
 
     @Autowired
-    public Lemmatizator(RepositoryManager repositoryManager) {
+    public Lemmatizator(RepositoryManager repositoryManager, IndexGeneration indexGeneration,
+                        CorpusStatistics corpusStatistics, DuplicateDetector duplicateDetector,
+                        IndexingMetrics metrics) {
         this.repositoryManager = repositoryManager;
+        this.indexGeneration = indexGeneration;
+        this.corpusStatistics = corpusStatistics;
+        this.duplicateDetector = duplicateDetector;
+        this.metrics = metrics;
     }
 
     // METHODS //
 
     /**
      * Метод принимает сущность страницы, а затем сохраняет все найденные на ней леммы в базу данных.
-     * Все взаимодействия с базой проходят в транзакциях.
+     * Все взаимодействия с базой проходят в транзакциях. Изменения количества лемм и слов сайта
+     * вносятся в статистику корпуса одним обновлением после сохранения всех лемм страницы. Леммы почти
+     * дубликатов других страниц сайта не сохраняются.
      * @param pageEntity Page
+     * @param isNewPage true, если страница сохранена впервые и должна быть учтена в количестве страниц
      */
-    public void save(Page pageEntity) {
+    public void save(Page pageEntity, boolean isNewPage) {
         Site siteEntity = pageEntity.getSiteId();
-        String text = HTMLManager.getTextFromHTML(pageEntity.getContent());
-        HashMap<String, Integer> lemmas = collectLemmas(text);
-
-        repositoryManager.executeTransaction(() ->
-                checkIndexExistence(pageEntity)
-        );
-
-        lemmas.forEach((str, count) -> {
-            Lemma lemmaEntity;
-            Index indexEntity;
+        Map<String, Integer> lemmas = metrics.timeStage(IndexingMetrics.STAGE_LEMMATIZE, siteEntity, () ->
+                collectLemmas(HTMLManager.getTextFromHTML(pageEntity.getContent())));
+        metrics.timeStage(IndexingMetrics.STAGE_INDEX, siteEntity, () -> save(pageEntity, lemmas, isNewPage));
+    }
 
-            if (repositoryManager.getLemmaRepository().existsByLemma(str)) {
-                lemmaEntity = repositoryManager.getLemmaRepository().findByLemmaAndSiteId(str, siteEntity);
-                indexEntity = repositoryManager.getIndexRepository().findByPageIdAndLemmaId(pageEntity, lemmaEntity);
 
-                if (indexEntity == null) {
-                    createAndSaveNewIndex(pageEntity, lemmaEntity, count);
+    /**
+     * Метод сохраняет пакет уже загруженных страниц одного сайта вместе с их леммами. Старые индексы
+     * всех страниц пакета удаляются, частоты лемм уменьшаются и неиспользуемые леммы удаляются
+     * несколькими запросами на весь пакет, после чего недостающие леммы и новые индексы сохраняются
+     * в той же транзакции. Почти дубликаты сохраняются без лемм и индексов, а дубликаты изменившихся
+     * оригиналов после сохранения пакета индексируются заново. Если пакет конфликтует
+     * с параллельной индексацией того же сайта, транзакция откатывается и страницы сохраняются по одной.
+     * @param siteEntity Сущность сайта
+     * @param pages Загруженные страницы сайта с собранными леммами
+     */
+    public void saveBatch(Site siteEntity, List<FetchedPage> pages) {
+        StatisticsDelta delta = new StatisticsDelta();
+        List<Page> changedOriginals = new ArrayList<>();
 
+        try {
+            metrics.timeStage(IndexingMetrics.STAGE_INDEX, siteEntity, () ->
                     repositoryManager.executeTransaction(() ->
-                            repositoryManager.getLemmaRepository().incrementFrequency(lemmaEntity.getId())
-                    );
-
-                    return;
+                            saveBatchInTransaction(siteEntity, pages, delta, changedOriginals)));
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.warn("Пакет из {} страниц сайта {} конфликтует с параллельной индексацией, " +
+                    "страницы будут сохранены по одной", pages.size(), siteEntity.getUrl());
+            pages.forEach(page -> {
+                duplicateDetector.forget(siteEntity, page.getPage().getId());
+
+                if (page.isNewPage()) {
+                    page.getPage().setId(null);
                 }
 
-                repositoryManager.executeTransaction(() ->
-                        repositoryManager.getIndexRepository().incrementRank(indexEntity.getId(), count)
-                );
+                repositoryManager.savePageWithContent(page.getPage());
+                save(page.getPage(), page.getLemmas(), page.isNewPage());
+            });
+            changedOriginals.forEach(this::reindexDependents);
+            return;
+        }
 
-            } else {
-                // TODO: Полностью убрать возможность создания дубликата леммы
-                lemmaEntity = createAndSaveNewLemma(siteEntity, str);
-                createAndSaveNewIndex(pageEntity, lemmaEntity, count);
-            }
-        });
+        corpusStatistics.apply(siteEntity, delta);
+        advanceGeneration(siteEntity);
+        changedOriginals.forEach(this::reindexDependents);
     }
 
 
@@ -90,8 +121,25 @@ public final class Lemmatizator {
             return new HashMap<>();
         }
 
+        return collectLemmas(luceneMorphInitialization(), text);
+    }
+
+
+    /**
+     * Метод собирает леммы текста так же, как {@link #collectLemmas(String)}, но с переданным
+     * экземпляром LuceneMorphology. Нужен, когда лемматизируется много коротких текстов подряд
+     * и создавать словарь на каждый вызов слишком дорого.
+     * @param luceneMorph LuceneMorphology
+     * @param text String
+     * @return HashMap<String, Integer>
+     */
+    public static HashMap<String, Integer> collectLemmas(LuceneMorphology luceneMorph, String text) {
+
+        if (text.isBlank()) {
+            return new HashMap<>();
+        }
+
         HashMap<String, Integer> result = new HashMap<>();
-        LuceneMorphology luceneMorph = luceneMorphInitialization();
         String[] words = splitTextToWords(text);
 
         for (String word : words) {
@@ -122,6 +170,183 @@ public final class Lemmatizator {
 
     // UTILS METHODS //
 
+    /**
+     * Метод заново индексирует по сохранённому контенту страницы, которые были почти дубликатами
+     * изменившегося оригинала. Страница может снова оказаться дубликатом, например другой страницы сайта.
+     * @param original Страница, переставшая быть оригиналом своих дубликатов
+     */
+    private void reindexDependents(Page original) {
+        for (Page dependent : duplicateDetector.releaseDependents(original)) {
+            PageContent content = repositoryManager.getPageContentRepository().findByPageId(dependent);
+
+            if (content == null) {
+                continue;
+            }
+
+            dependent.setContent(content.getContent());
+            save(dependent, false);
+        }
+    }
+
+
+    /**
+     * Метод меняет поколение индекса, если страницы записаны в активное поколение сайта. Страницы нового
+     * поколения, которое строит полный обход, поиску не видны, поэтому поколение индекса меняется только
+     * при его активации.
+     */
+    private void advanceGeneration(Site siteEntity) {
+        if (Boolean.TRUE.equals(siteEntity.getActive())) {
+            indexGeneration.advance(siteEntity.getId());
+        }
+    }
+
+
+    /**
+     * Метод сохраняет леммы одной страницы, собранные заранее. Старые индексы страницы удаляются
+     * и леммы сохраняются теми же запросами, что и при пакетной индексации, в одной транзакции.
+     * @param pageEntity Сущность страницы
+     * @param lemmas Леммы страницы и количество их повторений
+     * @param isNewPage true, если страница сохранена впервые и должна быть учтена в количестве страниц
+     */
+    private void save(Page pageEntity, Map<String, Integer> lemmas, boolean isNewPage) {
+        Site siteEntity = pageEntity.getSiteId();
+        StatisticsDelta delta = new StatisticsDelta().addPages(isNewPage ? 1 : 0);
+
+        DuplicateCheck duplicateCheck = duplicateDetector.detect(pageEntity, lemmas);
+
+        repositoryManager.executeTransaction(() -> {
+            repositoryManager.getPageRepository().updateSimHashById(
+                    pageEntity.getId(), pageEntity.getSimhash(), pageEntity.getDuplicateOf());
+
+            if (!isNewPage) {
+                deleteIndexes(siteEntity, List.of(pageEntity.getId()), delta);
+            }
+
+            if (!duplicateCheck.isDuplicate()) {
+                saveIndexes(siteEntity, Map.of(pageEntity, lemmas), delta);
+            }
+        });
+
+        corpusStatistics.apply(siteEntity, delta);
+        advanceGeneration(siteEntity);
+
+        if (duplicateCheck.isOriginalChanged()) {
+            reindexDependents(pageEntity);
+        }
+    }
+
+
+    /**
+     * Метод выполняет запись пакета страниц в рамках уже открытой транзакции и учитывает изменения
+     * в переданной статистике. Частоты лемм увеличиваются в базе данных одним INSERT ... ON DUPLICATE
+     * KEY UPDATE на лемму, без чтения и записи значения, поэтому параллельные пакеты не теряют
+     * обновления друг друга. Леммы обрабатываются в порядке сортировки, чтобы пакеты блокировали
+     * строки в одном порядке и не взаимоблокировались.
+     * @param siteEntity Сущность сайта
+     * @param pages Загруженные страницы сайта с собранными леммами
+     * @param delta Изменение статистики сайта
+     * @param changedOriginals Список, в который добавляются изменившиеся оригиналы почти дубликатов
+     */
+    private void saveBatchInTransaction(Site siteEntity, List<FetchedPage> pages, StatisticsDelta delta,
+                                        List<Page> changedOriginals) {
+        List<Long> existingPageIds = new ArrayList<>();
+        Map<Page, Map<String, Integer>> indexedPages = new LinkedHashMap<>();
+
+        for (FetchedPage page : pages) {
+            if (page.isNewPage()) {
+                delta.addPages(1);
+            } else {
+                existingPageIds.add(page.getPage().getId());
+            }
+
+            Page pageEntity = page.getPage();
+            repositoryManager.savePageWithContent(pageEntity);
+
+            DuplicateCheck duplicateCheck = duplicateDetector.detect(pageEntity, page.getLemmas());
+
+            if (!duplicateCheck.isDuplicate()) {
+                indexedPages.put(pageEntity, page.getLemmas());
+            }
+
+            if (duplicateCheck.isOriginalChanged()) {
+                changedOriginals.add(pageEntity);
+            }
+
+            repositoryManager.getPageRepository().updateSimHashById(
+                    pageEntity.getId(), pageEntity.getSimhash(), pageEntity.getDuplicateOf());
+        }
+
+        if (!existingPageIds.isEmpty()) {
+            deleteIndexes(siteEntity, existingPageIds, delta);
+        }
+
+        saveIndexes(siteEntity, indexedPages, delta);
+    }
+
+
+    /**
+     * Метод удаляет индексы переданных страниц сайта несколькими запросами на весь набор страниц:
+     * частоты их лемм уменьшаются в базе данных, а леммы, которые больше не встречаются ни на одной
+     * странице, удаляются. Вызывается в рамках уже открытой транзакции.
+     * @param siteEntity Сущность сайта
+     * @param pageIds id страниц сайта
+     * @param delta Изменение статистики сайта
+     */
+    private void deleteIndexes(Site siteEntity, List<Long> pageIds, StatisticsDelta delta) {
+        delta.addTerms(-repositoryManager.getIndexRepository().sumRanksByPageIds(pageIds).longValue());
+        repositoryManager.getLemmaRepository().decrementFrequenciesByPageIds(pageIds);
+        repositoryManager.getIndexRepository().deleteAllByPageIds(pageIds);
+        delta.addLemmas(-repositoryManager.getLemmaRepository().deleteUnusedBySiteId(siteEntity));
+    }
+
+
+    /**
+     * Метод сохраняет леммы и индексы переданных страниц сайта в рамках уже открытой транзакции.
+     * Частоты лемм увеличиваются одним INSERT ... ON DUPLICATE KEY UPDATE на лемму, после чего
+     * наибольшая частота берётся из перечитанных лемм, а индексы сохраняются одним пакетом.
+     * @param siteEntity Сущность сайта
+     * @param indexedPages Страницы сайта и их леммы с количеством повторений
+     * @param delta Изменение статистики сайта
+     */
+    private void saveIndexes(Site siteEntity, Map<Page, Map<String, Integer>> indexedPages, StatisticsDelta delta) {
+        Map<String, Long> pagesPerLemma = new TreeMap<>();
+        indexedPages.values().forEach(lemmas ->
+                lemmas.keySet().forEach(lemma -> pagesPerLemma.merge(lemma, 1L, Long::sum)));
+
+        if (pagesPerLemma.isEmpty()) {
+            return;
+        }
+
+        pagesPerLemma.forEach((str, pagesCount) -> {
+            if (repositoryManager.getLemmaRepository().upsertFrequency(siteEntity.getId(), str, pagesCount) == 1) {
+                delta.addLemmas(1);
+            }
+        });
+
+        Map<String, Lemma> lemmaEntities = new HashMap<>();
+        repositoryManager.getLemmaRepository().findAllBySiteIdAndLemmaIn(siteEntity, pagesPerLemma.keySet())
+                .forEach(lemmaEntity -> {
+                    lemmaEntities.put(lemmaEntity.getLemma(), lemmaEntity);
+                    delta.updateMaxFrequency(lemmaEntity.getFrequency());
+                });
+
+        List<Index> indexEntities = new ArrayList<>();
+
+        indexedPages.forEach((pageEntity, lemmas) -> {
+            lemmas.forEach((str, count) -> {
+                Index indexEntity = new Index();
+                indexEntity.setPageId(pageEntity);
+                indexEntity.setLemmaId(lemmaEntities.get(str));
+                indexEntity.setRank(count.floatValue());
+                indexEntities.add(indexEntity);
+                delta.addTerms(count);
+            });
+        });
+
+        repositoryManager.getIndexRepository().saveAll(indexEntities);
+    }
+
+
     /**
      * Метод проверяет является ли переданное в параметры слово служебной частью речи и возвращает
      * соответствующий boolean
@@ -173,72 +398,4 @@ public final class Lemmatizator {
             throw new RuntimeException(e);
         }
     }
-
-
-    /**
-     * Метод создаёт, сохраняет в базу данных в рамках одной транзакции и возвращает
-     * новую сущность Lemma.
-     *
-     * @param site Сущность сайта
-     * @param str  Строка с леммой
-     * @return Lemma
-     */
-    private Lemma createAndSaveNewLemma(Site site, String str) {
-        Lemma lemmaEntity = new Lemma();
-        lemmaEntity.setSiteId(site);
-        lemmaEntity.setLemma(str);
-        lemmaEntity.setFrequency(1L);
-
-        repositoryManager.executeTransaction(() ->
-                repositoryManager.getLemmaRepository().save(lemmaEntity)
-        );
-
-        return lemmaEntity;
-    }
-
-
-    /**
-     * Метод создаёт и сохраняет в базу данных новую сущность Index в рамках одной транзакции.
-     *
-     * @param page        Сущность страницы
-     * @param lemmaEntity Сущность леммы
-     * @param count       Количество повторений леммы на странице
-     */
-    private void createAndSaveNewIndex(Page page, Lemma lemmaEntity, Integer count) {
-        Index indexEntity = new Index();
-        indexEntity.setPageId(page);
-        indexEntity.setLemmaId(lemmaEntity);
-        indexEntity.setRank(count.floatValue());
-
-        repositoryManager.executeTransaction(() ->
-                repositoryManager.getIndexRepository().save(indexEntity)
-        );
-
-    }
-
-
-    /**
-     * Метод проверяет, существует ли индексы у переданной в параметры страницы, если индексы существуют
-     * то из базы данных удаляются все индексы связанные с этой страницы, а так же обновляются/удаляются
-     * связанные леммы.
-     *
-     * @param page Сущность страницы
-     */
-    private void checkIndexExistence(Page page) {
-        List<Index> indexList = repositoryManager.getIndexRepository().findAllByPageId(page);
-
-        if (!indexList.isEmpty()) {
-            repositoryManager.getIndexRepository().deleteAll(indexList);
-
-            for (Index index : indexList) {
-                Lemma lemma = index.getLemmaId();
-                lemma.setFrequency(lemma.getFrequency() - 1);
-
-                if (lemma.getFrequency() == 0) {
-                    repositoryManager.getLemmaRepository().delete(lemma);
-                }
-            }
-        }
-    }
 }
-
@@ -0,0 +1,172 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.implementation.ThreadPoolManager;
+import searchengine.concurrency.tasks.PageFetchTask;
+import searchengine.dto.indexing.FetchedPage;
+import searchengine.model.implementation.IndexStatus;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.notbean.HTMLManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Component
+public class PageBatchIndexer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageBatchIndexer.class);
+    private static final int WRITE_BATCH_SIZE = 50;
+    private final RepositoryManager repositoryManager;
+    private final ThreadPoolManager threadPoolManager;
+    private final Lemmatizator lemmatizator;
+    private final PageFetcher pageFetcher;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public PageBatchIndexer(RepositoryManager repositoryManager, ThreadPoolManager threadPoolManager,
+                            Lemmatizator lemmatizator, PageFetcher pageFetcher) {
+        this.repositoryManager = repositoryManager;
+        this.threadPoolManager = threadPoolManager;
+        this.lemmatizator = lemmatizator;
+        this.pageFetcher = pageFetcher;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод параллельно загружает переданные страницы в пуле сетевой загрузки, а затем собирает их леммы
+     * в пуле разбора. Ошибка загрузки или разбора одной страницы не прерывает обработку остальных и
+     * сохраняется в её результате.
+     * @param pages Ссылки страниц и сайты, к которым они относятся
+     * @return List<FetchedPage> в порядке переданных ссылок
+     */
+    public List<FetchedPage> fetch(Map<String, Site> pages) {
+        List<CompletableFuture<FetchedPage>> futures = new ArrayList<>();
+
+        pages.forEach((url, site) -> futures.add(
+                CompletableFuture.supplyAsync(new PageFetchTask(url, site, pageFetcher), threadPoolManager.getFetchExecutor())
+                        .thenApplyAsync(this::collectLemmas, threadPoolManager.getParseExecutor())
+        ));
+
+        List<FetchedPage> results = new ArrayList<>();
+        Iterator<Map.Entry<String, Site>> entries = pages.entrySet().iterator();
+
+        for (CompletableFuture<FetchedPage> future : futures) {
+            Map.Entry<String, Site> entry = entries.next();
+
+            try {
+                results.add(future.join());
+            } catch (CompletionException | CancellationException e) {
+                FetchedPage failed = new FetchedPage(entry.getKey(), entry.getValue());
+                failed.setError(PageFetchTask.describe(e));
+                results.add(failed);
+            }
+        }
+
+        return results;
+    }
+
+
+    /**
+     * Метод записывает успешно загруженные страницы в базу данных. Страницы группируются по сайтам,
+     * сайты записываются параллельно в пуле записи, а страницы одного сайта последовательно пакетами
+     * по WRITE_BATCH_SIZE в отдельных транзакциях. На время записи сайт переводится в статус INDEXING.
+     * Страницы, которые уже есть в базе, переиндексируются. Если запись пакета завершилась ошибкой,
+     * она сохраняется в результатах всех страниц пакета.
+     * @param fetchedPages Результаты загрузки страниц
+     */
+    public void write(List<FetchedPage> fetchedPages) {
+        Map<Long, List<FetchedPage>> pagesBySite = new LinkedHashMap<>();
+        Set<String> paths = new HashSet<>();
+
+        for (FetchedPage fetchedPage : fetchedPages) {
+            if (fetchedPage.isFailed()) {
+                continue;
+            }
+
+            Site site = fetchedPage.getSite();
+
+            if (!paths.add(site.getId() + fetchedPage.getPage().getPath())) {
+                fetchedPage.setError("Страница с тем же путём уже есть в пакете");
+                continue;
+            }
+
+            pagesBySite.computeIfAbsent(site.getId(), id -> new ArrayList<>()).add(fetchedPage);
+        }
+
+        CompletableFuture.allOf(pagesBySite.values().stream()
+                .map(sitePages -> CompletableFuture.runAsync(() -> writeSitePages(sitePages),
+                        threadPoolManager.getWriteExecutor()))
+                .toArray(CompletableFuture[]::new)
+        ).join();
+    }
+
+    // UTILS METHODS //
+
+    private FetchedPage collectLemmas(FetchedPage fetchedPage) {
+        if (!fetchedPage.isFailed()) {
+            String text = HTMLManager.getTextFromHTML(fetchedPage.getPage().getContent());
+            fetchedPage.setLemmas(lemmatizator.collectLemmas(text));
+        }
+
+        return fetchedPage;
+    }
+
+
+    private void writeSitePages(List<FetchedPage> sitePages) {
+        Site siteEntity = sitePages.get(0).getSite();
+        siteEntity.setIndexStatus(IndexStatus.INDEXING);
+        repositoryManager.getSiteRepository().save(siteEntity);
+
+        for (int from = 0; from < sitePages.size(); from += WRITE_BATCH_SIZE) {
+            List<FetchedPage> batch = sitePages.subList(from, Math.min(sitePages.size(), from + WRITE_BATCH_SIZE));
+
+            try {
+                batch.forEach(this::attachExistingPage);
+                lemmatizator.saveBatch(siteEntity, batch);
+            } catch (RuntimeException e) {
+                LOGGER.error("Ошибка при записи пакета страниц сайта {}", siteEntity.getUrl(), e);
+                batch.forEach(page -> page.setError("Ошибка при сохранении страницы: " + e.getMessage()));
+            }
+        }
+
+        repositoryManager.executeTransaction(() ->
+                repositoryManager.getSiteRepository().updateStatusTimeById(siteEntity.getId(), LocalDateTime.now())
+        );
+
+        siteEntity.setIndexStatus(IndexStatus.INDEXED);
+        repositoryManager.getSiteRepository().save(siteEntity);
+    }
+
+
+    /**
+     * Метод ищет в базе страницу с тем же путём. Если страница найдена, ей передаются загруженные
+     * контент, заголовок и код ответа, и дальше переиндексируется уже она.
+     * @param fetchedPage Результат загрузки страницы
+     */
+    private void attachExistingPage(FetchedPage fetchedPage) {
+        Page fetched = fetchedPage.getPage();
+        Page existing = repositoryManager.getPageRepository()
+                .findBySiteIdAndPath(fetchedPage.getSite(), fetched.getPath());
+
+        if (existing == null) {
+            fetchedPage.setNewPage(true);
+            return;
+        }
+
+        existing.setContent(fetched.getContent());
+        existing.setTitle(fetched.getTitle());
+        existing.setCode(fetched.getCode());
+        fetchedPage.setPage(existing);
+        fetchedPage.setNewPage(false);
+    }
+}
@@ -0,0 +1,350 @@
+package searchengine.services.utils.bean;
+
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.hosts.HostLimiter;
+import searchengine.config.CrawlerSettings;
+import searchengine.exception.PageFetchException;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+import searchengine.services.utils.notbean.HTMLManager;
+import searchengine.services.utils.notbean.URLParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Компонент загрузки страниц. Все запросы идут через общий пул HTTP-соединений с таймаутами,
+ * а одновременные запросы к каждому хосту ограничиваются адаптивным {@link HostLimiter}. Ответы
+ * 429, 503 и прочие 5xx, а также сетевые ошибки повторяются с экспоненциальной задержкой со
+ * случайным разбросом; задержка не меньше значения заголовка Retry-After. Успешные ответы, которые
+ * не являются HTML-страницами, не читаются и не сохраняются.
+ */
+@Component
+public class PageFetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageFetcher.class);
+    private static final int MAX_TOTAL_CONNECTIONS = 200;
+    private static final Set<String> HTML_CONTENT_TYPES = Set.of("text/html", "application/xhtml+xml");
+    private final CrawlerSettings settings;
+    private final IndexingMetrics metrics;
+    private final CloseableHttpClient httpClient;
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public PageFetcher(CrawlerSettings settings, IndexingMetrics metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(MAX_TOTAL_CONNECTIONS)
+                        .setMaxConnPerRoute(settings.getMaxHostConcurrency())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(settings.getConnectTimeoutMillis()))
+                                .setSocketTimeout(Timeout.ofMilliseconds(settings.getResponseTimeoutMillis()))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(settings.getResponseTimeoutMillis()))
+                        .build())
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    // METHODS //
+
+    /**
+     * Метод загружает страницу и возвращает заполненную сущность Page: код ответа, контент, заголовок,
+     * путь и сайт. Временные ошибки повторяются не более maxRetries раз. Если после повторов сервер
+     * продолжает отвечать 5xx, возвращается страница с последним кодом ответа.
+     * @param url Ссылка на страницу
+     * @param site Сущность Site, к которой относится страница
+     * @return Page
+     * @throws PageFetchException если страницу не удалось загрузить из-за сетевых ошибок, либо
+     * сервер вернул вместо страницы содержимое другого типа
+     */
+    public Page fetch(@NonNull URL url, @NonNull Site site) {
+        HostLimiter limiter = getHostLimiter(url);
+        IOException lastError = null;
+
+        for (int attempt = 0; attempt <= settings.getMaxRetries(); attempt++) {
+            FetchResult result;
+            long start = System.nanoTime();
+
+            try {
+                result = execute(url, limiter);
+                metrics.recordFetch(site, result.code(), System.nanoTime() - start);
+            } catch (IOException e) {
+                metrics.recordFetchError(site, System.nanoTime() - start);
+                lastError = e;
+                limiter.onFailure();
+                LOGGER.debug("Ошибка загрузки {} (попытка {}): {}", url, attempt + 1, e.getMessage());
+
+                if (attempt < settings.getMaxRetries()) {
+                    sleep(backoffMillis(attempt, 0));
+                }
+                continue;
+            }
+
+            if (result.contentType() != null) {
+                throw new PageFetchException("Страница " + url + " не является HTML: " + result.contentType());
+            }
+
+            if (!result.isRetryable() || attempt == settings.getMaxRetries()) {
+                return toPage(url, site, result);
+            }
+
+            LOGGER.debug("Сервер вернул {} для {} (попытка {})", result.code(), url, attempt + 1);
+            sleep(backoffMillis(attempt, result.retryAfterMillis()));
+        }
+
+        throw new PageFetchException("Не удалось загрузить " + url + ": " + lastError.getMessage(), lastError);
+    }
+
+
+    /**
+     * Метод загружает служебный ресурс сайта, например robots.txt или карту сайта, одной попыткой
+     * с учётом ограничителя хоста и передаёт тело успешного ответа обработчику потоком, не загружая
+     * его в память целиком.
+     * @param url Ссылка на ресурс
+     * @param handler Обработчик тела ответа
+     * @return Optional результата обработчика, пустой, если ресурс недоступен или не загрузился
+     */
+    public <T> Optional<T> fetchStream(@NonNull URL url, StreamHandler<T> handler) {
+        HostLimiter limiter = getHostLimiter(url);
+        acquire(limiter, url);
+
+        try {
+            long start = System.nanoTime();
+
+            return httpClient.execute(newRequest(url), response -> {
+                int code = response.getCode();
+                long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                if (code == 429 || code == 503) {
+                    limiter.onOverload(parseRetryAfter(response.getFirstHeader(HttpHeaders.RETRY_AFTER)));
+                    return Optional.empty();
+                } else if (code >= 500) {
+                    limiter.onFailure();
+                    return Optional.empty();
+                }
+
+                limiter.onSuccess(latencyMillis);
+
+                if (code != 200 || response.getEntity() == null) {
+                    return Optional.empty();
+                }
+
+                try (InputStream content = response.getEntity().getContent()) {
+                    return Optional.ofNullable(handler.handle(content));
+                }
+            });
+        } catch (IOException e) {
+            limiter.onFailure();
+            LOGGER.debug("Ошибка загрузки {}: {}", url, e.getMessage());
+            return Optional.empty();
+        } finally {
+            limiter.release();
+        }
+    }
+
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод выполняет один запрос с учётом ограничителя хоста и передаёт ему результат: успешный ответ
+     * с временем ответа, перегрузку 429/503 с Retry-After или ошибку 5xx. Тело успешного ответа,
+     * который не является HTML-страницей, не читается.
+     * @param url Ссылка на страницу
+     * @param limiter Ограничитель хоста
+     * @return FetchResult
+     * @throws IOException при сетевой ошибке
+     */
+    private FetchResult execute(URL url, HostLimiter limiter) throws IOException {
+        acquire(limiter, url);
+
+        try {
+            long start = System.nanoTime();
+
+            FetchResult result = httpClient.execute(newRequest(url), response -> {
+                HttpEntity entity = response.getEntity();
+                long retryAfterMillis = parseRetryAfter(response.getFirstHeader(HttpHeaders.RETRY_AFTER));
+
+                if (entity == null) {
+                    return new FetchResult(response.getCode(), "", retryAfterMillis, null);
+                }
+
+                if (response.getCode() < 300 && !isHtml(entity.getContentType())) {
+                    EntityUtils.consume(entity);
+                    return new FetchResult(response.getCode(), "", retryAfterMillis, entity.getContentType());
+                }
+
+                return new FetchResult(response.getCode(), EntityUtils.toString(entity), retryAfterMillis, null);
+            });
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (result.code() == 429 || result.code() == 503) {
+                limiter.onOverload(result.retryAfterMillis());
+            } else if (result.code() >= 500) {
+                limiter.onFailure();
+            } else {
+                limiter.onSuccess(latencyMillis);
+            }
+
+            return result;
+        } finally {
+            limiter.release();
+        }
+    }
+
+
+    private HostLimiter getHostLimiter(URL url) {
+        return hostLimiters.computeIfAbsent(url.getHost(), host -> new HostLimiter(host, settings));
+    }
+
+
+    private static void acquire(HostLimiter limiter, URL url) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PageFetchException("Загрузка " + url + " прервана", e);
+        }
+    }
+
+
+    private HttpGet newRequest(URL url) {
+        HttpGet httpGet = new HttpGet(url.toString());
+        httpGet.addHeader(HttpHeaders.USER_AGENT, settings.getUserAgent());
+        httpGet.addHeader(HttpHeaders.REFERER, "http://www.google.com");
+        return httpGet;
+    }
+
+
+    /**
+     * Метод проверяет тип содержимого ответа. Ответ без заголовка Content-Type считается HTML-страницей.
+     * @param contentType Значение заголовка Content-Type, либо null
+     * @return true, если ответ является HTML-страницей
+     */
+    private static boolean isHtml(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return true;
+        }
+
+        String mimeType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return HTML_CONTENT_TYPES.contains(mimeType);
+    }
+
+
+    private static Page toPage(URL url, Site site, FetchResult result) {
+        Page page = new Page();
+        page.setCode(result.code());
+        page.setPath(URLParser.getPathFromUrl(URLParser.getBaseUrl(url), url));
+        page.setContent(result.content());
+        page.setTitle(HTMLManager.getTitleFromContent(result.content()));
+        page.setSiteId(site);
+        return page;
+    }
+
+
+    /**
+     * Метод вычисляет задержку перед повтором: экспоненциальную от номера попытки со случайным
+     * разбросом от 50% до 150%, но не меньше Retry-After и не больше retryMaxDelayMillis.
+     * @param attempt Номер попытки, начиная с 0
+     * @param retryAfterMillis Значение Retry-After в миллисекундах, либо 0
+     * @return Задержка в миллисекундах
+     */
+    private long backoffMillis(int attempt, long retryAfterMillis) {
+        long exponential = settings.getRetryBaseDelayMillis() << Math.min(attempt, 16);
+        long jittered = (long) (exponential * ThreadLocalRandom.current().nextDouble(0.5, 1.5));
+        return Math.min(Math.max(jittered, retryAfterMillis), settings.getRetryMaxDelayMillis());
+    }
+
+
+    /**
+     * Метод разбирает заголовок Retry-After, заданный в секундах либо HTTP-датой.
+     * @param header Заголовок, либо null
+     * @return Задержка в миллисекундах, либо 0, если заголовок отсутствует или некорректен
+     */
+    private static long parseRetryAfter(Header header) {
+        if (header == null) {
+            return 0;
+        }
+
+        String value = header.getValue().trim();
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return (date == null) ? 0 : Math.max(0, Duration.between(Instant.now(), date).toMillis());
+        }
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PageFetchException("Ожидание повтора загрузки прервано", e);
+        }
+    }
+
+
+    /**
+     * Обработчик тела ответа, читающий его потоком.
+     */
+    @FunctionalInterface
+    public interface StreamHandler<T> {
+        T handle(InputStream content) throws IOException;
+    }
+
+
+    /**
+     * Результат одного запроса.
+     * @param code Код ответа
+     * @param content Тело ответа
+     * @param retryAfterMillis Значение Retry-After в миллисекундах, либо 0
+     * @param contentType Тип содержимого успешного ответа, если это не HTML-страница, иначе null
+     */
+    private record FetchResult(int code, String content, long retryAfterMillis, String contentType) {
+
+        boolean isRetryable() {
+            return code == 429 || code >= 500;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchSettings;
+import searchengine.dto.response.implementation.indexing.SearchDebug;
+import searchengine.dto.search.SearchTimings;
+import searchengine.services.utils.notbean.SearchEvent;
+
+/**
+ * Компонент диагностики поиска. Для каждого запроса записывает событие JFR с разбивкой времени по
+ * этапам, а запросы дольше порога из настроек пишет в журнал медленных запросов searchengine.search.slow,
+ * который можно направить в отдельный файл настройками логирования.
+ */
+@Component
+public class SearchDiagnostics {
+
+    private static final Logger SLOW_QUERY_LOGGER = LoggerFactory.getLogger("searchengine.search.slow");
+    private final SearchSettings settings;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SearchDiagnostics(SearchSettings settings) {
+        this.settings = settings;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод создаёт событие JFR и начинает отсчёт его времени. Событие нужно передать в метод record
+     * после выполнения запроса.
+     * @return SearchEvent
+     */
+    public SearchEvent begin() {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return event;
+    }
+
+
+    /**
+     * Метод завершает событие JFR выполненного запроса и, если запрос выполнялся дольше порога,
+     * записывает его в журнал медленных запросов. Совмещённый запрос записывается без разбивки по
+     * этапам, так как его этапы выполнялись в другом запросе.
+     * @param event Событие, созданное методом begin
+     * @param query Поисковый запрос
+     * @param site Сайт, по которому выполнялся поиск, либо null
+     * @param results Количество найденных страниц
+     * @param timings Время этапов запроса
+     */
+    public void record(SearchEvent event, String query, String site, long results, SearchTimings timings) {
+        if (event.shouldCommit()) {
+            event.query = query;
+            event.site = site;
+            event.lemmas = timings.getLemmas();
+            event.lemmasUsed = timings.getLemmasUsed();
+            event.sites = timings.getSites();
+            event.candidates = timings.getCandidates();
+            event.results = results;
+            event.coalesced = timings.isCoalesced();
+            event.lemmatizeMillis = stageMillis(timings, SearchTimings.LEMMATIZE);
+            event.lemmaLookupMillis = stageMillis(timings, SearchTimings.LEMMA_LOOKUP);
+            event.relevanceMillis = stageMillis(timings, SearchTimings.RELEVANCE);
+            event.shardsMillis = stageMillis(timings, SearchTimings.SHARDS);
+            event.pageRetrievalMillis = stageMillis(timings, SearchTimings.PAGE_RETRIEVAL);
+            event.snippetsMillis = stageMillis(timings, SearchTimings.SNIPPETS);
+            event.commit();
+        }
+
+        long threshold = settings.getSlowQueryThresholdMillis();
+
+        if (threshold < 0 || timings.getTotalMillis() < threshold) {
+            return;
+        }
+
+        if (timings.isCoalesced()) {
+            SLOW_QUERY_LOGGER.warn("Медленный совмещённый запрос {} мс: query=\"{}\", site={}, results={}",
+                    timings.getTotalMillis(), query, site, results);
+        } else {
+            SLOW_QUERY_LOGGER.warn("Медленный запрос {} мс: query=\"{}\", site={}, lemmas={}, lemmasUsed={}, " +
+                            "sites={}, candidates={}, results={}, stages={}",
+                    timings.getTotalMillis(), query, site, timings.getLemmas(), timings.getLemmasUsed(),
+                    timings.getSites(), timings.getCandidates(), results, timings.getStageMillis());
+        }
+    }
+
+
+    public SearchDebug toDebug(SearchTimings timings) {
+        return new SearchDebug(timings.getStageMillis(), timings.getTotalMillis(), timings.getLemmas(),
+                timings.getLemmasUsed(), timings.getSites(), timings.getCandidates());
+    }
+
+    // UTILS METHODS //
+
+    private static double stageMillis(SearchTimings timings, String stage) {
+        return timings.getStageMillis().getOrDefault(stage, 0.0);
+    }
+}
@@ -0,0 +1,78 @@
+package searchengine.services.utils.bean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.implementation.ThreadPoolManager;
+import searchengine.concurrency.tasks.SiteSearchTask;
+import searchengine.config.SearchSettings;
+import searchengine.dto.search.PageRelevance;
+import searchengine.dto.search.SearchHits;
+import searchengine.dto.search.SearchTimings;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.services.utils.notbean.SearchResultMerger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Component
+public class SearchExecutor {
+
+    private static final double FREQUENCY_THRESHOLD_RATIO = 0.9;
+    private final RepositoryManager repositoryManager;
+    private final ThreadPoolManager threadPoolManager;
+    private final CorpusStatistics corpusStatistics;
+    private final SearchSettings settings;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SearchExecutor(RepositoryManager repositoryManager, ThreadPoolManager threadPoolManager,
+                          CorpusStatistics corpusStatistics, SearchSettings settings) {
+        this.repositoryManager = repositoryManager;
+        this.threadPoolManager = threadPoolManager;
+        this.corpusStatistics = corpusStatistics;
+        this.settings = settings;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод параллельно выполняет поиск по каждому из переданных сайтов в пуле поиска, а затем сливает
+     * лучшие результаты сайтов в общий список из limit элементов. Порог частоты лемм вычисляется один
+     * раз для всех сайтов, поэтому релевантность разных сайтов сопоставима. Сайты, поиск по которым не
+     * уложился во время или был отклонён пулом, в выдачу не попадают и учитываются в failedShards.
+     * @param lemmas Леммы поискового запроса
+     * @param sites Сайты, по которым выполняется поиск
+     * @param limit Количество лучших результатов, которые необходимо вернуть
+     * @param after Последняя выданная ранее страница, после которой продолжается выдача, либо null
+     * @param timings Время этапов запроса, в которое добавляется время поиска по сайтам и слияния
+     * @return SearchHits
+     */
+    public SearchHits execute(Collection<String> lemmas, List<Site> sites, int limit, PageRelevance after,
+                              SearchTimings timings) {
+        long maxFrequency = corpusStatistics.getMaxFrequency();
+
+        if (lemmas.isEmpty() || sites.isEmpty() || maxFrequency == 0) {
+            return SearchHits.empty();
+        }
+
+        long threshold = (long) (maxFrequency * FREQUENCY_THRESHOLD_RATIO);
+        List<Callable<SearchHits>> tasks = new ArrayList<>();
+
+        for (Site site : sites) {
+            tasks.add(new SiteSearchTask(repositoryManager, site, lemmas, threshold, limit, after, timings));
+        }
+
+        List<SearchHits> siteHits = timings.time(SearchTimings.SHARDS, () ->
+                threadPoolManager.invokeAllSearch(tasks, settings.getSiteSearchTimeoutMillis()));
+
+        return timings.time(SearchTimings.MERGE, () -> new SearchHits(
+                SearchResultMerger.mergeTopK(siteHits.stream().map(SearchHits::getHits).toList(), limit),
+                siteHits.stream().mapToLong(SearchHits::getCount).sum(),
+                tasks.size() - siteHits.size()
+        ));
+    }
+}
@@ -0,0 +1,131 @@
+package searchengine.services.utils.bean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import searchengine.concurrency.utils.SingleFlight;
+import searchengine.config.SearchSettings;
+import searchengine.dto.response.implementation.indexing.IndexingResponse;
+import searchengine.dto.search.SearchKey;
+import searchengine.exception.SearchOverloadedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Допуск поисковых запросов к выполнению. Одинаковые одновременные запросы совмещаются: выдачу
+ * вычисляет первый из них, остальные получают её результат. Одновременно выполняется не больше
+ * maxConcurrentSearches вычислений; запрос, не получивший разрешения за admissionTimeoutMillis,
+ * отклоняется, чтобы при всплесках нагрузки не копились потоки Tomcat и соединения с базой данных.
+ * Ожидающие совмещённые запросы разрешений не занимают, а ждут выдачу не дольше coalescingTimeoutMillis,
+ * после чего тоже отклоняются.
+ */
+@Component
+public class SearchGate {
+
+    private final SearchSettings settings;
+    private final Semaphore permits;
+    private final SingleFlight<SearchKey, ResponseEntity<IndexingResponse>> singleFlight = new SingleFlight<>();
+    private final Counter admittedCounter;
+    private final Counter rejectedCounter;
+    private final Counter coalescedCounter;
+    private final Counter coalescingTimeoutCounter;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SearchGate(SearchSettings settings, MeterRegistry registry) {
+        this.settings = settings;
+        this.permits = new Semaphore(Math.max(1, settings.getMaxConcurrentSearches()), true);
+        this.admittedCounter = searchCounter(registry, "admitted");
+        this.rejectedCounter = searchCounter(registry, "rejected");
+        this.coalescedCounter = searchCounter(registry, "coalesced");
+        this.coalescingTimeoutCounter = searchCounter(registry, "coalescing-timeout");
+        Gauge.builder("search.in.flight", singleFlight, SingleFlight::getInFlight)
+                .description("Количество выполняющихся вычислений выдачи")
+                .register(registry);
+    }
+
+    // METHODS //
+
+    /**
+     * Метод выполняет поиск с учётом совмещения и ограничения одновременных запросов.
+     * @param key Ключ совмещения запроса, либо null, если запрос не совмещается с другими
+     * @param search Вычисление выдачи
+     * @return ResponseEntity<IndexingResponse>
+     * @throws SearchOverloadedException если разрешение на выполнение или совмещённая выдача
+     * не получены за время ожидания
+     */
+    public ResponseEntity<IndexingResponse> execute(SearchKey key, Supplier<ResponseEntity<IndexingResponse>> search) {
+        if (key == null || !settings.isCoalescing()) {
+            return admit(search);
+        }
+
+        boolean[] leader = new boolean[1];
+        ResponseEntity<IndexingResponse> response;
+
+        try {
+            response = singleFlight.execute(key, () -> {
+                leader[0] = true;
+                return admit(search);
+            }, settings.getCoalescingTimeoutMillis());
+        } catch (TimeoutException e) {
+            coalescingTimeoutCounter.increment();
+            throw new SearchOverloadedException("Сервер перегружен поисковыми запросами, повторите запрос позже");
+        }
+
+        if (!leader[0]) {
+            coalescedCounter.increment();
+        }
+
+        return response;
+    }
+
+
+    /**
+     * Метод возвращает время в секундах, через которое клиенту стоит повторить отклонённый запрос.
+     * @return long
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(settings.getAdmissionTimeoutMillis()));
+    }
+
+    // UTILS METHODS //
+
+    private ResponseEntity<IndexingResponse> admit(Supplier<ResponseEntity<IndexingResponse>> search) {
+        boolean acquired;
+
+        try {
+            acquired = permits.tryAcquire(settings.getAdmissionTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new SearchOverloadedException("Сервер перегружен поисковыми запросами, повторите запрос позже");
+        }
+
+        admittedCounter.increment();
+
+        try {
+            return search.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    private static Counter searchCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("search.admission")
+                .description("Количество поисковых запросов по результату допуска")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
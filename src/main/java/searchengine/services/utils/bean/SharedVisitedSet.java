@@ -0,0 +1,66 @@
+package searchengine.services.utils.bean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.repository.implementation.CrawlVisitedRepository;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Общее для узлов кластера множество путей поколения сайта, взятых в обработку. Путь отмечается
+ * одним INSERT IGNORE по уникальному индексу (site_id, path_hash), поэтому из нескольких узлов
+ * путь достаётся только одному. Используется вместе с локальным множеством обходчика, которое
+ * отсекает повторы внутри узла без обращения к базе данных.
+ */
+@Component
+public class SharedVisitedSet {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private final CrawlVisitedRepository visitedRepository;
+    private final CrawlLeaseManager leaseManager;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SharedVisitedSet(RepositoryManager repositoryManager, CrawlLeaseManager leaseManager) {
+        this.visitedRepository = repositoryManager.getCrawlVisitedRepository();
+        this.leaseManager = leaseManager;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод отмечает путь поколения сайта как взятый в обработку этим узлом.
+     * @param site Поколение сайта
+     * @param path Канонический путь страницы
+     * @return true, если путь ещё не был взят ни одним узлом
+     */
+    public boolean claim(Site site, String path) {
+        return visitedRepository.insertIfAbsent(site.getId(), hash(path), leaseManager.getNodeId()) > 0;
+    }
+
+
+    /**
+     * Метод удаляет отметки завершённого обхода поколения сайта.
+     * @param site Поколение сайта
+     */
+    public void clear(Site site) {
+        visitedRepository.deleteAllBySiteId(site);
+    }
+
+    // UTILS METHODS //
+
+    private static long hash(String path) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+}
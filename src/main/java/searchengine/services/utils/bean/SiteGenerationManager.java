@@ -0,0 +1,181 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.config.SiteProps;
+import searchengine.model.implementation.IndexStatus;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Управляет поколениями индекса сайтов. Каждое поколение - отдельная запись в таблице site,
+ * к которой привязаны страницы, леммы и индексы. Поиск работает только по активному поколению,
+ * поэтому переиндексация пишет данные в новое неактивное поколение, а по завершении оно
+ * атомарно становится активным. Старые поколения удаляются по частям: сначала индексы, затем
+ * леммы, контент страниц, страницы и посещённые адреса, каждая часть - не больше
+ * {@value #DELETE_CHUNK_SIZE} строк в отдельной транзакции, и только после этого запись site.
+ * Так удаление большого поколения не держит блокировки и журнал отмены одной огромной транзакции.
+ */
+@Component
+public class SiteGenerationManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SiteGenerationManager.class);
+    private static final int DELETE_CHUNK_SIZE = 5_000;
+    private final RepositoryManager repositoryManager;
+    private final CorpusStatistics corpusStatistics;
+    private final IndexGeneration indexGeneration;
+    private final DuplicateDetector duplicateDetector;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SiteGenerationManager(RepositoryManager repositoryManager, CorpusStatistics corpusStatistics,
+                                 IndexGeneration indexGeneration, DuplicateDetector duplicateDetector) {
+        this.repositoryManager = repositoryManager;
+        this.corpusStatistics = corpusStatistics;
+        this.indexGeneration = indexGeneration;
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод удаляет оставшиеся от прошлых запусков неактивные поколения сайта и создаёт новое
+     * неактивное поколение со статусом INDEXING, в которое будет записываться индекс.
+     * @param siteProps Сайт из конфигурационного файла
+     * @return Site - новое поколение сайта
+     */
+    public Site createGeneration(SiteProps siteProps) {
+        dropInactiveGenerations(siteProps.getUrl());
+        return saveNewGeneration(siteProps, false);
+    }
+
+
+    /**
+     * Метод создаёт сразу активное поколение сайта. Используется, когда сайт ещё ни разу не был
+     * проиндексирован, а его страница индексируется отдельно.
+     * @param siteProps Сайт из конфигурационного файла
+     * @return Site - новое поколение сайта
+     */
+    public Site createActiveGeneration(SiteProps siteProps) {
+        return saveNewGeneration(siteProps, true);
+    }
+
+
+    /**
+     * Метод завершает переиндексацию сайта. Успешно проиндексированное поколение становится активным,
+     * а предыдущие поколения удаляются. Неудачное поколение становится активным только если у сайта
+     * нет активного поколения, иначе поиск продолжает работать по предыдущему.
+     * @param generation Поколение сайта, в которое выполнялась индексация
+     */
+    public void complete(Site generation) {
+        Site activeGeneration = repositoryManager.getSiteRepository().findActiveByUrl(generation.getUrl());
+
+        if (generation.getIndexStatus() != IndexStatus.INDEXED && activeGeneration != null) {
+            LOGGER.warn("Индексация сайта {} не завершена, поиск продолжит использовать поколение {}",
+                    generation.getUrl(), activeGeneration.getGeneration());
+            return;
+        }
+
+        repositoryManager.executeTransaction(() ->
+                repositoryManager.getSiteRepository().activateGeneration(generation.getUrl(), generation.getId())
+        );
+
+        generation.setActive(true);
+        indexGeneration.refreshAfterWrite();
+        dropInactiveGenerations(generation.getUrl());
+        corpusStatistics.load();
+    }
+
+
+    /**
+     * Метод удаляет неактивное поколение сайта вместе со всеми уже записанными в него строками.
+     * Используется, когда поколение заполнено не полностью и не должно стать активным ни при каких
+     * условиях, например при ошибке загрузки снимка.
+     * @param generation Поколение сайта
+     */
+    public void discard(Site generation) {
+        if (Boolean.TRUE.equals(generation.getActive())) {
+            return;
+        }
+
+        deleteGeneration(generation.getId());
+        corpusStatistics.remove(generation.getId());
+        duplicateDetector.evict(generation.getId());
+        LOGGER.info("Удалено незавершённое поколение {} сайта {}", generation.getGeneration(), generation.getUrl());
+    }
+
+    // UTILS METHODS //
+
+    private Site saveNewGeneration(SiteProps siteProps, boolean active) {
+        Site siteEntity = new Site();
+        siteEntity.setUrl(siteProps.getUrl());
+        siteEntity.setName(siteProps.getName());
+        siteEntity.setIndexStatus(IndexStatus.INDEXING);
+        siteEntity.setLastError("");
+        siteEntity.setStatusTime(LocalDateTime.now());
+        siteEntity.setActive(active);
+
+        repositoryManager.executeTransaction(() -> {
+            int generation = repositoryManager.getSiteRepository().findMaxGenerationByUrl(siteProps.getUrl()) + 1;
+            siteEntity.setGeneration(generation);
+            repositoryManager.getSiteRepository().save(siteEntity);
+        });
+
+        return siteEntity;
+    }
+
+
+    private void dropInactiveGenerations(String url) {
+        List<Long> siteIds = repositoryManager.getSiteRepository().findInactiveIdsByUrl(url);
+
+        if (siteIds.isEmpty()) {
+            return;
+        }
+
+        siteIds.forEach(this::deleteGeneration);
+        siteIds.forEach(corpusStatistics::remove);
+        siteIds.forEach(duplicateDetector::evict);
+        LOGGER.info("Удалено поколений сайта {}: {}", url, siteIds.size());
+    }
+
+
+    /**
+     * Метод удаляет поколение сайта частями, каждая в своей транзакции. Строки зависимых таблиц
+     * удаляются раньше строк, на которые они ссылаются, поэтому каскад внешних ключей при удалении
+     * записи site затрагивает только статистику и аренды сайта.
+     * @param siteId id поколения сайта
+     */
+    private void deleteGeneration(Long siteId) {
+        deleteInChunks(limit -> repositoryManager.getIndexRepository().deleteChunkBySiteId(siteId, limit));
+        deleteInChunks(limit -> repositoryManager.getLemmaRepository().deleteChunkBySiteId(siteId, limit));
+        deleteInChunks(limit -> repositoryManager.getPageContentRepository().deleteChunkBySiteId(siteId, limit));
+        deleteInChunks(limit -> repositoryManager.getPageRepository().deleteChunkBySiteId(siteId, limit));
+        deleteInChunks(limit -> repositoryManager.getCrawlVisitedRepository().deleteChunkBySiteId(siteId, limit));
+
+        repositoryManager.executeTransaction(() ->
+                repositoryManager.getSiteRepository().deleteAllByIdIn(List.of(siteId))
+        );
+    }
+
+
+    /**
+     * Метод повторяет удаление части строк в отдельных транзакциях, пока очередная часть не окажется
+     * меньше {@value #DELETE_CHUNK_SIZE} строк.
+     * @param deleteChunk Удаление не больше переданного количества строк, возвращающее число удалённых
+     */
+    private void deleteInChunks(IntUnaryOperator deleteChunk) {
+        AtomicInteger deleted = new AtomicInteger();
+
+        do {
+            repositoryManager.executeTransaction(() -> deleted.set(deleteChunk.applyAsInt(DELETE_CHUNK_SIZE)));
+        } while (deleted.get() >= DELETE_CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,265 @@
+package searchengine.services.utils.bean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.config.SiteProps;
+import searchengine.dto.indexing.SitemapEntry;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Компонент читает карты сайта. Адреса карт берутся из директив Sitemap в robots.txt, а если их
+ * нет - используется /sitemap.xml. Индексные карты разворачиваются, сжатые gzip карты
+ * распаковываются на лету, а XML разбирается потоково, поэтому большие карты не загружаются
+ * в память целиком. Адреса страниц приводятся к каноническому виду, адреса чужих хостов
+ * отбрасываются.
+ */
+@Component
+public class SitemapReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SitemapReader.class);
+    private static final int MAX_SITEMAPS = 50;
+    private static final int MAX_ENTRIES = 50_000;
+    private static final String SITEMAP_DIRECTIVE = "sitemap:";
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+    private final PageFetcher pageFetcher;
+    private final UrlCanonicalizer urlCanonicalizer;
+
+    // CONSTRUCTORS //
+
+    @Autowired
+    public SitemapReader(PageFetcher pageFetcher, UrlCanonicalizer urlCanonicalizer) {
+        this.pageFetcher = pageFetcher;
+        this.urlCanonicalizer = urlCanonicalizer;
+    }
+
+    // METHODS //
+
+    /**
+     * Метод читает все карты сайта и возвращает записи страниц в порядке их появления в картах.
+     * Повторяющиеся пути отбрасываются. Читается не более MAX_SITEMAPS карт и MAX_ENTRIES записей.
+     * Недоступная или некорректная карта пропускается.
+     * @param site Настройки сайта
+     * @return List<SitemapEntry>, пустой, если у сайта нет карты
+     */
+    public List<SitemapEntry> read(SiteProps site) {
+        Deque<String> sitemaps = new ArrayDeque<>(findSitemapUrls(site));
+        Set<String> visited = new HashSet<>();
+        Map<String, SitemapEntry> entries = new LinkedHashMap<>();
+
+        while (!sitemaps.isEmpty() && visited.size() < MAX_SITEMAPS && entries.size() < MAX_ENTRIES) {
+            String sitemapUrl = sitemaps.poll();
+
+            if (!visited.add(sitemapUrl)) {
+                continue;
+            }
+
+            Optional<URL> url = toUrl(sitemapUrl);
+
+            if (url.isEmpty()) {
+                continue;
+            }
+
+            Optional<Boolean> parsed = pageFetcher.fetchStream(url.get(), content -> {
+                parse(decompress(content, sitemapUrl), sitemaps::add, (loc, lastModified) -> {
+                    if (entries.size() < MAX_ENTRIES) {
+                        urlCanonicalizer.canonicalize(site, loc).ifPresent(path ->
+                                entries.putIfAbsent(path, new SitemapEntry(path, lastModified)));
+                    }
+                });
+                return true;
+            });
+
+            if (parsed.isEmpty()) {
+                LOGGER.debug("Карта сайта {} недоступна", sitemapUrl);
+            }
+        }
+
+        return new ArrayList<>(entries.values());
+    }
+
+    // UTILS METHODS //
+
+    /**
+     * Метод читает директивы Sitemap из robots.txt сайта.
+     * @param site Настройки сайта
+     * @return Адреса карт сайта, либо адрес /sitemap.xml, если директив нет
+     */
+    private List<String> findSitemapUrls(SiteProps site) {
+        String siteUrl = site.getUrl().replaceAll("/+$", "");
+        List<String> sitemapUrls = toUrl(siteUrl + "/robots.txt")
+                .flatMap(robots -> pageFetcher.fetchStream(robots, SitemapReader::readSitemapDirectives))
+                .orElse(List.of());
+
+        return sitemapUrls.isEmpty() ? List.of(siteUrl + "/sitemap.xml") : sitemapUrls;
+    }
+
+
+    private static List<String> readSitemapDirectives(InputStream content) throws IOException {
+        List<String> sitemapUrls = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+
+            if (trimmed.regionMatches(true, 0, SITEMAP_DIRECTIVE, 0, SITEMAP_DIRECTIVE.length())) {
+                String value = trimmed.substring(SITEMAP_DIRECTIVE.length()).trim();
+
+                if (!value.isEmpty()) {
+                    sitemapUrls.add(value);
+                }
+            }
+        }
+
+        return sitemapUrls;
+    }
+
+
+    /**
+     * Метод потоково разбирает карту сайта. Для индексной карты передаёт адреса вложенных карт,
+     * для обычной - адреса страниц с датами изменения.
+     * @param content Поток XML
+     * @param onSitemap Обработчик адреса вложенной карты
+     * @param onUrl Обработчик адреса страницы и даты её изменения
+     * @throws IOException если XML некорректен
+     */
+    private static void parse(InputStream content, Consumer<String> onSitemap, UrlHandler onUrl) throws IOException {
+        StringBuilder text = new StringBuilder();
+        String loc = null;
+        Instant lastModified = null;
+        int depth = 0;
+        int entryDepth = -1;
+
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(content);
+
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> {
+                            depth++;
+                            text.setLength(0);
+
+                            if (reader.getLocalName().equals("url") || reader.getLocalName().equals("sitemap")) {
+                                entryDepth = depth;
+                                loc = null;
+                                lastModified = null;
+                            }
+                        }
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                        case XMLStreamConstants.END_ELEMENT -> {
+                            // Вложенные элементы расширений, например image:loc, пропускаются
+                            boolean entryChild = depth == entryDepth + 1;
+                            depth--;
+
+                            switch (reader.getLocalName()) {
+                                case "loc" -> loc = entryChild ? text.toString().trim() : loc;
+                                case "lastmod" -> lastModified = entryChild
+                                        ? parseLastModified(text.toString().trim()) : lastModified;
+                                case "url" -> {
+                                    if (loc != null && !loc.isEmpty()) {
+                                        onUrl.accept(loc, lastModified);
+                                    }
+                                }
+                                case "sitemap" -> {
+                                    if (loc != null && !loc.isEmpty()) {
+                                        onSitemap.accept(loc);
+                                    }
+                                }
+                                default -> { }
+                            }
+                            text.setLength(0);
+                        }
+                        default -> { }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Некорректная карта сайта: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Метод разбирает дату из {@code <lastmod>} в формате W3C Datetime: только дата, либо дата
+     * и время с часовым поясом. Дата без времени считается началом суток по UTC.
+     * @param value Значение элемента
+     * @return Instant, либо null, если дата некорректна
+     */
+    private static Instant parseLastModified(String value) {
+        try {
+            return (value.length() <= 10)
+                    ? LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Метод распаковывает поток, если он сжат gzip. Сжатие определяется по сигнатуре потока,
+     * поскольку сервер может отдавать .xml.gz без заголовка Content-Encoding и наоборот.
+     * @param content Тело ответа
+     * @param url Адрес карты, используется для сообщения об ошибке
+     * @return Поток XML
+     * @throws IOException при ошибке чтения
+     */
+    private static InputStream decompress(InputStream content, String url) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(content);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+
+        if (first == 0x1F && second == 0x8B) {
+            LOGGER.debug("Карта сайта {} сжата gzip", url);
+            return new GZIPInputStream(buffered);
+        }
+
+        return buffered;
+    }
+
+
+    private static Optional<URL> toUrl(String url) {
+        try {
+            return Optional.of(URI.create(url).toURL());
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            LOGGER.debug("Некорректный адрес карты сайта {}", url);
+            return Optional.empty();
+        }
+    }
+
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+
+    @FunctionalInterface
+    private interface UrlHandler {
+        void accept(String loc, Instant lastModified);
+    }
+}
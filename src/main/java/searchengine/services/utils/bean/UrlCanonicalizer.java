@@ -0,0 +1,321 @@
+package searchengine.services.utils.bean;
+
+import org.springframework.stereotype.Component;
+import searchengine.config.SiteProps;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Компонент приводит ссылки к каноническому виду, чтобы разные записи одного адреса загружались
+ * и индексировались один раз. Канонический вид - путь относительно сайта с необязательной строкой
+ * запроса: относительные ссылки разрешаются от адреса страницы, фрагмент отбрасывается, точечные
+ * сегменты и повторяющиеся слэши убираются, index.html и завершающий слэш отбрасываются,
+ * percent-кодирование нормализуется, а параметры отслеживания и сессий удаляются, остальные
+ * параметры сортируются. Регистр пути сохраняется. Ссылки на файлы, которые не являются HTML-страницами, -
+ * документы, изображения, архивы, стили, скрипты, медиафайлы, - отбрасываются по расширению.
+ */
+@Component
+public class UrlCanonicalizer {
+
+    private static final Set<String> IGNORED_PARAMETERS = Set.of(
+            "gclid", "fbclid", "yclid", "msclkid", "_openstat",
+            "sid", "sessionid", "session_id", "phpsessid", "jsessionid"
+    );
+    private static final String IGNORED_PARAMETER_PREFIX = "utm_";
+    private static final Set<String> INDEX_FILES = Set.of("index.html", "index.htm", "index.php");
+    private static final Set<String> IGNORED_SCHEMES = Set.of("javascript", "mailto", "tel", "data");
+    private static final Set<String> NON_HTML_EXTENSIONS = Set.of(
+            "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "rtf", "csv", "txt",
+            "jpg", "jpeg", "png", "gif", "bmp", "webp", "svg", "ico", "tif", "tiff", "heic",
+            "zip", "rar", "7z", "gz", "tgz", "tar", "bz2", "xz",
+            "css", "js", "mjs", "json", "xml", "rss", "woff", "woff2", "ttf", "otf", "eot",
+            "mp3", "mp4", "m4a", "avi", "mov", "wmv", "flv", "mkv", "webm", "wav", "ogg",
+            "exe", "msi", "dmg", "apk", "iso", "bin"
+    );
+    private static final String UNRESERVED_SYMBOLS = "-._~";
+    private static final String RESERVED_SYMBOLS = ":/?#[]@!$&'()*+,;=";
+
+    // METHODS //
+
+    /**
+     * Метод приводит абсолютную ссылку к каноническому пути сайта.
+     * @param site Настройки сайта
+     * @param url Абсолютная ссылка
+     * @return Optional канонического пути, пустой, если ссылка не относится к сайту
+     */
+    public Optional<String> canonicalize(SiteProps site, String url) {
+        return canonicalize(site, URI.create(site.getUrl()), url);
+    }
+
+
+    /**
+     * Метод разрешает ссылку относительно адреса страницы и приводит её к каноническому пути сайта.
+     * Ссылки на другие хосты, ссылки не по протоколам http и https и ссылки на файлы, не являющиеся
+     * HTML-страницами, отбрасываются. Хосты с префиксом www и без него считаются одним хостом.
+     * @param site Настройки сайта
+     * @param base Адрес страницы, на которой найдена ссылка
+     * @param href Значение атрибута href
+     * @return Optional канонического пути, пустой, если ссылка не относится к сайту
+     */
+    public Optional<String> canonicalize(SiteProps site, URI base, String href) {
+        if (href == null || href.isBlank() || isIgnoredScheme(href.trim())) {
+            return Optional.empty();
+        }
+
+        URI uri;
+
+        try {
+            uri = resolve(base, URI.create(encodeIllegalCharacters(href.trim()))).normalize();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        URI siteUri = URI.create(site.getUrl());
+        String scheme = uri.getScheme();
+
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+                || !isSameHost(uri, siteUri)) {
+            return Optional.empty();
+        }
+
+        String path = normalizePath(uri.getRawPath());
+
+        if (isNonHtmlFile(path)) {
+            return Optional.empty();
+        }
+
+        String query = normalizeQuery(uri.getRawQuery(), site.getIgnoredParameters());
+
+        return Optional.of(query.isEmpty() ? path : path + "?" + query);
+    }
+
+    // UTILS METHODS //
+
+    private static boolean isIgnoredScheme(String href) {
+        int colon = href.indexOf(':');
+        return colon > 0 && IGNORED_SCHEMES.contains(href.substring(0, colon).toLowerCase(Locale.ROOT));
+    }
+
+
+    /**
+     * Метод разрешает ссылку относительно адреса страницы по RFC 3986, раздел 5.2. В отличие от
+     * {@link URI#resolve(URI)}, который следует RFC 2396, ссылка с пустым путём - только строка запроса
+     * или только фрагмент - сохраняет путь страницы: "?p=2" на /dir/page даёт /dir/page?p=2, а не /dir/?p=2.
+     * @param base Адрес страницы
+     * @param reference Ссылка
+     * @return Абсолютный адрес
+     */
+    private static URI resolve(URI base, URI reference) {
+        if (reference.isAbsolute() || reference.getRawAuthority() != null
+                || reference.getRawPath() == null || !reference.getRawPath().isEmpty()) {
+            return base.resolve(reference);
+        }
+
+        String query = (reference.getRawQuery() != null) ? reference.getRawQuery() : base.getRawQuery();
+        String path = (base.getRawPath() == null || base.getRawPath().isEmpty()) ? "/" : base.getRawPath();
+
+        return URI.create(base.getScheme() + "://" + base.getRawAuthority() + path
+                + ((query != null) ? "?" + query : ""));
+    }
+
+
+    /**
+     * Метод сравнивает хосты без учёта префикса www. Порты совпадают, если оба адреса используют
+     * порт по умолчанию своей схемы, либо если совпадают и схема, и порт. Поэтому http и https
+     * версии сайта считаются одним сайтом, а https://host:80 и http://host:443 - нет.
+     */
+    private static boolean isSameHost(URI uri, URI siteUri) {
+        if (uri.getHost() == null || siteUri.getHost() == null) {
+            return false;
+        }
+
+        boolean samePort = (isDefaultPort(uri) && isDefaultPort(siteUri))
+                || (uri.getScheme().equalsIgnoreCase(siteUri.getScheme())
+                && effectivePort(uri) == effectivePort(siteUri));
+
+        return samePort && stripWww(uri.getHost()).equals(stripWww(siteUri.getHost()));
+    }
+
+
+    private static int effectivePort(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+
+    private static boolean isDefaultPort(URI uri) {
+        return effectivePort(uri) == ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+    }
+
+
+    private static String stripWww(String host) {
+        String lowerHost = host.toLowerCase(Locale.ROOT);
+        return lowerHost.startsWith("www.") ? lowerHost.substring(4) : lowerHost;
+    }
+
+
+    private static boolean isNonHtmlFile(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && NON_HTML_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+
+    /**
+     * Метод приводит путь к каноническому виду: пустой путь заменяется на "/", повторяющиеся слэши
+     * сжимаются, индексный файл каталога и завершающий слэш отбрасываются.
+     * @param rawPath Путь в percent-кодировке
+     * @return Канонический путь
+     */
+    private static String normalizePath(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+
+        String path = normalizePercentEncoding(rawPath.replaceAll("/{2,}", "/"));
+        int lastSlash = path.lastIndexOf('/');
+
+        if (INDEX_FILES.contains(path.substring(lastSlash + 1).toLowerCase(Locale.ROOT))) {
+            path = path.substring(0, lastSlash + 1);
+        }
+
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+
+    /**
+     * Метод удаляет из строки запроса параметры отслеживания и сессий, общие и указанные в настройках
+     * сайта, и сортирует оставшиеся параметры. Имя параметра в настройках сайта, оканчивающееся
+     * на "*", задаёт префикс.
+     * @param rawQuery Строка запроса в percent-кодировке, либо null
+     * @param siteIgnoredParameters Параметры, которые игнорируются на сайте
+     * @return Каноническая строка запроса, либо пустая строка
+     */
+    private static String normalizeQuery(String rawQuery, List<String> siteIgnoredParameters) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        List<String> parameters = new ArrayList<>();
+
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+
+            String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+
+            if (!isIgnoredParameter(name, siteIgnoredParameters)) {
+                parameters.add(normalizePercentEncoding(parameter));
+            }
+        }
+
+        parameters.sort(Comparator.comparing((String parameter) -> parameter.split("=", 2)[0])
+                .thenComparing(Comparator.naturalOrder()));
+        return String.join("&", parameters);
+    }
+
+
+    private static boolean isIgnoredParameter(String name, List<String> siteIgnoredParameters) {
+        if (IGNORED_PARAMETERS.contains(name) || name.startsWith(IGNORED_PARAMETER_PREFIX)) {
+            return true;
+        }
+
+        for (String ignored : siteIgnoredParameters) {
+            String lowerIgnored = ignored.toLowerCase(Locale.ROOT);
+
+            if (lowerIgnored.endsWith("*")
+                    ? name.startsWith(lowerIgnored.substring(0, lowerIgnored.length() - 1))
+                    : name.equals(lowerIgnored)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Метод декодирует percent-последовательности незарезервированных символов и переводит
+     * шестнадцатеричные цифры остальных последовательностей в верхний регистр, чтобы одинаковые
+     * адреса, закодированные по-разному, совпадали.
+     * @param value Строка в percent-кодировке
+     * @return Нормализованная строка
+     */
+    private static String normalizePercentEncoding(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '%' && i + 2 < value.length() && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2))) {
+                char decoded = (char) Integer.parseInt(value.substring(i + 1, i + 3), 16);
+
+                if (isUnreserved(decoded)) {
+                    result.append(decoded);
+                } else {
+                    result.append('%').append(value.substring(i + 1, i + 3).toUpperCase(Locale.ROOT));
+                }
+
+                i += 2;
+                continue;
+            }
+
+            result.append(c);
+        }
+
+        return result.toString();
+    }
+
+
+    /**
+     * Метод кодирует символы, недопустимые в URI: пробелы, кириллицу и прочие символы вне ASCII,
+     * а также знак процента, за которым не следует шестнадцатеричная пара.
+     * @param href Значение атрибута href
+     * @return Строка, пригодная для разбора как URI
+     */
+    private static String encodeIllegalCharacters(String href) {
+        StringBuilder result = new StringBuilder(href.length());
+
+        for (int i = 0; i < href.length(); i++) {
+            char c = href.charAt(i);
+            boolean validEscape = c == '%' && i + 2 < href.length()
+                    && isHex(href.charAt(i + 1)) && isHex(href.charAt(i + 2));
+
+            if (validEscape || isUnreserved(c) || RESERVED_SYMBOLS.indexOf(c) >= 0) {
+                result.append(c);
+                continue;
+            }
+
+            int codePoint = href.codePointAt(i);
+
+            for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                result.append('%').append(String.format("%02X", b & 0xFF));
+            }
+
+            i += Character.charCount(codePoint) - 1;
+        }
+
+        return result.toString();
+    }
+
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || UNRESERVED_SYMBOLS.indexOf(c) >= 0;
+    }
+
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -1,105 +1,46 @@
 package searchengine.services.utils.notbean;
 
 import lombok.NonNull;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ClassicHttpRequest;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import searchengine.model.implementation.Page;
-import searchengine.repository.implementation.SiteRepository;
-
-import java.io.IOException;
-import java.net.URL;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class HTMLManager {
-    private static final Logger LOGGER = LoggerFactory.getLogger(HTMLManager.class);
-
-
     private HTMLManager() {}
 
 
     /**
-     * Метод создаёт, заполняет и возвращает экземпляр Page. Под заполнением подразумевается получение
-     * статуса страницы, её содержимого, пути из переданного url и указание Site к которому принадлежит
-     * данная страница
-     * @param url Ссылка на страницу
-     * @param siteRepository JPA-репозиторий объекта Site
-     * @return Page - Объект страницы
+     * Метод возвращает значения атрибутов href всех ссылок документа в исходном виде. Ссылки
+     * не фильтруются и не нормализуются: это делает UrlCanonicalizer.
+     * @param doc Document JSoup
+     * @return List значений href в порядке появления на странице
      */
-    public static Page getPageEntity(@NonNull URL url, @NonNull SiteRepository siteRepository) {
-
-        String baseUrl = URLParser.getBaseUrl(url);
-        String path = URLParser.getPathFromUrl(baseUrl, url);
-        Page page = new Page();
-        AtomicReference<String> html = new AtomicReference<>("");
-
-        try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-            ClassicHttpRequest httpGet = ClassicRequestBuilder.get(url.toString()).build();
-            httpGet.addHeader("User-Agent", "DysonSearchBot");
-            httpGet.addHeader("Referer", "http://www.google.com");
-
-            httpclient.execute(httpGet, response -> {
-                html.set(EntityUtils.toString(response.getEntity()));
-                page.setCode(response.getCode());
-                page.setPath(path);
-                page.setContent(html.get());
-                page.setSiteId(siteRepository.findByUrl(baseUrl));
-                return null;
-            });
-
-
-        } catch (IOException e) {
-            LOGGER.error("Ошибка при попытке собрать сущность Page", e);
-            throw new RuntimeException(e);
+    public static List<String> getLinkHrefs(@NonNull Document doc) {
+        List<String> hrefs = new ArrayList<>();
+
+        for (Element link : doc.select("a[href]")) {
+            hrefs.add(link.attr("href"));
         }
 
-        return page;
+        return hrefs;
     }
 
 
     /**
-     * Метод принимает ссылку, через которую делает обход по всей странице и возвращает список
-     * найденных уникальных внутренних ссылок. Все ссылки добавляются в нижнем регистре.
-     * @param page Сущность страницы, содержащая html-страницу
-     * @return Set ссылок найденных на странице
+     * Метод возвращает значение href элемента link rel="canonical", если он указан на странице.
+     * @param doc Document JSoup
+     * @return Optional значения href
      */
-    public static Set<String> getPagePaths(@NonNull Page page) {
-
-        String baseUrl = page.getSiteId().getUrl();
-        Set<String> foundedPageLinks = new HashSet<>();
-        Document doc = Jsoup.parse(page.getContent());
-        Elements links = doc.select("a");
-
-        String regex = "(" + Pattern.quote(baseUrl) + ")?(/[^,.\\s\"]+)(\\.html|\\.htm)?";
-
-        for (Element link : links) {
-            String href = link.attr("href");
-
-            if (!href.matches(regex)) {
-                continue;
-            }
-            if (href.endsWith("/")) {
-                href = href.substring(0, href.length() - 1);
-            }
-            if (href.startsWith(baseUrl)) {
-                href = href.substring(baseUrl.length());
-            }
-
-            foundedPageLinks.add(href.toLowerCase());
-        }
-
-        return foundedPageLinks;
+    public static Optional<String> getCanonicalHref(@NonNull Document doc) {
+        Element canonical = doc.selectFirst("link[rel=canonical][href]");
+        return (canonical == null) ? Optional.empty() : Optional.of(canonical.attr("href"));
     }
 
 
@@ -133,4 +74,59 @@ public final class HTMLManager {
         Document doc = Jsoup.parse(content);
         return doc.title();
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Метод строит сниппет поисковой выдачи: находит элементы страницы, собственный текст которых
+     * содержит первую встретившуюся лемму запроса, отбрасывает элементы без остальных лемм, выделяет
+     * леммы в тексте первого оставшегося элемента тегом b и обрезает его до 200 символов.
+     * @param doc Document JSoup
+     * @param lemmas Леммы поискового запроса
+     * @return Строка сниппета, либо пустая строка, если леммы на странице не найдены
+     */
+    public static String getSnippet(@NonNull Document doc, List<String> lemmas) {
+        List<Element> elements = new ArrayList<>();
+
+        for (String lemma : lemmas) {
+            elements = doc.body().getElementsContainingOwnText(lemma);
+
+            if (!elements.isEmpty()) {
+                break;
+            }
+        }
+
+        if (elements.isEmpty()) {
+            return "";
+        }
+
+        for (String currentLemma : lemmas) {
+            Iterator<Element> iterator = elements.iterator();
+
+            while (iterator.hasNext()) {
+                Element el = iterator.next();
+
+                if (elements.size() == 1) {
+                    break;
+                }
+
+                if (!el.text().contains(currentLemma)) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        String resultText = elements.get(0).text();
+
+        for (String lemma : lemmas) {
+            Pattern pattern = Pattern.compile(lemma, Pattern.CASE_INSENSITIVE);
+            Matcher matcher = pattern.matcher(resultText);
+            resultText = matcher.replaceAll("<b>$0</b>");
+        }
+
+        if (resultText.length() > 200) {
+            resultText = resultText.substring(0, 197) + "...";
+        }
+
+        return resultText;
+    }
+}
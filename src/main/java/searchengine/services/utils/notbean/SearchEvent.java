@@ -0,0 +1,58 @@
+package searchengine.services.utils.notbean;
+
+import jdk.jfr.*;
+
+/**
+ * Событие Java Flight Recorder, которое записывается для каждого поискового запроса. Время события
+ * совпадает со временем запроса, а поля содержат разбивку по этапам в миллисекундах.
+ */
+@Name("searchengine.Search")
+@Label("Search Request")
+@Category({"Search Engine", "Search"})
+@Description("Поисковый запрос с разбивкой времени по этапам")
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Site")
+    public String site;
+
+    @Label("Lemmas")
+    public int lemmas;
+
+    @Label("Lemmas Used")
+    public long lemmasUsed;
+
+    @Label("Sites")
+    public int sites;
+
+    @Label("Candidates")
+    public long candidates;
+
+    @Label("Results")
+    public long results;
+
+    @Label("Coalesced")
+    @Description("Выдача получена от совмещённого одинакового запроса, этапы не выполнялись")
+    public boolean coalesced;
+
+    @Label("Lemmatize (ms)")
+    public double lemmatizeMillis;
+
+    @Label("Lemma Lookup (ms)")
+    public double lemmaLookupMillis;
+
+    @Label("Relevance (ms)")
+    public double relevanceMillis;
+
+    @Label("Shards (ms)")
+    public double shardsMillis;
+
+    @Label("Page Retrieval (ms)")
+    public double pageRetrievalMillis;
+
+    @Label("Snippets (ms)")
+    public double snippetsMillis;
+}
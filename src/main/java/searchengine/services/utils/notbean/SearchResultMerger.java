@@ -0,0 +1,98 @@
+package searchengine.services.utils.notbean;
+
+import searchengine.dto.search.PageRelevance;
+
+import java.util.*;
+
+public final class SearchResultMerger {
+
+    /**
+     * Порядок выдачи: по убыванию релевантности, при равной релевантности - по возрастанию id страницы,
+     * чтобы выдача была детерминированной.
+     */
+    public static final Comparator<PageRelevance> RELEVANCE_ORDER =
+            Comparator.comparing(PageRelevance::getRelevance, Comparator.reverseOrder())
+                    .thenComparing(PageRelevance::getPageId);
+
+
+    private SearchResultMerger() {}
+
+
+    /**
+     * Метод выбирает из неупорядоченного списка k наиболее релевантных страниц при помощи кучи
+     * размера k и возвращает их отсортированными в порядке RELEVANCE_ORDER.
+     * @param pages Неупорядоченный список страниц с релевантностью
+     * @param k Количество возвращаемых страниц
+     * @return List<PageRelevance>
+     */
+    public static List<PageRelevance> selectTopK(List<PageRelevance> pages, int k) {
+        if (k <= 0 || pages.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        PriorityQueue<PageRelevance> heap = new PriorityQueue<>(k, RELEVANCE_ORDER.reversed());
+
+        for (PageRelevance page : pages) {
+            if (heap.size() < k) {
+                heap.add(page);
+            } else if (RELEVANCE_ORDER.compare(page, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(page);
+            }
+        }
+
+        List<PageRelevance> result = new ArrayList<>(heap);
+        result.sort(RELEVANCE_ORDER);
+        return result;
+    }
+
+
+    /**
+     * Метод сливает несколько уже отсортированных в порядке RELEVANCE_ORDER списков в один при помощи
+     * k-путевого слияния через кучу и возвращает первые k элементов.
+     * @param sortedLists Отсортированные списки страниц, например результаты поиска по отдельным сайтам
+     * @param k Количество возвращаемых страниц
+     * @return List<PageRelevance>
+     */
+    public static List<PageRelevance> mergeTopK(List<List<PageRelevance>> sortedLists, int k) {
+        List<PageRelevance> result = new ArrayList<>();
+        PriorityQueue<ListCursor> heap = new PriorityQueue<>(
+                Comparator.comparing(ListCursor::current, RELEVANCE_ORDER)
+        );
+
+        for (List<PageRelevance> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heap.add(new ListCursor(list));
+            }
+        }
+
+        while (!heap.isEmpty() && result.size() < k) {
+            ListCursor cursor = heap.poll();
+            result.add(cursor.current());
+
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+
+        return result;
+    }
+
+
+    private static final class ListCursor {
+        private final List<PageRelevance> list;
+        private int position = 0;
+
+        private ListCursor(List<PageRelevance> list) {
+            this.list = list;
+        }
+
+        private PageRelevance current() {
+            return list.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < list.size();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine.services.utils.notbean;
+
+import java.util.Map;
+
+public final class SimHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+
+    private SimHash() {}
+
+
+    /**
+     * Метод вычисляет 64-битный SimHash мультимножества лемм. Каждая лемма хешируется в 64 бита, и для
+     * каждого бита к сумме прибавляется либо вычитается количество повторений леммы. Бит результата
+     * равен 1, если сумма положительна. Близкие по составу лемм страницы получают хеши, отличающиеся
+     * в небольшом количестве бит.
+     * @param lemmas Леммы страницы и количество их повторений
+     * @return SimHash
+     */
+    public static long compute(Map<String, Integer> lemmas) {
+        long[] weights = new long[Long.SIZE];
+
+        lemmas.forEach((lemma, count) -> {
+            long hash = hash(lemma);
+
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? count : -count;
+            }
+        });
+
+        long simhash = 0;
+
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                simhash |= 1L << bit;
+            }
+        }
+
+        return simhash;
+    }
+
+
+    /**
+     * Метод возвращает расстояние Хэмминга между двумя хешами - количество различающихся бит.
+     * @param first Первый хеш
+     * @param second Второй хеш
+     * @return Расстояние от 0 до 64
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+
+    /**
+     * Метод хеширует строку алгоритмом FNV-1a и перемешивает результат финализатором MurmurHash3,
+     * чтобы биты хеша были независимы и равновероятны.
+     * @param value Строка
+     * @return 64-битный хеш
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
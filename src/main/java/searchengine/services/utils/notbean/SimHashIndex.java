@@ -0,0 +1,133 @@
+package searchengine.services.utils.notbean;
+
+import java.util.*;
+
+/**
+ * Индекс SimHash страниц одного сайта для поиска почти дубликатов. Хеш делится на BANDS полос по
+ * 16 бит, и страница хранится в таблице каждой полосы под значением этой полосы. Если два хеша
+ * различаются не более чем в BANDS - 1 битах, хотя бы одна полоса у них совпадает целиком, поэтому
+ * кандидаты ищутся точным совпадением полос, а расстояние Хэмминга считается только для них.
+ * Класс потокобезопасен.
+ */
+public final class SimHashIndex {
+
+    public static final int BANDS = 4;
+    private static final int BAND_BITS = Long.SIZE / BANDS;
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    private final List<Map<Integer, List<long[]>>> bands = new ArrayList<>();
+    private final Map<Long, Long> hashesByPageId = new HashMap<>();
+
+
+    public SimHashIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            bands.add(new HashMap<>());
+        }
+    }
+
+
+    /**
+     * Метод ищет страницу, хеш которой отличается от переданного не более чем на maxDistance бит.
+     * Сама страница pageId в поиске не участвует.
+     * @param pageId id проверяемой страницы, либо null
+     * @param simhash SimHash проверяемой страницы
+     * @param maxDistance Максимальное расстояние Хэмминга, не больше BANDS - 1
+     * @return Optional id ближайшей найденной страницы
+     */
+    public synchronized Optional<Long> findNear(Long pageId, long simhash, int maxDistance) {
+        Long nearestPageId = null;
+        int nearestDistance = maxDistance + 1;
+
+        for (int band = 0; band < BANDS; band++) {
+            List<long[]> candidates = bands.get(band).getOrDefault(bandValue(simhash, band), List.of());
+
+            for (long[] candidate : candidates) {
+                int distance = SimHash.distance(simhash, candidate[1]);
+
+                if (distance < nearestDistance && !Objects.equals(pageId, candidate[0])) {
+                    nearestPageId = candidate[0];
+                    nearestDistance = distance;
+                }
+            }
+        }
+
+        return Optional.ofNullable(nearestPageId);
+    }
+
+
+    /**
+     * Метод атомарно ищет почти дубликат страницы и, если он не найден, добавляет страницу в индекс.
+     * Если страница оказалась дубликатом, её прежний хеш удаляется из индекса, чтобы на неё не
+     * ссылались другие дубликаты.
+     * @param pageId id страницы
+     * @param simhash SimHash страницы
+     * @param maxDistance Максимальное расстояние Хэмминга, не больше BANDS - 1
+     * @return Optional id страницы, дубликатом которой является переданная
+     */
+    public synchronized Optional<Long> findNearOrPut(long pageId, long simhash, int maxDistance) {
+        Optional<Long> nearest = findNear(pageId, simhash, maxDistance);
+
+        if (nearest.isPresent()) {
+            remove(pageId);
+        } else {
+            put(pageId, simhash);
+        }
+
+        return nearest;
+    }
+
+
+    /**
+     * Метод добавляет страницу в индекс, заменяя её прежний хеш.
+     * @param pageId id страницы
+     * @param simhash SimHash страницы
+     */
+    public synchronized void put(long pageId, long simhash) {
+        remove(pageId);
+        hashesByPageId.put(pageId, simhash);
+
+        for (int band = 0; band < BANDS; band++) {
+            bands.get(band).computeIfAbsent(bandValue(simhash, band), value -> new ArrayList<>())
+                    .add(new long[]{pageId, simhash});
+        }
+    }
+
+
+    /**
+     * Метод возвращает хеш страницы, если она хранится в индексе.
+     * @param pageId id страницы
+     * @return Optional хеша страницы
+     */
+    public synchronized Optional<Long> get(long pageId) {
+        return Optional.ofNullable(hashesByPageId.get(pageId));
+    }
+
+
+    public synchronized void remove(long pageId) {
+        Long simhash = hashesByPageId.remove(pageId);
+
+        if (simhash == null) {
+            return;
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            int value = bandValue(simhash, band);
+            List<long[]> entries = bands.get(band).get(value);
+            entries.removeIf(entry -> entry[0] == pageId);
+
+            if (entries.isEmpty()) {
+                bands.get(band).remove(value);
+            }
+        }
+    }
+
+
+    public synchronized int size() {
+        return hashesByPageId.size();
+    }
+
+
+    private static int bandValue(long simhash, int band) {
+        return (int) ((simhash >>> (band * BAND_BITS)) & BAND_MASK);
+    }
+}
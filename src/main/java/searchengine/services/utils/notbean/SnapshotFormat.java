@@ -0,0 +1,140 @@
+package searchengine.services.utils.notbean;
+
+import searchengine.exception.SnapshotException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Формат снимка индекса сайта. Все числа записываются в порядке big-endian.
+ * <pre>
+ * заголовок:  int MAGIC, short VERSION, string url, string name, int generation, long createdAt,
+ *             int pageCount, int lemmaCount
+ * страницы:   pageCount раз string path, int code, string title, byte hasSimhash [long simhash],
+ *             int duplicateOf (номер страницы или -1), int contentLength (-1, если контента нет), content
+ * леммы:      lemmaCount раз string lemma, int frequency
+ * индекс:     для каждой леммы по порядку varint count, затем count раз varint приращение номера
+ *             страницы и float rank
+ * окончание:  long CRC32C всех предыдущих байтов
+ * </pre>
+ * Страницы и леммы ссылаются друг на друга по номеру в снимке, а не по id в базе данных, поэтому
+ * снимок загружается в любую базу. Контент страниц хранится в том виде, в каком он лежит
+ * в page_content, и при загрузке не пересжимается.
+ */
+public final class SnapshotFormat {
+
+    public static final int MAGIC = 0x53455350;
+    public static final short VERSION = 1;
+    public static final String EXTENSION = ".snapshot";
+    private static final long CHECKSUM_CHUNK_BYTES = 256L * 1024 * 1024;
+
+    private SnapshotFormat() {
+    }
+
+    // METHODS //
+
+    /**
+     * Метод записывает строку как varint длины в байтах плюс один (0 означает null) и байты UTF-8.
+     * @param output Поток записи
+     * @param value Строка, либо null
+     */
+    public static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+
+    public static String readString(DataInput input) throws IOException {
+        int length = readVarInt(input);
+
+        if (length == 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    public static void writeVarInt(DataOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+
+    public static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = input.readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new SnapshotException("Некорректное число в снимке индекса");
+    }
+
+
+    /**
+     * Метод проверяет контрольную сумму снимка, не читая его в кучу: файл отображается в память
+     * частями, и CRC32C считается прямо по отображённым страницам.
+     * @param file Файл снимка
+     * @return Контрольная сумма
+     * @throws SnapshotException если файл короче окончания или контрольная сумма не совпадает
+     */
+    public static long verifyChecksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long dataSize = channel.size() - Long.BYTES;
+
+            if (dataSize < 0) {
+                throw new SnapshotException("Файл " + file.getFileName() + " не является снимком индекса");
+            }
+
+            CRC32C crc = new CRC32C();
+
+            for (long position = 0; position < dataSize; position += CHECKSUM_CHUNK_BYTES) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHECKSUM_CHUNK_BYTES, dataSize - position));
+                crc.update(chunk);
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, dataSize + trailer.position()) < 0) {
+                    throw new SnapshotException("Снимок " + file.getFileName() + " обрезан");
+                }
+            }
+
+            long expected = trailer.flip().getLong();
+
+            if (crc.getValue() != expected) {
+                throw new SnapshotException("Контрольная сумма снимка " + file.getFileName() + " не совпадает");
+            }
+
+            return expected;
+        }
+    }
+}
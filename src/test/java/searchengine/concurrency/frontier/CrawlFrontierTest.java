@@ -0,0 +1,165 @@
+package searchengine.concurrency.frontier;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.PriorityRule;
+import searchengine.config.SiteProps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlFrontierTest {
+
+    @Test
+    void pollReturnsShallowPagesFirstAndKeepsDiscoveryOrderOnTies() {
+        CrawlFrontier frontier = new CrawlFrontier(site());
+        frontier.offer("/", 0);
+        frontier.offer("/c/d", 2);
+        frontier.offer("/a", 1);
+        frontier.offer("/b", 1);
+
+        assertEquals(List.of("/", "/a", "/b", "/c/d"), drain(frontier));
+    }
+
+
+    @Test
+    void repeatedLinkRaisesPriorityOfWaitingPage() {
+        CrawlFrontier frontier = new CrawlFrontier(site());
+        assertTrue(frontier.offer("/a", 1));
+        assertTrue(frontier.offer("/b", 1));
+        assertFalse(frontier.offer("/b", 1));
+
+        assertEquals(List.of("/b", "/a"), drain(frontier));
+    }
+
+
+    @Test
+    void priorityRulesChangeOrderAndSkipPages() {
+        SiteProps site = site();
+        site.getPriorityRules().add(rule("^/courses/", 2, false));
+        site.getPriorityRules().add(rule("/calendar/", 0, true));
+        CrawlFrontier frontier = new CrawlFrontier(site);
+
+        assertTrue(frontier.offer("/about", 1));
+        assertTrue(frontier.offer("/courses/java", 2));
+        assertFalse(frontier.offer("/calendar/2024", 1));
+
+        assertEquals(List.of("/courses/java", "/about"), drain(frontier));
+    }
+
+
+    @Test
+    void takenPageIsNotOfferedAgain() {
+        CrawlFrontier frontier = new CrawlFrontier(site());
+        frontier.offer("/a", 1);
+
+        assertEquals("/a", frontier.poll().map(CrawlFrontier.Entry::path).orElseThrow());
+        assertFalse(frontier.offer("/a", 1));
+        assertTrue(frontier.poll().isEmpty());
+    }
+
+
+    @Test
+    void maxPagesBudgetStopsPollingAndDropsWaitingPages() {
+        SiteProps site = site();
+        site.setMaxPages(2);
+        CrawlFrontier frontier = new CrawlFrontier(site);
+        frontier.offer("/", 0);
+        frontier.offer("/a", 1);
+        frontier.offer("/b", 1);
+        frontier.offer("/c", 1);
+
+        assertEquals(List.of("/", "/a"), drain(frontier));
+        assertEquals(2, frontier.takeDropped());
+        assertEquals(0, frontier.takeDropped());
+        assertFalse(frontier.offer("/d", 1));
+        assertFalse(frontier.tryStartWorker(4));
+    }
+
+
+    @Test
+    void maxDepthBudgetRejectsDeepPagesButNotMainPage() {
+        SiteProps site = site();
+        site.setMaxDepth(1);
+        CrawlFrontier frontier = new CrawlFrontier(site);
+
+        assertTrue(frontier.offer("/", 0));
+        assertTrue(frontier.offer("/a", 1));
+        assertFalse(frontier.offer("/a/b", 2));
+
+        assertEquals(List.of("/", "/a"), drain(frontier));
+        assertEquals(2, frontier.getSeenCount());
+    }
+
+
+    @Test
+    void timeBudgetStopsPollingAfterDeadline() {
+        SiteProps site = site();
+        site.setTimeBudgetSeconds(10);
+        AtomicLong clock = new AtomicLong(1_000);
+        CrawlFrontier frontier = new CrawlFrontier(site, clock::get);
+        frontier.offer("/", 0);
+        frontier.offer("/a", 1);
+        frontier.offer("/b", 1);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("/", frontier.poll().map(CrawlFrontier.Entry::path).orElseThrow());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(frontier.poll().isEmpty());
+        assertEquals(2, frontier.takeDropped());
+    }
+
+
+    @Test
+    void tryStartWorkerRespectsLimitAndWaitingPages() {
+        CrawlFrontier frontier = new CrawlFrontier(site());
+
+        assertFalse(frontier.tryStartWorker(2));
+
+        frontier.offer("/", 0);
+
+        assertTrue(frontier.tryStartWorker(2));
+        assertTrue(frontier.tryStartWorker(2));
+        assertFalse(frontier.tryStartWorker(2));
+
+        frontier.finishWorker();
+
+        assertTrue(frontier.tryStartWorker(2));
+    }
+
+
+    private static SiteProps site() {
+        SiteProps site = new SiteProps();
+        site.setUrl("https://example.com");
+        site.setName("Example");
+        return site;
+    }
+
+
+    private static PriorityRule rule(String pattern, double weight, boolean skip) {
+        PriorityRule rule = new PriorityRule();
+        rule.setPattern(pattern);
+        rule.setWeight(weight);
+        rule.setSkip(skip);
+        return rule;
+    }
+
+
+    private static List<String> drain(CrawlFrontier frontier) {
+        List<String> paths = new ArrayList<>();
+        Optional<CrawlFrontier.Entry> entry;
+
+        while ((entry = frontier.poll()).isPresent()) {
+            paths.add(entry.get().path());
+        }
+
+        return paths;
+    }
+}
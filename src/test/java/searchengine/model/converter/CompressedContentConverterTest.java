@@ -0,0 +1,51 @@
+package searchengine.model.converter;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompressedContentConverterTest {
+
+    private static final String CONTENT = "<html><body>Проверка сжатия контента страницы</body></html>";
+
+    private final CompressedContentConverter converter = new CompressedContentConverter();
+
+
+    @Test
+    void compressedContentIsRestored() {
+        assertEquals(CONTENT, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(CONTENT)));
+    }
+
+
+    @Test
+    void frameWithoutContentSizeIsStreamed() throws IOException {
+        assertEquals(CONTENT, converter.convertToEntityAttribute(compressWithoutContentSize(CONTENT)));
+    }
+
+
+    @Test
+    void uncompressedContentIsReadAsText() {
+        assertEquals(CONTENT, converter.convertToEntityAttribute(CONTENT.getBytes(StandardCharsets.UTF_8)));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+
+    /**
+     * Потоковый кодек не знает размер данных заранее и не записывает его в заголовок кадра.
+     */
+    private static byte[] compressWithoutContentSize(String content) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ZstdOutputStream zstd = new ZstdOutputStream(output)) {
+            zstd.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return output.toByteArray();
+    }
+}
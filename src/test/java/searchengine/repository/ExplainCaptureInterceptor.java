@@ -0,0 +1,80 @@
+package searchengine.repository;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Перехватчик запросов драйвера MySQL, подключаемый параметром queryInterceptors адреса базы.
+ * Запоминает текст запросов, которые выполняет текущий поток внутри {@link #capture(Runnable)}.
+ * Подготовленные запросы драйвер по умолчанию собирает на клиенте, поэтому текст приходит уже
+ * с подставленными значениями параметров и его можно передать в EXPLAIN как есть.
+ */
+public class ExplainCaptureInterceptor implements QueryInterceptor {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    // METHODS //
+
+    /**
+     * Метод выполняет действие и возвращает запросы, отправленные им в базу данных из текущего потока.
+     * @param action Действие
+     * @return List<String> - тексты запросов в порядке выполнения
+     */
+    public static List<String> capture(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+
+        return statements;
+    }
+
+
+    @Override
+    public QueryInterceptor init(MysqlConnection connection, Properties properties, Log log) {
+        return this;
+    }
+
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        List<String> statements = CAPTURED.get();
+
+        if (statements != null) {
+            statements.add(sql.get());
+        }
+
+        return null;
+    }
+
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+
+    @Override
+    public void destroy() {
+    }
+
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery, T originalResultSet,
+                                               ServerSession serverSession) {
+        return null;
+    }
+}
@@ -0,0 +1,240 @@
+package searchengine.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import searchengine.model.implementation.Lemma;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+import searchengine.repository.implementation.IndexRepository;
+import searchengine.repository.implementation.LemmaRepository;
+import searchengine.repository.implementation.PageRepository;
+import searchengine.repository.implementation.SiteRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Регрессионная проверка планов запросов репозиториев страниц, лемм и индекса. Схема создаётся
+ * Liquibase в MySQL из Testcontainers, заполняется данными с распределением, близким к реальному,
+ * после чего каждый метод репозитория выполняется в откатываемой транзакции, а для каждого
+ * отправленного им запроса выполняется EXPLAIN. Полный просмотр таблицы (type = ALL) считается
+ * ошибкой, кроме производных таблиц подзапросов.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryExplainTest {
+
+    private static final int SITES = 20;
+    private static final int PAGES_PER_SITE = 200;
+    private static final int LEMMAS_PER_SITE = 100;
+    private static final int LEMMAS_PER_PAGE = 10;
+    private static final int DUPLICATE_EVERY = 50;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>(DockerImageName.parse("mysql:8.0"))
+            .withUrlParam("rewriteBatchedStatements", "true")
+            .withUrlParam("queryInterceptors", ExplainCaptureInterceptor.class.getName());
+
+    private static boolean seeded;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SiteRepository siteRepository;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private LemmaRepository lemmaRepository;
+    @Autowired
+    private IndexRepository indexRepository;
+
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+
+        List<Object[]> sites = new ArrayList<>();
+        List<Object[]> pages = new ArrayList<>();
+        List<Object[]> lemmas = new ArrayList<>();
+        List<Object[]> postings = new ArrayList<>();
+        int[] frequencies = new int[LEMMAS_PER_SITE];
+
+        for (int page = 0; page < PAGES_PER_SITE; page++) {
+            for (int k = 0; k < LEMMAS_PER_PAGE; k++) {
+                frequencies[lemmaOfPage(page, k)]++;
+            }
+        }
+
+        for (int site = 0; site < SITES; site++) {
+            sites.add(new Object[]{siteId(site), "https://site-" + site + ".example", "Сайт " + site});
+
+            for (int page = 0; page < PAGES_PER_SITE; page++) {
+                Long duplicateOf = (page % DUPLICATE_EVERY == 1) ? pageId(site, page - 1) : null;
+                pages.add(new Object[]{pageId(site, page), siteId(site), "/page-" + page, "Страница " + page,
+                        (long) site * PAGES_PER_SITE + page, duplicateOf});
+
+                for (int k = 0; k < LEMMAS_PER_PAGE; k++) {
+                    postings.add(new Object[]{pageId(site, page), lemmaId(site, lemmaOfPage(page, k)), k + 1});
+                }
+            }
+
+            for (int lemma = 0; lemma < LEMMAS_PER_SITE; lemma++) {
+                lemmas.add(new Object[]{lemmaId(site, lemma), siteId(site), "слово" + lemma, frequencies[lemma]});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO site (id, status, status_time, last_error, url, name, generation, " +
+                "active) VALUES (?, 'INDEXED', NOW(), '', ?, ?, 1, TRUE)", sites);
+        jdbcTemplate.batchUpdate("INSERT INTO page (id, site_id, path, code, title, simhash, duplicate_of, " +
+                "indexed_at) VALUES (?, ?, ?, 200, ?, ?, ?, NOW())", pages);
+        jdbcTemplate.batchUpdate("INSERT INTO lemma (id, site_id, lemma, frequency) VALUES (?, ?, ?, ?)", lemmas);
+        jdbcTemplate.batchUpdate("INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES (?, ?, ?)", postings);
+        jdbcTemplate.execute("ANALYZE TABLE site, page, lemma, `index`");
+        seeded = true;
+    }
+
+
+    @Test
+    void pageQueriesDoNotScanTables() {
+        Site site = siteRepository.findById(siteId(3)).orElseThrow();
+        Page page = pageRepository.findById(pageId(3, 0)).orElseThrow();
+        List<Long> pageIds = List.of(pageId(3, 0), pageId(3, 1), pageId(7, 5));
+
+        assertIndexed("findBySiteIdAndPath", () -> pageRepository.findBySiteIdAndPath(site, "/page-10"));
+        assertIndexed("countBySiteId", () -> pageRepository.countBySiteId(site));
+        assertIndexed("findIndexTimesBySiteId", () -> pageRepository.findIndexTimesBySiteId(site));
+        assertIndexed("findSimHashesBySiteId", () -> pageRepository.findSimHashesBySiteId(site));
+        assertIndexed("updateSimHashById", () -> pageRepository.updateSimHashById(page.getId(), 1L, null));
+        assertIndexed("findAllByDuplicateOf", () -> pageRepository.findAllByDuplicateOf(page.getId()));
+        assertIndexed("clearDuplicateOf", () -> pageRepository.clearDuplicateOf(page.getId()));
+        assertIndexed("findSummariesByIdIn", () -> pageRepository.findSummariesByIdIn(pageIds));
+        assertIndexed("deleteChunkBySiteId", () -> pageRepository.deleteChunkBySiteId(site.getId(), 100));
+    }
+
+
+    @Test
+    void lemmaQueriesDoNotScanTables() {
+        Site site = siteRepository.findById(siteId(3)).orElseThrow();
+        List<Long> pageIds = List.of(pageId(3, 0), pageId(3, 1), pageId(3, 2));
+
+        assertIndexed("findByLemma", () -> lemmaRepository.findByLemma("слово5"));
+        assertIndexed("findByLemmaAndSiteId", () -> lemmaRepository.findByLemmaAndSiteId("слово5", site));
+        assertIndexed("countBySiteId", () -> lemmaRepository.countBySiteId(site));
+        assertIndexed("incrementFrequency", () -> lemmaRepository.incrementFrequency(lemmaId(3, 5)));
+        assertIndexed("findAllBySiteIdAndLemmaIn",
+                () -> lemmaRepository.findAllBySiteIdAndLemmaIn(site, List.of("слово5", "слово12")));
+        assertIndexed("decrementFrequenciesByPageIds", () -> lemmaRepository.decrementFrequenciesByPageIds(pageIds));
+        assertIndexed("deleteUnusedBySiteId", () -> lemmaRepository.deleteUnusedBySiteId(site));
+        assertIndexed("deleteChunkBySiteId", () -> lemmaRepository.deleteChunkBySiteId(site.getId(), 100));
+    }
+
+
+    @Test
+    void indexQueriesDoNotScanTables() {
+        Site site = siteRepository.findById(siteId(3)).orElseThrow();
+        Page page = pageRepository.findById(pageId(3, 0)).orElseThrow();
+        Lemma lemma = lemmaRepository.findById(lemmaId(3, lemmaOfPage(0, 0))).orElseThrow();
+        Long indexId = jdbcTemplate.queryForObject("SELECT id FROM `index` WHERE page_id = ? LIMIT 1",
+                Long.class, page.getId());
+        List<Long> lemmaIds = List.of(lemmaId(3, lemmaOfPage(0, 0)), lemmaId(3, lemmaOfPage(0, 1)));
+        List<Long> pageIds = List.of(pageId(3, 0), pageId(3, 1), pageId(3, 2));
+
+        assertIndexed("findAllByPageId", () -> indexRepository.findAllByPageId(page));
+        assertIndexed("findByPageIdAndLemmaId", () -> indexRepository.findByPageIdAndLemmaId(page, lemma));
+        assertIndexed("incrementRank", () -> indexRepository.incrementRank(indexId, 1));
+        assertIndexed("findTopPagesContainingAllLemmas",
+                () -> indexRepository.findTopPagesContainingAllLemmas(lemmaIds, lemmaIds.size(), 20));
+        assertIndexed("findTopPagesContainingAllLemmasAfter",
+                () -> indexRepository.findTopPagesContainingAllLemmasAfter(lemmaIds, lemmaIds.size(), 3.0f,
+                        page.getId(), 20));
+        assertIndexed("countPagesContainingAllLemmas",
+                () -> indexRepository.countPagesContainingAllLemmas(lemmaIds, lemmaIds.size()));
+        assertIndexed("sumRanksByPageIds", () -> indexRepository.sumRanksByPageIds(pageIds));
+        assertIndexed("deleteAllByPageIds", () -> indexRepository.deleteAllByPageIds(pageIds));
+        assertIndexed("countBySiteId", () -> indexRepository.countBySiteId(site));
+        assertIndexed("deleteChunkBySiteId", () -> indexRepository.deleteChunkBySiteId(site.getId(), 100));
+    }
+
+
+    /**
+     * Метод выполняет вызов репозитория в транзакции, которая затем откатывается, и проверяет
+     * планы всех отправленных им запросов чтения, изменения и удаления.
+     */
+    private void assertIndexed(String query, Runnable call) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<String> statements = ExplainCaptureInterceptor.capture(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    call.run();
+                    status.setRollbackOnly();
+                })
+        ).stream().filter(RepositoryExplainTest::isExplainable).toList();
+
+        assertFalse(statements.isEmpty(), () -> query + ": запрос не отправлен в базу данных");
+
+        for (String sql : statements) {
+            for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql)) {
+                String table = String.valueOf(row.get("table"));
+                assertFalse("ALL".equals(row.get("type")) && !table.startsWith("<"),
+                        () -> query + ": полный просмотр таблицы " + table + " в запросе " + sql);
+            }
+        }
+    }
+
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+
+    private static int lemmaOfPage(int page, int k) {
+        return (page + k * 7) % LEMMAS_PER_SITE;
+    }
+
+
+    private static long siteId(int site) {
+        return site + 1;
+    }
+
+
+    private static long pageId(int site, int page) {
+        return (long) site * PAGES_PER_SITE + page + 1;
+    }
+
+
+    private static long lemmaId(int site, int lemma) {
+        return (long) site * LEMMAS_PER_SITE + lemma + 1;
+    }
+}
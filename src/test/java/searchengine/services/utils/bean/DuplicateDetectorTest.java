@@ -0,0 +1,149 @@
+package searchengine.services.utils.bean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import searchengine.model.implementation.Page;
+import searchengine.model.implementation.Site;
+import searchengine.repository.RepositoryManager;
+import searchengine.repository.implementation.PageRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DuplicateDetectorTest {
+
+    private RepositoryManager repositoryManager;
+    private PageRepository pageRepository;
+    private DuplicateDetector detector;
+    private Site site;
+
+
+    @BeforeEach
+    void setUp() {
+        repositoryManager = mock(RepositoryManager.class);
+        pageRepository = mock(PageRepository.class);
+        when(repositoryManager.getPageRepository()).thenReturn(pageRepository);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(repositoryManager).executeTransaction(any());
+
+        site = new Site();
+        site.setId(1L);
+        site.setUrl("https://example.com");
+        when(pageRepository.findSimHashesBySiteId(site)).thenReturn(List.of());
+
+        detector = new DuplicateDetector(repositoryManager);
+    }
+
+
+    @Test
+    void copyOfIndexedPageIsDuplicate() {
+        Page original = page(1);
+        Page copy = page(2);
+
+        assertFalse(detector.detect(original, lemmas("текст")).isDuplicate());
+        assertTrue(detector.detect(copy, lemmas("текст")).isDuplicate());
+        assertEquals(1L, copy.getDuplicateOf());
+    }
+
+
+    @Test
+    void reindexedOriginalWithSameContentIsNotChanged() {
+        Page original = page(1);
+        detector.detect(original, lemmas("текст"));
+
+        assertFalse(detector.detect(original, lemmas("текст")).isOriginalChanged());
+    }
+
+
+    @Test
+    void reindexedOriginalWithOtherContentIsChanged() {
+        Page original = page(1);
+        detector.detect(original, lemmas("текст"));
+
+        assertTrue(detector.detect(original, lemmas("другой")).isOriginalChanged());
+    }
+
+
+    @Test
+    void originalThatLostItsTextIsChanged() {
+        Page original = page(1);
+        detector.detect(original, lemmas("текст"));
+
+        assertTrue(detector.detect(original, Map.of("ошибка", 1)).isOriginalChanged());
+        assertNull(original.getSimhash());
+    }
+
+
+    @Test
+    void newPageIsNeverChangedOriginal() {
+        assertFalse(detector.detect(page(1), lemmas("текст")).isOriginalChanged());
+        assertFalse(detector.detect(page(2), lemmas("текст")).isOriginalChanged());
+    }
+
+
+    @Test
+    void releaseDependentsClearsDuplicateMarks() {
+        Page original = page(1);
+        Page dependent = page(2);
+        dependent.setDuplicateOf(1L);
+        when(pageRepository.findAllByDuplicateOf(1L)).thenReturn(List.of(dependent));
+
+        assertEquals(List.of(dependent), detector.releaseDependents(original));
+        assertNull(dependent.getDuplicateOf());
+        verify(pageRepository).clearDuplicateOf(1L);
+        verify(repositoryManager).executeTransaction(any());
+    }
+
+
+    @Test
+    void releaseWithoutDependentsDoesNotUpdate() {
+        when(pageRepository.findAllByDuplicateOf(1L)).thenReturn(List.of());
+
+        assertTrue(detector.releaseDependents(page(1)).isEmpty());
+        verify(pageRepository, never()).clearDuplicateOf(1L);
+    }
+
+
+    @Test
+    void hashesOfSiteAreLoadedOnce() {
+        detector.detect(page(1), lemmas("текст"));
+        detector.detect(page(2), lemmas("другой"));
+
+        verify(pageRepository, times(1)).findSimHashesBySiteId(site);
+    }
+
+
+    private Page page(long id) {
+        Page page = new Page();
+        page.setId(id);
+        page.setPath("/page" + id);
+        page.setSiteId(site);
+        return page;
+    }
+
+
+    private static Map<String, Integer> lemmas(String prefix) {
+        Map<String, Integer> lemmas = new HashMap<>();
+
+        for (int i = 0; i < 40; i++) {
+            lemmas.put(prefix + i, i % 3 + 1);
+        }
+
+        return lemmas;
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine.services.utils.bean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import searchengine.config.HttpCacheSettings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HttpCacheValidatorTest {
+
+    private IndexGeneration indexGeneration;
+    private HttpCacheValidator validator;
+
+
+    @BeforeEach
+    void setUp() {
+        indexGeneration = mock(IndexGeneration.class);
+        when(indexGeneration.current()).thenReturn(42L);
+        validator = new HttpCacheValidator(new HttpCacheSettings(), indexGeneration);
+    }
+
+
+    @Test
+    void searchTagIsTakenFromGenerationInMemory() {
+        assertEquals("\"s16\"", validator.getSearchTag());
+        verify(indexGeneration, never()).refresh();
+        verify(indexGeneration, never()).refreshAfterWrite();
+    }
+
+
+    @Test
+    void matchingTagIsAnsweredWithNotModified() {
+        ResponseEntity<String> response = validator.respond("W/\"s16\"", "\"s16\"", () -> {
+            throw new AssertionError("Ответ не должен строиться");
+        });
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"s16\"", response.getHeaders().getETag());
+    }
+
+
+    @Test
+    void completeResponseIsTagged() {
+        ResponseEntity<String> response = validator.respond(null, "\"s16\"", () -> ResponseEntity.ok("full"),
+                body -> true);
+
+        assertEquals("\"s16\"", response.getHeaders().getETag());
+        assertEquals("full", response.getBody());
+    }
+
+
+    @Test
+    void partialResponseIsNotTaggedOrStored() {
+        ResponseEntity<String> response = validator.respond(null, "\"s16\"", () -> ResponseEntity.ok("partial"),
+                body -> false);
+
+        assertNull(response.getHeaders().getETag());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+        assertEquals("partial", response.getBody());
+    }
+
+
+    @Test
+    void errorResponseIsNotTagged() {
+        ResponseEntity<String> response = validator.respond(null, "\"s16\"",
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy"));
+
+        assertNull(response.getHeaders().getETag());
+    }
+}
@@ -0,0 +1,135 @@
+package searchengine.services.utils.bean;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.SiteProps;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlCanonicalizerTest {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+
+    @Test
+    void fragmentIsDropped() {
+        assertEquals(Optional.of("/a"), canonicalize("https://example.com/a#top"));
+        assertEquals(Optional.of("/a?q=1"), canonicalize("https://example.com/a?q=1#section"));
+    }
+
+
+    @Test
+    void indexFileAndTrailingSlashAreDropped() {
+        assertEquals(Optional.of("/"), canonicalize("https://example.com/index.html"));
+        assertEquals(Optional.of("/dir"), canonicalize("https://example.com/dir/index.php"));
+        assertEquals(Optional.of("/dir"), canonicalize("https://example.com/dir/"));
+        assertEquals(Optional.of("/"), canonicalize("https://example.com"));
+        assertEquals(Optional.of("/a/b"), canonicalize("https://example.com/a//b"));
+    }
+
+
+    @Test
+    void percentEncodingIsNormalized() {
+        assertEquals(Optional.of("/~user"), canonicalize("https://example.com/%7Euser"));
+        assertEquals(Optional.of("/a%2Fb"), canonicalize("https://example.com/a%2fb"));
+        assertEquals(Optional.of("/%D0%BA%D0%BE%D1%82"), canonicalize("https://example.com/кот"));
+        assertEquals(Optional.of("/%D0%BA%D0%BE%D1%82"), canonicalize("https://example.com/%d0%ba%d0%be%d1%82"));
+        assertEquals(Optional.of("/a%20b"), canonicalize("https://example.com/a b"));
+    }
+
+
+    @Test
+    void trackingParametersAreRemovedAndOthersSorted() {
+        assertEquals(Optional.of("/a?a=1&b=2"),
+                canonicalize("https://example.com/a?utm_source=x&b=2&gclid=1&a=1&PHPSESSID=abc"));
+        assertEquals(Optional.of("/a"), canonicalize("https://example.com/a?utm_medium=email"));
+    }
+
+
+    @Test
+    void siteIgnoredParametersSupportPrefixes() {
+        SiteProps site = site("https://example.com");
+        site.setIgnoredParameters(List.of("ref", "track_*"));
+
+        assertEquals(Optional.of("/a?q=3"),
+                canonicalizer.canonicalize(site, "https://example.com/a?ref=1&track_id=2&q=3"));
+    }
+
+
+    @Test
+    void wwwPrefixIsIgnored() {
+        assertEquals(Optional.of("/a"), canonicalize("https://www.example.com/a"));
+        assertEquals(Optional.of("/a"), canonicalizer.canonicalize(site("https://www.example.com"),
+                "https://example.com/a"));
+    }
+
+
+    @Test
+    void defaultPortsAreAcceptedAndOtherPortsRejected() {
+        assertEquals(Optional.of("/a"), canonicalize("https://example.com:443/a"));
+        assertEquals(Optional.of("/a"), canonicalize("http://example.com:80/a"));
+        assertEquals(Optional.empty(), canonicalize("https://example.com:8080/a"));
+        assertEquals(Optional.empty(), canonicalize("https://example.com:80/a"));
+        assertEquals(Optional.empty(), canonicalize("http://example.com:443/a"));
+    }
+
+
+    @Test
+    void foreignHostsAndIgnoredSchemesAreRejected() {
+        assertEquals(Optional.empty(), canonicalize("https://other.com/a"));
+        assertEquals(Optional.empty(), canonicalize("ftp://example.com/a"));
+        assertEquals(Optional.empty(), canonicalize("mailto:info@example.com"));
+        assertEquals(Optional.empty(), canonicalize("javascript:void(0)"));
+        assertEquals(Optional.empty(), canonicalize(" "));
+    }
+
+
+    @Test
+    void relativeLinksAreResolvedAgainstPage() {
+        SiteProps site = site("https://example.com");
+        URI base = URI.create("https://example.com/dir/page");
+
+        assertEquals(Optional.of("/other"), canonicalizer.canonicalize(site, base, "../other"));
+        assertEquals(Optional.of("/dir/next"), canonicalizer.canonicalize(site, base, "next"));
+        assertEquals(Optional.of("/x"), canonicalizer.canonicalize(site, base, "//example.com/x"));
+        assertEquals(Optional.of("/dir/page?p=2"), canonicalizer.canonicalize(site, base, "?p=2"));
+    }
+
+
+    @Test
+    void emptyPathReferencesKeepPagePath() {
+        SiteProps site = site("https://example.com");
+        URI base = URI.create("https://example.com/dir/page?p=1");
+
+        assertEquals(Optional.of("/dir/page?p=1"), canonicalizer.canonicalize(site, base, "#top"));
+        assertEquals(Optional.of("/dir/page"), canonicalizer.canonicalize(site, base, "?"));
+        assertEquals(Optional.of("/dir/page?q=2"), canonicalizer.canonicalize(site, base, "?q=2#top"));
+    }
+
+
+    @Test
+    void nonHtmlFilesAreRejected() {
+        assertEquals(Optional.empty(), canonicalize("https://example.com/files/report.PDF"));
+        assertEquals(Optional.empty(), canonicalize("https://example.com/img/photo.jpg?size=2"));
+        assertEquals(Optional.empty(), canonicalize("https://example.com/static/app.css"));
+        assertEquals(Optional.empty(), canonicalize("https://example.com/download/archive.zip"));
+        assertEquals(Optional.of("/page.html"), canonicalize("https://example.com/page.html"));
+        assertEquals(Optional.of("/v1.2/docs"), canonicalize("https://example.com/v1.2/docs"));
+    }
+
+
+    private Optional<String> canonicalize(String url) {
+        return canonicalizer.canonicalize(site("https://example.com"), URI.create("https://example.com/"), url);
+    }
+
+
+    private static SiteProps site(String url) {
+        SiteProps site = new SiteProps();
+        site.setUrl(url);
+        site.setName("Example");
+        return site;
+    }
+}
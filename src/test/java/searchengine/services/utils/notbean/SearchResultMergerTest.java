@@ -0,0 +1,116 @@
+package searchengine.services.utils.notbean;
+
+import org.junit.jupiter.api.Test;
+import searchengine.dto.search.PageRelevance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchResultMergerTest {
+
+    @Test
+    void selectTopKReturnsMostRelevantPagesInOrder() {
+        List<PageRelevance> pages = List.of(page(1, 0.5f), page(2, 3f), page(3, 1f), page(4, 2f), page(5, 0.1f));
+
+        List<PageRelevance> top = SearchResultMerger.selectTopK(pages, 3);
+
+        assertEquals(List.of(2L, 4L, 3L), ids(top));
+    }
+
+
+    @Test
+    void selectTopKBreaksTiesByPageId() {
+        List<PageRelevance> pages = List.of(page(7, 1f), page(3, 1f), page(5, 1f), page(9, 2f));
+
+        List<PageRelevance> top = SearchResultMerger.selectTopK(pages, 3);
+
+        assertEquals(List.of(9L, 3L, 5L), ids(top));
+    }
+
+
+    @Test
+    void selectTopKHandlesSmallInputAndNonPositiveK() {
+        List<PageRelevance> pages = List.of(page(1, 1f), page(2, 2f));
+
+        assertEquals(List.of(2L, 1L), ids(SearchResultMerger.selectTopK(pages, 10)));
+        assertTrue(SearchResultMerger.selectTopK(pages, 0).isEmpty());
+        assertTrue(SearchResultMerger.selectTopK(List.of(), 5).isEmpty());
+    }
+
+
+    @Test
+    void selectTopKMatchesFullSort() {
+        Random random = new Random(42);
+        List<PageRelevance> pages = new ArrayList<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            pages.add(page(i, random.nextInt(50)));
+        }
+
+        List<PageRelevance> sorted = new ArrayList<>(pages);
+        sorted.sort(SearchResultMerger.RELEVANCE_ORDER);
+
+        assertEquals(ids(sorted.subList(0, 25)), ids(SearchResultMerger.selectTopK(pages, 25)));
+    }
+
+
+    @Test
+    void mergeTopKMergesSortedListsAndStopsAtK() {
+        List<PageRelevance> first = List.of(page(1, 5f), page(2, 3f), page(3, 1f));
+        List<PageRelevance> second = List.of(page(10, 4f), page(11, 3f), page(12, 0.5f));
+        List<PageRelevance> third = List.of();
+
+        List<PageRelevance> merged = SearchResultMerger.mergeTopK(List.of(first, second, third), 4);
+
+        assertEquals(List.of(1L, 10L, 2L, 11L), ids(merged));
+    }
+
+
+    @Test
+    void mergeTopKReturnsEverythingWhenKExceedsInput() {
+        List<PageRelevance> first = List.of(page(1, 2f));
+        List<PageRelevance> second = List.of(page(2, 3f), page(3, 1f));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(SearchResultMerger.mergeTopK(List.of(first, second), 10)));
+        assertTrue(SearchResultMerger.mergeTopK(Collections.emptyList(), 10).isEmpty());
+    }
+
+
+    @Test
+    void mergeTopKOfPerShardTopKEqualsGlobalTopK() {
+        Random random = new Random(7);
+        List<List<PageRelevance>> shards = new ArrayList<>();
+        List<PageRelevance> all = new ArrayList<>();
+        long pageId = 0;
+
+        for (int shard = 0; shard < 4; shard++) {
+            List<PageRelevance> pages = new ArrayList<>();
+
+            for (int i = 0; i < 200; i++) {
+                pages.add(page(pageId++, random.nextInt(30)));
+            }
+
+            all.addAll(pages);
+            shards.add(SearchResultMerger.selectTopK(pages, 20));
+        }
+
+        all.sort(SearchResultMerger.RELEVANCE_ORDER);
+
+        assertEquals(ids(all.subList(0, 20)), ids(SearchResultMerger.mergeTopK(shards, 20)));
+    }
+
+
+    private static PageRelevance page(long id, float relevance) {
+        return new PageRelevance(id, relevance);
+    }
+
+
+    private static List<Long> ids(List<PageRelevance> pages) {
+        return pages.stream().map(PageRelevance::getPageId).toList();
+    }
+}
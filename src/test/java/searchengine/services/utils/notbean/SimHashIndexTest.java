@@ -0,0 +1,111 @@
+package searchengine.services.utils.notbean;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimHashIndexTest {
+
+    private static final long HASH = 0x1234_5678_9ABC_DEF0L;
+    private static final int MAX_DISTANCE = SimHashIndex.BANDS - 1;
+
+
+    @Test
+    void findsPagesWithinThreeBitsInAnyBands() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, HASH);
+
+        assertEquals(Optional.of(1L), index.findNear(null, HASH, MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(null, flip(HASH, 5), MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(null, flip(HASH, 0, 20), MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(null, flip(HASH, 3, 19, 40), MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(null, flip(HASH, 1, 2, 3), MAX_DISTANCE));
+    }
+
+
+    @Test
+    void ignoresPagesFartherThanMaxDistance() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, HASH);
+
+        assertEquals(Optional.empty(), index.findNear(null, flip(HASH, 1, 2, 3, 4), MAX_DISTANCE));
+        assertEquals(Optional.empty(), index.findNear(null, flip(HASH, 0, 16, 32, 48), MAX_DISTANCE));
+        assertEquals(Optional.empty(), index.findNear(null, flip(HASH, 1, 2), 1));
+    }
+
+
+    @Test
+    void returnsNearestPageAndSkipsCheckedPage() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, flip(HASH, 1, 2, 3));
+        index.put(2, flip(HASH, 7));
+
+        assertEquals(Optional.of(2L), index.findNear(null, HASH, MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(2L, HASH, MAX_DISTANCE));
+    }
+
+
+    @Test
+    void findNearOrPutAddsOnlyUniquePages() {
+        SimHashIndex index = new SimHashIndex();
+
+        assertEquals(Optional.empty(), index.findNearOrPut(1, HASH, MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNearOrPut(2, flip(HASH, 9), MAX_DISTANCE));
+        assertEquals(1, index.size());
+        assertEquals(Optional.empty(), index.get(2));
+    }
+
+
+    @Test
+    void findNearOrPutRemovesPreviousHashOfPageThatBecameDuplicate() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, HASH);
+        index.put(2, ~HASH);
+
+        assertEquals(Optional.of(1L), index.findNearOrPut(2, flip(HASH, 4), MAX_DISTANCE));
+        assertEquals(Optional.empty(), index.findNear(null, ~HASH, MAX_DISTANCE));
+        assertEquals(1, index.size());
+    }
+
+
+    @Test
+    void putReplacesPreviousHash() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, HASH);
+        index.put(1, ~HASH);
+
+        assertEquals(Optional.of(~HASH), index.get(1));
+        assertEquals(Optional.empty(), index.findNear(null, HASH, MAX_DISTANCE));
+        assertEquals(Optional.of(1L), index.findNear(null, ~HASH, MAX_DISTANCE));
+        assertEquals(1, index.size());
+    }
+
+
+    @Test
+    void removeDeletesPageFromAllBands() {
+        SimHashIndex index = new SimHashIndex();
+        index.put(1, HASH);
+        index.put(2, flip(HASH, 60));
+        index.remove(1);
+        index.remove(42);
+
+        assertEquals(Optional.empty(), index.get(1));
+        assertEquals(Optional.of(2L), index.findNear(null, HASH, MAX_DISTANCE));
+
+        index.remove(2);
+
+        assertEquals(Optional.empty(), index.findNear(null, HASH, MAX_DISTANCE));
+        assertEquals(0, index.size());
+    }
+
+
+    private static long flip(long hash, int... bits) {
+        for (int bit : bits) {
+            hash ^= 1L << bit;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine.services.utils.notbean;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+
+    @Test
+    void hashDoesNotDependOnLemmaOrder() {
+        Map<String, Integer> forward = new LinkedHashMap<>();
+        Map<String, Integer> backward = new LinkedHashMap<>();
+
+        for (int i = 0; i < 50; i++) {
+            forward.put("лемма" + i, i % 5 + 1);
+            backward.put("лемма" + (49 - i), (49 - i) % 5 + 1);
+        }
+
+        assertEquals(SimHash.compute(forward), SimHash.compute(backward));
+    }
+
+
+    @Test
+    void hashDoesNotChangeWhenAllCountsAreScaled() {
+        Map<String, Integer> lemmas = lemmas(100, 1);
+        Map<String, Integer> scaled = new HashMap<>();
+        lemmas.forEach((lemma, count) -> scaled.put(lemma, count * 3));
+
+        assertEquals(SimHash.compute(lemmas), SimHash.compute(scaled));
+    }
+
+
+    @Test
+    void similarTextsGetCloseHashes() {
+        Map<String, Integer> original = lemmas(200, 1);
+        Map<String, Integer> edited = new HashMap<>(original);
+        edited.put("лемма0", 2);
+
+        assertTrue(SimHash.distance(SimHash.compute(original), SimHash.compute(edited)) <= 10);
+    }
+
+
+    @Test
+    void differentTextsGetDifferentHashes() {
+        Map<String, Integer> first = lemmas(100, 1);
+        Map<String, Integer> second = new HashMap<>();
+        first.forEach((lemma, count) -> second.put(lemma + "х", count));
+
+        assertNotEquals(SimHash.compute(first), SimHash.compute(second));
+    }
+
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertEquals(0, SimHash.distance(0x5555L, 0x5555L));
+        assertEquals(1, SimHash.distance(0L, 1L << 63));
+        assertEquals(3, SimHash.distance(0b1011L, 0b0000L));
+        assertEquals(64, SimHash.distance(0L, -1L));
+    }
+
+
+    private static Map<String, Integer> lemmas(int size, int count) {
+        Map<String, Integer> lemmas = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            lemmas.put("лемма" + i, count);
+        }
+
+        return lemmas;
+    }
+}